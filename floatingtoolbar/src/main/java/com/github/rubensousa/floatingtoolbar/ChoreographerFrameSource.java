@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+
+import android.content.Context;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+import java.util.ArrayList;
+
+/**
+ * FloatingFrameSource backed by the Choreographer of the main thread.
+ * <p>
+ * A single instance is shared by the FloatingToolbar, its animator, the scroll handling
+ * and the metrics, so it keeps every posted callback and registers itself only once per frame.
+ * </p>
+ */
+class ChoreographerFrameSource implements FloatingFrameSource, Choreographer.FrameCallback {
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private Context mContext;
+    private boolean mPosted;
+
+    // Callbacks for the next frame and the ones being run, swapped on every frame
+    private ArrayList<FrameCallback> mCallbacks;
+    private ArrayList<FrameCallback> mRunningCallbacks;
+
+    ChoreographerFrameSource(Context context) {
+        mContext = context;
+        mCallbacks = new ArrayList<>();
+        mRunningCallbacks = new ArrayList<>();
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public long getFrameIntervalNanos() {
+        WindowManager windowManager
+                = (WindowManager) mContext.getSystemService(Context.WINDOW_SERVICE);
+        float refreshRate = windowManager == null ? DEFAULT_REFRESH_RATE
+                : windowManager.getDefaultDisplay().getRefreshRate();
+        if (refreshRate <= 0) {
+            refreshRate = DEFAULT_REFRESH_RATE;
+        }
+        return (long) (NANOS_PER_SECOND / refreshRate);
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        if (mCallbacks.contains(callback)) {
+            return;
+        }
+        mCallbacks.add(callback);
+        if (!mPosted) {
+            mPosted = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        mCallbacks.remove(callback);
+        // A callback removed by another one in the same frame shouldn't run
+        int index = mRunningCallbacks.indexOf(callback);
+        if (index != -1) {
+            mRunningCallbacks.set(index, null);
+        }
+        if (mCallbacks.isEmpty() && mPosted) {
+            mPosted = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mPosted = false;
+        // Callbacks posted while running are kept for the next frame
+        ArrayList<FrameCallback> callbacks = mCallbacks;
+        mCallbacks = mRunningCallbacks;
+        mRunningCallbacks = callbacks;
+        for (int i = 0; i < callbacks.size(); i++) {
+            FrameCallback callback = callbacks.get(i);
+            if (callback != null) {
+                callback.doFrame(frameTimeNanos);
+            }
+        }
+        callbacks.clear();
+    }
+}
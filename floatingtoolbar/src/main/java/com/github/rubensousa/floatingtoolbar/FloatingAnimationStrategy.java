@@ -1,5 +1,5 @@
 /*
- * Copyright 2016 Rúben Sousa
+ * Copyright 2017 Rúben Sousa
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,22 +16,17 @@
 
 package com.github.rubensousa.floatingtoolbar;
 
-import android.support.v7.widget.RecyclerView;
-
-
-class FloatingScrollListener extends RecyclerView.OnScrollListener {
-
-    private FloatingToolbar mToolbar;
-
-    FloatingScrollListener(FloatingToolbar toolbar) {
-        mToolbar = toolbar;
-    }
-
-    @Override
-    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
-        if (newState == RecyclerView.SCROLL_STATE_DRAGGING && mToolbar.isShowing()) {
-            mToolbar.hide();
-        }
-    }
+/**
+ * Creates the {@link FloatingAnimator} used by a FloatingToolbar.
+ * <p>
+ * Strategies can be registered in {@link FloatingAnimations} to be selected by name.
+ * </p>
+ */
+public interface FloatingAnimationStrategy {
 
+    /**
+     * @param toolbar FloatingToolbar that'll be animated
+     * @return a new animator for the given FloatingToolbar
+     */
+    FloatingAnimator createAnimator(FloatingToolbar toolbar);
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.os.Build;
+import android.support.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registry of the animations that a FloatingToolbar can use,
+ * with the built-in ones registered by default.
+ * <p>
+ * Strategies can be registered from any thread.
+ * The names of the built-in animations are reserved.
+ * </p>
+ */
+public final class FloatingAnimations {
+
+    /**
+     * Circular reveal from Lollipop onwards and a scale animation before it.
+     * It's the "normal" value of the floatingAnimation attribute.
+     */
+    public static final String NORMAL = "normal";
+
+    /**
+     * Animation driven by springs, which settles as soon as possible
+     * and keeps its velocity when it's reversed
+     */
+    public static final String SPRING = "spring";
+
+    /**
+     * No animation. The views jump to the final state.
+     */
+    public static final String INSTANT = "instant";
+
+    /**
+     * Short fade between the FloatingActionButton and the FloatingToolbar
+     */
+    public static final String REDUCED = "reduced";
+
+    private static final Map<String, FloatingAnimationStrategy> sStrategies = new HashMap<>();
+
+    static {
+        sStrategies.put(NORMAL, new FloatingAnimationStrategy() {
+            @Override
+            public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+                    return new FloatingAnimatorImpl(toolbar);
+                }
+                return new FloatingAnimatorLollipopImpl(toolbar);
+            }
+        });
+        sStrategies.put(SPRING, new FloatingAnimationStrategy() {
+            @Override
+            public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                return new FloatingAnimatorSpringImpl(toolbar);
+            }
+        });
+        sStrategies.put(INSTANT, new FloatingAnimationStrategy() {
+            @Override
+            public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                return new FloatingAnimatorInstantImpl(toolbar);
+            }
+        });
+        sStrategies.put(REDUCED, new FloatingAnimationStrategy() {
+            @Override
+            public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                return new FloatingAnimatorReducedImpl(toolbar);
+            }
+        });
+    }
+
+    private FloatingAnimations() {
+
+    }
+
+    /**
+     * Register a strategy so that it can be selected with
+     * {@link FloatingToolbar#setAnimation(String)}.
+     * A strategy registered with the same name is replaced.
+     *
+     * @param name     name of the strategy
+     * @param strategy strategy to be registered
+     * @throws IllegalArgumentException if the name is the name of a built-in animation
+     */
+    public static void register(String name, FloatingAnimationStrategy strategy) {
+        if (isReserved(name)) {
+            throw new IllegalArgumentException("The name " + name
+                    + " is reserved for a built-in animation.");
+        }
+        synchronized (sStrategies) {
+            sStrategies.put(name, strategy);
+        }
+    }
+
+    /**
+     * @param name name of the strategy
+     * @return the strategy registered with the given name, or null if there's none
+     */
+    @Nullable
+    public static FloatingAnimationStrategy get(String name) {
+        synchronized (sStrategies) {
+            return sStrategies.get(name);
+        }
+    }
+
+    private static boolean isReserved(String name) {
+        return NORMAL.equals(name) || SPRING.equals(name) || INSTANT.equals(name)
+                || REDUCED.equals(name);
+    }
+}
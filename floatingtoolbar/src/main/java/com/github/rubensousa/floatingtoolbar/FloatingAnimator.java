@@ -18,17 +18,37 @@ package com.github.rubensousa.floatingtoolbar;
 
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
-import android.os.Build;
-import android.support.design.widget.AppBarLayout;
+import android.os.SystemClock;
 import android.support.design.widget.FloatingActionButton;
+import android.support.v4.util.SimpleArrayMap;
 import android.view.View;
-import android.view.ViewTreeObserver;
 import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AccelerateInterpolator;
+import android.view.animation.Interpolator;
 
-abstract class FloatingAnimator implements AppBarLayout.OnOffsetChangedListener {
+/**
+ * Animates the morph between a FloatingActionButton and a FloatingToolbar.
+ * <p>
+ * Subclasses must call {@link #start(long)} when {@link #show()} or {@link #hide()} begins
+ * and {@link #dispatchAnimationFinished()} when the animation ends.
+ * Use a {@link FloatingAnimationStrategy} to set a custom animator in a FloatingToolbar.
+ * </p>
+ */
+public abstract class FloatingAnimator {
 
+    /**
+     * @deprecated the delay depends on the travel of the morph, see {@link FloatingDelayModel}
+     */
+    @Deprecated
     public static final int DELAY_MIN_WIDTH = 300;
+
+    /**
+     * @deprecated the delay depends on the travel of the morph, see {@link FloatingDelayModel}
+     */
+    @Deprecated
     public static final int DELAY_MAX_WIDTH = 900;
+
+    // Values of FloatingTimingProfile.DEFAULT
     public static final int DELAY_MAX = 150;
     public static final int FAB_MORPH_DURATION = 200;
     public static final int FAB_UNMORPH_DURATION = 200;
@@ -41,46 +61,130 @@ abstract class FloatingAnimator implements AppBarLayout.OnOffsetChangedListener
     public static final int MENU_ANIMATION_DELAY = 200;
     public static final int MENU_ANIMATION_DURATION = 300;
 
-    private float mAppbarOffset;
-    private AppBarLayout mAppBar;
+    // Only read by FloatingTimingProfile, which exposes it
+    static final int FAB_UNMORPH_SCALE_DELAY = 200;
+
+    // Interpolators don't keep state, so they can be shared by every animation
+    static final Interpolator ACCELERATE_DECELERATE_INTERPOLATOR
+            = new AccelerateDecelerateInterpolator();
+    static final Interpolator ACCELERATE_INTERPOLATOR = new AccelerateInterpolator();
+
+    private static final float NANOS_PER_MILLI = 1000000f;
+
     private FloatingActionButton mFab;
     private FloatingToolbar mToolbar;
     private View mRootView;
     private View mContentView;
     private long mDelay;
-    private boolean mMoveFabX;
+    private boolean mDelayValid;
+
+    // Cached until the configuration changes, since it might query the display
+    private long mFrameIntervalNanos;
+    private FloatingFrameSource mFrameSource;
+    private FloatingDelayModel mDelayModel;
+    private long mStartTime;
+    private long mPlannedDuration;
+    private float mDurationScale = 1f;
+    private FloatingTimingProfile mTimingProfile = FloatingTimingProfile.DEFAULT;
+    private boolean mRunning;
+    private boolean mReversing;
+    private boolean mHardwareLayersEnabled;
+    private boolean mHardwareLayersApplied;
+    private int mToolbarLayerType;
+    private int mContentLayerType;
+    private int mFabLayerType;
+    private FloatingMorphGeometry mGeometry;
+    private SimpleArrayMap<View, FloatingMorphGeometry> mFabGeometries;
     private FloatingAnimatorListener mAnimationListener;
 
+    private AnimatorListenerAdapter mContentShowListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            mContentView.animate().setListener(null);
+            dispatchAnimationFinished();
+        }
+    };
+
+    private View.OnLayoutChangeListener mFabLayoutListener = new View.OnLayoutChangeListener() {
+        @Override
+        public void onLayoutChange(View v, int left, int top, int right, int bottom,
+                                   int oldLeft, int oldTop, int oldRight, int oldBottom) {
+            if (left != oldLeft || top != oldTop || right != oldRight || bottom != oldBottom) {
+                invalidateGeometry(v);
+            }
+        }
+    };
+
     public FloatingAnimator(FloatingToolbar toolbar) {
         mToolbar = toolbar;
         mRootView = mToolbar.getRootView();
+        mGeometry = new FloatingMorphGeometry();
+        mFabGeometries = new SimpleArrayMap<>();
+        mFrameSource = toolbar.getFrameSource();
+        mDelayModel = new FloatingDistanceDelayModel();
     }
 
+    /**
+     * Set the fab to be morphed. The fabs that were set before keep being observed
+     * until {@link #removeFab(FloatingActionButton)} is called,
+     * so switching back to them reuses their geometry.
+     *
+     * @param fab FloatingActionButton to be morphed
+     */
     public void setFab(FloatingActionButton fab) {
+        restoreLayers();
         mFab = fab;
-        mFab.getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
-            @Override
-            public void onGlobalLayout() {
-                if (mToolbar.getWidth() != 0) {
-                    mMoveFabX = mFab.getRight() > mToolbar.getWidth() * 0.75
-                            || mFab.getLeft() < mToolbar.getHeight() * 0.25;
-                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-                        mFab.getViewTreeObserver().removeOnGlobalLayoutListener(this);
-                    } else {
-                        //noinspection deprecation
-                        mFab.getViewTreeObserver().removeGlobalOnLayoutListener(this);
-                    }
-                }
-            }
-        });
+        if (mFab != null) {
+            addFab(mFab);
+            mGeometry = mFabGeometries.get(mFab);
+        }
+        mDelayValid = false;
     }
 
-    public void setAppBarLayout(AppBarLayout appBarLayout) {
-        mAppBar = appBarLayout;
+    /**
+     * Start observing the layout of a fab that might be set later
+     */
+    void addFab(FloatingActionButton fab) {
+        if (!mFabGeometries.containsKey(fab)) {
+            mFabGeometries.put(fab, new FloatingMorphGeometry());
+            fab.addOnLayoutChangeListener(mFabLayoutListener);
+        }
     }
 
-    public AppBarLayout getAppBar() {
-        return mAppBar;
+    /**
+     * Stop observing the layout of a fab. If it's the current one, it's also unset.
+     */
+    void removeFab(FloatingActionButton fab) {
+        if (fab == mFab) {
+            restoreLayers();
+            mFab = null;
+            mGeometry = new FloatingMorphGeometry();
+            mDelayValid = false;
+        }
+        if (mFabGeometries.remove(fab) != null) {
+            fab.removeOnLayoutChangeListener(mFabLayoutListener);
+        }
+    }
+
+    /**
+     * Move every fab observed by this animator to the one that replaces it,
+     * with their geometry, and set the current fab there too
+     *
+     * @param animator animator that replaces this one
+     */
+    void moveFabs(FloatingAnimator animator) {
+        restoreLayers();
+        for (int i = 0; i < mFabGeometries.size(); i++) {
+            View fab = mFabGeometries.keyAt(i);
+            fab.removeOnLayoutChangeListener(mFabLayoutListener);
+            if (!animator.mFabGeometries.containsKey(fab)) {
+                animator.mFabGeometries.put(fab, mFabGeometries.valueAt(i));
+                fab.addOnLayoutChangeListener(animator.mFabLayoutListener);
+            }
+        }
+        mFabGeometries.clear();
+        animator.setFab(mFab);
+        mFab = null;
     }
 
     public FloatingActionButton getFab() {
@@ -91,119 +195,498 @@ abstract class FloatingAnimator implements AppBarLayout.OnOffsetChangedListener
         return mToolbar;
     }
 
-    public void setFloatingAnimatorListener(FloatingAnimatorListener listener) {
+    void setFloatingAnimatorListener(FloatingAnimatorListener listener) {
         mAnimationListener = listener;
     }
 
-    public FloatingAnimatorListener getAnimationListener() {
+    FloatingAnimatorListener getAnimationListener() {
         return mAnimationListener;
     }
 
     public void setContentView(View contentView) {
+        if (contentView == mContentView) {
+            // Keep the layers of a running morph, e.g, when only the menu changed
+            return;
+        }
+        restoreLayers();
         mContentView = contentView;
     }
 
-    public float getAppBarOffset() {
-        return mAppbarOffset;
+    public View getContentView() {
+        return mContentView;
+    }
+
+    public void setHardwareLayersEnabled(boolean enabled) {
+        mHardwareLayersEnabled = enabled;
+        if (!enabled) {
+            restoreLayers();
+        }
+    }
+
+    public boolean isHardwareLayersEnabled() {
+        return mHardwareLayersEnabled;
+    }
+
+    /**
+     * Render the FloatingToolbar, its content view and the fab into hardware layers
+     * until {@link #restoreLayers()} is called, if hardware layers are enabled.
+     */
+    void applyLayers() {
+        if (!mHardwareLayersEnabled || mHardwareLayersApplied) {
+            return;
+        }
+        mHardwareLayersApplied = true;
+        mToolbarLayerType = mToolbar.getLayerType();
+        mToolbar.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        if (mContentView != null) {
+            mContentLayerType = mContentView.getLayerType();
+            mContentView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        }
+        if (mFab != null) {
+            mFabLayerType = mFab.getLayerType();
+            mFab.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        }
     }
 
+    /**
+     * Restore the layer types that the views had before {@link #applyLayers()}
+     */
+    void restoreLayers() {
+        if (!mHardwareLayersApplied) {
+            return;
+        }
+        mHardwareLayersApplied = false;
+        mToolbar.setLayerType(mToolbarLayerType, null);
+        if (mContentView != null) {
+            mContentView.setLayerType(mContentLayerType, null);
+        }
+        if (mFab != null) {
+            mFab.setLayerType(mFabLayerType, null);
+        }
+    }
+
+    /**
+     * @return delay in milliseconds added to every duration and delay of the morph,
+     * computed again only if the layout, timing profile or configuration changed
+     */
     public long getDelay() {
+        if (!mDelayValid) {
+            updateDelay();
+        }
         return mDelay;
     }
 
+    /**
+     * Set the durations and delays of the next animations
+     */
+    public void setTimingProfile(FloatingTimingProfile profile) {
+        mTimingProfile = profile;
+        mDelayValid = false;
+    }
+
+    public FloatingTimingProfile getTimingProfile() {
+        return mTimingProfile;
+    }
+
+    public void setDelayModel(FloatingDelayModel delayModel) {
+        mDelayModel = delayModel;
+        mDelayValid = false;
+    }
+
+    public FloatingDelayModel getDelayModel() {
+        return mDelayModel;
+    }
+
+    /**
+     * Set the source of the display refresh rate, e.g, a fake display in tests
+     */
+    void setFrameSource(FloatingFrameSource frameSource) {
+        mFrameSource = frameSource;
+        onConfigurationChanged();
+    }
+
+    FloatingFrameSource getFrameSource() {
+        return mFrameSource;
+    }
+
+    /**
+     * Discard the values that depend on the display, e.g, its density or refresh rate
+     */
+    void onConfigurationChanged() {
+        mFrameIntervalNanos = 0;
+        mDelayValid = false;
+    }
+
+    /**
+     * @return expected duration in milliseconds of {@link #show()},
+     * until the FloatingAnimatorListener is notified
+     */
+    public long getShowDuration() {
+        return mTimingProfile.getMenuDelay() + mTimingProfile.getMenuDuration() + 2 * getDelay();
+    }
+
+    /**
+     * @return expected duration in milliseconds of {@link #hide()},
+     * until the FloatingAnimatorListener is notified
+     */
+    public abstract long getHideDuration();
+
     public boolean shouldMoveFabX() {
-        return mMoveFabX;
+        return getGeometry().moveFabX;
+    }
+
+    /**
+     * @return the positions used by the morph, computed again only if the layout changed.
+     * They're only valid after the FloatingToolbar and the fab are laid out.
+     */
+    public FloatingMorphGeometry getGeometry() {
+        if (!mGeometry.valid && mFab != null && mToolbar.getWidth() != 0) {
+            mGeometry.update(mToolbar, mFab, mRootView);
+            mGeometry.valid = true;
+        }
+        return mGeometry;
+    }
+
+    /**
+     * Keep the translation that the fab has before the morph, e.g, from its Behavior
+     * for a Snackbar, so that the unmorph puts it back there
+     */
+    void saveFabTranslation() {
+        if (mFab != null) {
+            getGeometry().fabTranslationY = mFab.getTranslationY();
+        }
+    }
+
+    /**
+     * Discard the current positions used by the morph.
+     * Called when the layout of the fab or FloatingToolbar changes,
+     * or when one of the views that the FloatingToolbar.Behavior depends on moves.
+     */
+    void invalidateGeometry() {
+        for (int i = 0; i < mFabGeometries.size(); i++) {
+            mFabGeometries.valueAt(i).valid = false;
+        }
+        mDelayValid = false;
+    }
+
+    /**
+     * Discard the positions used by the morph of a single fab
+     */
+    void invalidateGeometry(View fab) {
+        FloatingMorphGeometry geometry = mFabGeometries.get(fab);
+        if (geometry != null) {
+            geometry.valid = false;
+        }
+        if (fab == mFab) {
+            mDelayValid = false;
+        }
     }
 
     public View getRootView() {
         return mRootView;
     }
 
-    public void show() {
-        if (mMoveFabX) {
-            float fabEndX = mFab.getLeft() > mRootView.getWidth() / 2f ?
-                    mFab.getLeft() - mFab.getWidth() : mFab.getLeft() + mFab.getWidth();
+    /**
+     * @return true if the current animation started while the opposite one was running
+     */
+    public boolean isReversing() {
+        return mReversing;
+    }
+
+    /**
+     * @return true if a show or hide animation is running
+     */
+    public boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * @return expected duration in milliseconds of the current animation, after scaling
+     */
+    public long getPlannedDuration() {
+        return mPlannedDuration;
+    }
+
+    /**
+     * Scale a duration or delay of the current animation.
+     * <p>
+     * When an animation interrupts the opposite one, it only takes as long as
+     * the interrupted animation was running, so that the views go back from where they are.
+     * </p>
+     */
+    public long scale(long duration) {
+        return (long) (duration * mDurationScale);
+    }
+
+    /**
+     * Stop the running animations, leaving the views where they are.
+     * Listeners must not report the end of the animation when it's cancelled.
+     */
+    public void cancel() {
+        mToolbar.animate().setListener(null);
+        mToolbar.animate().cancel();
+        if (mContentView != null) {
+            mContentView.animate().setListener(null);
+            mContentView.animate().cancel();
+        }
+    }
+
+    /**
+     * Stop the running animation without reporting its end,
+     * e.g, when a morph driven by {@link FloatingToolbar#setMorphProgress(float)} takes over.
+     */
+    void abort() {
+        if (mRunning) {
+            cancel();
+            mRunning = false;
+            mReversing = false;
+            mDurationScale = 1f;
+        }
+    }
+
+    /**
+     * Place the views where {@link #show()} or {@link #hide()} leave them when they finish,
+     * so that the next animation starts from the usual state
+     * after a morph driven by {@link FloatingToolbar#setMorphProgress(float)}.
+     *
+     * @param shown true for the end of {@link #show()}, false for the end of {@link #hide()}
+     */
+    public void resetViews(boolean shown) {
+        FloatingMorphGeometry geometry = getGeometry();
+        if (shown) {
+            FloatingAnimatorInstantImpl.resetToolbar(mToolbar, mContentView, geometry);
+            mToolbar.setVisibility(View.VISIBLE);
+            mFab.setScaleX(1f);
+            mFab.setScaleY(1f);
+            mFab.setX(geometry.fabShowX);
+            mFab.setY(geometry.fabTop + geometry.fabDiff);
+            mFab.setVisibility(View.INVISIBLE);
+        } else {
+            FloatingAnimatorInstantImpl.resetFab(mFab, geometry);
+            mToolbar.setScaleX(1f);
+            mToolbar.setX(geometry.toolbarLeft);
+            mToolbar.setVisibility(View.INVISIBLE);
+            mFab.setVisibility(View.VISIBLE);
+        }
+    }
+
+    /**
+     * Place the views where {@link #show()} has them at the given progress,
+     * for a morph driven by {@link FloatingToolbar#setMorphProgress(float)}.
+     * The progress is the part of {@link #getShowDuration()} that was played,
+     * so a drag goes through the same frames as the timed morph.
+     * <p>
+     * The default implementation follows the morph that scales the FloatingToolbar
+     * from the fab. Subclasses that animate other properties must override it.
+     * </p>
+     *
+     * @param progress value between 0, the fab, and 1, the FloatingToolbar
+     */
+    public void applyProgress(float progress) {
+        FloatingMorphGeometry geometry = getGeometry();
+
+        float fab = getShowFraction(progress, 0, mTimingProfile.getFabMorphDuration(),
+                ACCELERATE_INTERPOLATOR);
+        mFab.setX(interpolate(geometry.fabLeft, geometry.fabShowX, fab));
+        mFab.setY(interpolate(geometry.getFabRestY(), mToolbar.getY() * 0.95f, fab));
+        mFab.setScaleX(1f - fab);
+        mFab.setScaleY(1f - fab);
+
+        mToolbar.setScaleX(getShowFraction(progress, mTimingProfile.getRevealDelay(),
+                mTimingProfile.getRevealDuration(), ACCELERATE_DECELERATE_INTERPOLATOR));
+        setToolbarRevealed(progress > 0f
+                && getShowTime(progress) >= mTimingProfile.getRevealDelay());
+        applyContentProgress(progress);
+    }
+
+    /**
+     * Place the FloatingToolbar and its content view where {@link FloatingAnimator#show()}
+     * has them at the given progress. The reveal and the fab are left to the subclasses.
+     *
+     * @param progress value between 0, the fab, and 1, the FloatingToolbar
+     */
+    protected final void applyContentProgress(float progress) {
+        long delay = getDelay();
+        FloatingMorphGeometry geometry = getGeometry();
+        if (geometry.moveFabX) {
+            float fraction = getShowFraction(progress, mTimingProfile.getRevealDelay() + delay,
+                    mTimingProfile.getRevealDuration() + delay,
+                    ACCELERATE_DECELERATE_INTERPOLATOR);
+            mToolbar.setX(interpolate(geometry.toolbarShowX, geometry.toolbarLeft, fraction));
+        }
+        if (mContentView != null) {
+            float fraction = getShowFraction(progress, mTimingProfile.getMenuDelay() + delay,
+                    mTimingProfile.getMenuDuration() + delay,
+                    ACCELERATE_DECELERATE_INTERPOLATOR);
+            mContentView.setAlpha(fraction);
+            mContentView.setScaleX(interpolate(0.7f, 1f, fraction));
+        }
+    }
+
+    /**
+     * Show the FloatingToolbar instead of the fab, or the opposite
+     */
+    protected final void setToolbarRevealed(boolean revealed) {
+        mToolbar.setVisibility(revealed ? View.VISIBLE : View.INVISIBLE);
+        mFab.setVisibility(revealed ? View.INVISIBLE : View.VISIBLE);
+    }
+
+    /**
+     * @return time in milliseconds that {@link #show()} takes to reach the given progress,
+     * without the animator duration scale
+     */
+    protected float getShowTime(float progress) {
+        return progress * getShowDuration();
+    }
+
+    /**
+     * @return interpolated fraction that an animation started by {@link #show()}
+     * has at the given progress
+     */
+    protected float getShowFraction(float progress, long delay, long duration,
+                                    Interpolator interpolator) {
+        float time = getShowTime(progress) - delay;
+        float fraction;
+        if (duration <= 0) {
+            fraction = time >= 0 ? 1f : 0f;
+        } else {
+            fraction = Math.max(0f, Math.min(1f, time / duration));
+        }
+        return interpolator.getInterpolation(fraction);
+    }
 
-            // Place view a bit closer to the fab
-            mToolbar.setX(fabEndX - mToolbar.getWidth() / 2f + mFab.getWidth());
+    static float interpolate(float start, float end, float fraction) {
+        return start + (end - start) * fraction;
+    }
+
+    public void show() {
+        start(getShowDuration());
+        long delay = getDelay();
+        FloatingMorphGeometry geometry = getGeometry();
+        if (geometry.moveFabX) {
+            if (!mReversing) {
+                // Place view a bit closer to the fab
+                mToolbar.setX(geometry.toolbarShowX);
+            }
 
             // Move FloatingToolbar to the original position
-            mToolbar.animate().x(mToolbar.getLeft()).setStartDelay(CIRCULAR_REVEAL_DELAY + mDelay)
-                    .setDuration((long) (CIRCULAR_REVEAL_DURATION) + mDelay)
-                    .setInterpolator(new AccelerateDecelerateInterpolator());
+            mToolbar.animate().x(geometry.toolbarLeft)
+                    .setStartDelay(scale(mTimingProfile.getRevealDelay() + delay))
+                    .setDuration(scale(mTimingProfile.getRevealDuration() + delay))
+                    .setInterpolator(ACCELERATE_DECELERATE_INTERPOLATOR);
         }
 
         // Start showing content view
         if (mContentView != null) {
-            mContentView.setAlpha(0f);
-            mContentView.setScaleX(0.7f);
+            if (!mReversing) {
+                mContentView.setAlpha(0f);
+                mContentView.setScaleX(0.7f);
+            }
             mContentView.animate().alpha(1).scaleX(1f)
-                    .setDuration(MENU_ANIMATION_DURATION + mDelay)
-                    .setStartDelay(MENU_ANIMATION_DELAY + mDelay)
-                    .setInterpolator(new AccelerateDecelerateInterpolator())
-                    .setListener(new AnimatorListenerAdapter() {
-                        @Override
-                        public void onAnimationEnd(Animator animation) {
-                            mAnimationListener.onAnimationFinished();
-                            mContentView.animate().setListener(null);
-                        }
-                    });
+                    .setDuration(scale(mTimingProfile.getMenuDuration() + delay))
+                    .setStartDelay(scale(mTimingProfile.getMenuDelay() + delay))
+                    .setInterpolator(ACCELERATE_DECELERATE_INTERPOLATOR)
+                    .setListener(mContentShowListener);
         }
     }
 
     public void hide() {
-        if (mMoveFabX) {
-            mToolbar.animate().x(mFab.getLeft() - mToolbar.getWidth() / 2f)
-                    .setDuration(CIRCULAR_UNREVEAL_DURATION + mDelay)
-                    .setStartDelay(TOOLBAR_UNREVEAL_DELAY + mDelay)
-                    .setInterpolator(new AccelerateDecelerateInterpolator())
+        start(getHideDuration());
+        long delay = getDelay();
+        FloatingMorphGeometry geometry = getGeometry();
+        if (geometry.moveFabX) {
+            mToolbar.animate().x(geometry.toolbarHideX)
+                    .setDuration(scale(mTimingProfile.getUnrevealDuration() + delay))
+                    .setStartDelay(scale(mTimingProfile.getToolbarUnrevealDelay() + delay))
+                    .setInterpolator(ACCELERATE_DECELERATE_INTERPOLATOR)
                     .setListener(null);
         }
         if (mContentView != null) {
             mContentView.animate().alpha(0f).scaleX(0.7f)
-                    .setStartDelay(CIRCULAR_UNREVEAL_DELAY + mDelay)
-                    .setDuration((MENU_ANIMATION_DURATION / 2) + mDelay)
+                    .setStartDelay(scale(mTimingProfile.getUnrevealDelay() + delay))
+                    .setDuration(scale((mTimingProfile.getMenuDuration() / 2) + delay))
                     .setListener(null);
         }
     }
 
-    @Override
-    public void onOffsetChanged(AppBarLayout appBarLayout, int verticalOffset) {
-        // Fab can be a bit higher than the AppBar when this last covers the whole screen.
-        mAppbarOffset = verticalOffset;
+    /**
+     * Must be called by subclasses when the show or hide animation finishes
+     */
+    protected void dispatchAnimationFinished() {
+        mRunning = false;
+        mReversing = false;
+        mDurationScale = 1f;
+        if (mAnimationListener != null) {
+            mAnimationListener.onAnimationFinished();
+        }
     }
 
     /**
-     * Calculate a delay that depends on the screen width so that animations don't happen too quick
-     * on larger phones or tablets
-     * <p>
-     * Base is 300dp.
+     * Prepare a new animation. If the opposite animation is running, it's cancelled
+     * and the new one is scaled to the time that was already played.
      * <p>
-     * A root view with 300dp as width has 0 delay
+     * The animators stretch every duration by the animator duration scale
+     * of the developer options, so the planned duration is stretched too.
+     * </p>
+     *
+     * @param plannedDuration expected duration of the animation in milliseconds
+     */
+    protected void start(long plannedDuration) {
+        long now = SystemClock.uptimeMillis();
+        plannedDuration = (long) (plannedDuration * mToolbar.getDurationScale());
+        if (mRunning) {
+            mReversing = true;
+            // Fraction of the interrupted animation that was played,
+            // so its planned duration is read before it's replaced
+            mDurationScale = mPlannedDuration == 0 ? 1f
+                    : Math.min(1f, (now - mStartTime) / (float) mPlannedDuration);
+            cancel();
+        } else {
+            mReversing = false;
+            mDurationScale = 1f;
+        }
+        mRunning = true;
+        mStartTime = now;
+        mPlannedDuration = scale(plannedDuration);
+    }
+
+    /**
+     * Compute the delay added to every duration and delay of the morph with the delay model,
+     * from the distance that the views travel and the refresh rate of the display.
      * <p>
-     * The max width is 1200dp, with a max delay of 200 ms
+     * It's called when the delay is needed after it was invalidated,
+     * so it doesn't need to be called after the layout changes.
+     * </p>
      */
     public void updateDelay() {
-        float minWidth = FloatingToolbar.dpToPixels(mToolbar.getContext(), DELAY_MIN_WIDTH);
-        float maxWidth = FloatingToolbar.dpToPixels(mToolbar.getContext(), DELAY_MAX_WIDTH);
-        float diff = maxWidth - minWidth;
-
-        int width = mToolbar.getWidth();
-
-        if (width == 0 || width < minWidth) {
-            mDelay = 0;
-            return;
+        if (mFrameIntervalNanos == 0) {
+            mFrameIntervalNanos = mFrameSource.getFrameIntervalNanos();
         }
+        float density = mToolbar.getResources().getDisplayMetrics().density;
+        mDelay = mDelayModel.getDelay(getTravel() / density,
+                mFrameIntervalNanos / NANOS_PER_MILLI, mTimingProfile);
+        mDelayValid = true;
+    }
 
-        if (width > maxWidth) {
-            mDelay = DELAY_MAX;
-            return;
+    /**
+     * @return the longest distance in pixels that a view travels during the morph
+     */
+    private float getTravel() {
+        FloatingMorphGeometry geometry = getGeometry();
+        if (!geometry.valid) {
+            // Without a fab, the reveal covers half of the width
+            return mToolbar.getWidth() / 2f;
         }
-
-        mDelay = (long) (DELAY_MAX / diff * (width - minWidth));
+        float fabTravel = (float) Math.hypot(geometry.fabShowX - geometry.fabLeft,
+                geometry.fabDiff);
+        return Math.max(geometry.revealRadius, fabTravel);
     }
 
-    interface FloatingAnimatorListener {
+    /**
+     * Notified when a show or hide animation finishes.
+     * The FloatingToolbar that owns the animator is its only listener.
+     */
+    public interface FloatingAnimatorListener {
         void onAnimationFinished();
     }
 }
@@ -23,107 +23,156 @@ import android.animation.PropertyValuesHolder;
 import android.support.v4.view.ViewCompat;
 import android.support.v4.view.ViewPropertyAnimatorListenerAdapter;
 import android.view.View;
-import android.view.animation.AccelerateDecelerateInterpolator;
-import android.view.animation.AccelerateInterpolator;
 
+/**
+ * Animator used before Lollipop.
+ * <p>
+ * The animators and listeners are created once and reused by every morph.
+ * </p>
+ */
 class FloatingAnimatorImpl extends FloatingAnimator {
 
+    private PropertyValuesHolder mFabXProperty;
+    private PropertyValuesHolder mFabYProperty;
+    private PropertyValuesHolder mFabScaleXProperty;
+    private PropertyValuesHolder mFabScaleYProperty;
+    private ObjectAnimator mFabAnimator;
+    private ObjectAnimator mToolbarAnimator;
+    private boolean mCancelling;
+
+    private AnimatorListenerAdapter mToolbarShowListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationStart(Animator animation) {
+            if (mCancelling) {
+                return;
+            }
+            getFloatingToolbar().setVisibility(View.VISIBLE);
+            getFab().setVisibility(View.INVISIBLE);
+        }
+    };
+
+    private ViewPropertyAnimatorListenerAdapter mFabHideListener
+            = new ViewPropertyAnimatorListenerAdapter() {
+        @Override
+        public void onAnimationStart(View view) {
+            getFab().setVisibility(View.VISIBLE);
+        }
+
+        @Override
+        public void onAnimationEnd(View view) {
+            if (mCancelling) {
+                return;
+            }
+            dispatchAnimationFinished();
+        }
+    };
+
+    private ViewPropertyAnimatorListenerAdapter mToolbarHideListener
+            = new ViewPropertyAnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(View view) {
+            if (mCancelling) {
+                return;
+            }
+            getFloatingToolbar().setVisibility(View.INVISIBLE);
+            ViewCompat.animate(getFloatingToolbar()).setListener(null);
+        }
+    };
+
     FloatingAnimatorImpl(FloatingToolbar toolbar) {
         super(toolbar);
+        mFabXProperty = PropertyValuesHolder.ofFloat(View.X, 0f);
+        mFabYProperty = PropertyValuesHolder.ofFloat(View.Y, 0f);
+        mFabScaleXProperty = PropertyValuesHolder.ofFloat(View.SCALE_X, 0f);
+        mFabScaleYProperty = PropertyValuesHolder.ofFloat(View.SCALE_Y, 0f);
+        mFabAnimator = ObjectAnimator.ofPropertyValuesHolder(null, mFabXProperty,
+                mFabYProperty, mFabScaleXProperty, mFabScaleYProperty);
+        mFabAnimator.setInterpolator(ACCELERATE_INTERPOLATOR);
+
+        mToolbarAnimator = ObjectAnimator.ofFloat(toolbar, View.SCALE_X, 1f);
+        mToolbarAnimator.setInterpolator(ACCELERATE_DECELERATE_INTERPOLATOR);
+        mToolbarAnimator.addListener(mToolbarShowListener);
     }
 
     @Override
     public void show() {
         super.show();
-        int rootWidth = getRootView().getWidth();
-        float endFabX;
-
-        if (shouldMoveFabX()) {
-            if (getFab().getLeft() > rootWidth / 2f) {
-                endFabX = getFab().getLeft() - getFab().getWidth();
-            } else {
-                endFabX = getFab().getLeft() + getFab().getWidth();
-            }
-        } else {
-            endFabX = getFab().getLeft();
-        }
+        FloatingTimingProfile profile = getTimingProfile();
 
-        PropertyValuesHolder xProperty = PropertyValuesHolder.ofFloat(View.X, endFabX);
-        PropertyValuesHolder yProperty
-                = PropertyValuesHolder.ofFloat(View.Y, getFloatingToolbar().getY() * 0.95f);
-        PropertyValuesHolder scaleXProperty = PropertyValuesHolder.ofFloat(View.SCALE_X, 0);
-        PropertyValuesHolder scaleYProperty = PropertyValuesHolder.ofFloat(View.SCALE_Y, 0);
-
-        ObjectAnimator animator = ObjectAnimator.ofPropertyValuesHolder(getFab(), xProperty,
-                yProperty, scaleXProperty, scaleYProperty);
-        animator.setDuration(FAB_MORPH_DURATION);
-        animator.setInterpolator(new AccelerateInterpolator());
-        animator.start();
-
-        ObjectAnimator objectAnimator = ObjectAnimator.ofFloat(getFloatingToolbar(), "scaleX", 1f);
-        objectAnimator.setDuration(CIRCULAR_REVEAL_DURATION);
-        objectAnimator.setStartDelay(CIRCULAR_REVEAL_DELAY);
-        objectAnimator.setInterpolator(new AccelerateDecelerateInterpolator());
-        objectAnimator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationStart(Animator animation) {
-                getFloatingToolbar().setVisibility(View.VISIBLE);
-                getFab().setVisibility(View.INVISIBLE);
-            }
-        });
-        objectAnimator.start();
+        // Start values are set explicitly since the animator is reused
+        mFabXProperty.setFloatValues(getFab().getX(), getGeometry().fabShowX);
+        mFabYProperty.setFloatValues(getFab().getY(), getFloatingToolbar().getY() * 0.95f);
+        mFabScaleXProperty.setFloatValues(getFab().getScaleX(), 0f);
+        mFabScaleYProperty.setFloatValues(getFab().getScaleY(), 0f);
+        mFabAnimator.setTarget(getFab());
+        mFabAnimator.setDuration(scale(profile.getFabMorphDuration()));
+        mFabAnimator.start();
+
+        mToolbarAnimator.setFloatValues(getFloatingToolbar().getScaleX(), 1f);
+        mToolbarAnimator.setDuration(scale(profile.getRevealDuration()));
+        mToolbarAnimator.setStartDelay(scale(profile.getRevealDelay()));
+        mToolbarAnimator.start();
     }
 
     @Override
     public void hide() {
         super.hide();
+        FloatingTimingProfile profile = getTimingProfile();
 
-        // A snackbar might have appeared, so we need to update the fab position again
-        if (getAppBar() != null) {
-            getFab().setY(getFloatingToolbar().getY());
-        } else {
-            getFab().setTranslationY(getFloatingToolbar().getTranslationY());
+        // The fab is hidden behind the FloatingToolbar,
+        // but its Behavior might have moved it meanwhile, e.g, for a Snackbar.
+        // If the fab is still moving, it goes back from where it is.
+        if (!isReversing()) {
+            getFab().setX(getGeometry().fabShowX);
+            getFab().setY(getFloatingToolbar().getY() * 0.95f);
         }
 
-        final int fabNewY = getFab().getTop();
+        // Go back to where the fab is laid out, even if an anchor moved it meanwhile,
+        // with the translation it had before the morph
         ViewCompat.animate(getFab())
-                .x(getFab().getLeft())
-                .y(fabNewY)
-                .translationY(getFloatingToolbar().getTranslationY())
+                .translationX(0f)
+                .translationY(getGeometry().fabTranslationY)
                 .scaleX(1f)
                 .scaleY(1f)
-                .setStartDelay(200)
-                .setDuration(FAB_UNMORPH_DURATION)
-                .setInterpolator(new AccelerateInterpolator())
-                .setListener(new ViewPropertyAnimatorListenerAdapter() {
-                    @Override
-                    public void onAnimationStart(View view) {
-                        getFab().setVisibility(View.VISIBLE);
-                    }
-
-                    @Override
-                    public void onAnimationEnd(View view) {
-                        // Make sure the fab goes to the right place after the animation ends
-                        // when the Appbar is attached
-                        if (getAppBar() != null && getFab().getVisibility() == View.INVISIBLE) {
-                            getFab().show();
-                        }
-                        getAnimationListener().onAnimationFinished();
-                    }
-                });
+                .setStartDelay(scale(profile.getFabUnmorphScaleDelay()))
+                .setDuration(scale(profile.getFabUnmorphDuration()))
+                .setInterpolator(ACCELERATE_INTERPOLATOR)
+                .setListener(mFabHideListener);
 
         ViewCompat.animate(getFloatingToolbar())
                 .scaleX(0f)
-                .setDuration(CIRCULAR_UNREVEAL_DURATION)
-                .setStartDelay(CIRCULAR_UNREVEAL_DELAY)
-                .setInterpolator(new AccelerateDecelerateInterpolator())
-                .setListener(new ViewPropertyAnimatorListenerAdapter() {
-
-                    @Override
-                    public void onAnimationEnd(View view) {
-                        getFloatingToolbar().setVisibility(View.INVISIBLE);
-                        ViewCompat.animate(getFloatingToolbar()).setListener(null);
-                    }
-                });
+                .setDuration(scale(profile.getUnrevealDuration()))
+                .setStartDelay(scale(profile.getUnrevealDelay()))
+                .setInterpolator(ACCELERATE_DECELERATE_INTERPOLATOR)
+                .setListener(mToolbarHideListener);
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        mCancelling = true;
+        mFabAnimator.cancel();
+        mToolbarAnimator.cancel();
+        ViewCompat.animate(getFab()).cancel();
+        ViewCompat.animate(getFloatingToolbar()).cancel();
+        mCancelling = false;
+    }
+
+    @Override
+    public void resetViews(boolean shown) {
+        super.resetViews(shown);
+        // show() leaves the fab scaled down and hide() leaves the FloatingToolbar scaled down
+        if (shown) {
+            getFab().setScaleX(0f);
+            getFab().setScaleY(0f);
+        } else {
+            getFloatingToolbar().setScaleX(0f);
+        }
+    }
+
+    @Override
+    public long getHideDuration() {
+        FloatingTimingProfile profile = getTimingProfile();
+        return profile.getFabUnmorphScaleDelay() + profile.getFabUnmorphDuration();
     }
 }
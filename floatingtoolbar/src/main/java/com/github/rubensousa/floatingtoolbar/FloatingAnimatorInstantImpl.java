@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+
+/**
+ * Animator that skips every animation and moves the views to their final state
+ */
+class FloatingAnimatorInstantImpl extends FloatingAnimator {
+
+    private Runnable mFinishRunnable = new Runnable() {
+        @Override
+        public void run() {
+            dispatchAnimationFinished();
+        }
+    };
+
+    FloatingAnimatorInstantImpl(FloatingToolbar toolbar) {
+        super(toolbar);
+    }
+
+    @Override
+    public void show() {
+        start(0);
+        resetViews(true);
+        finish();
+    }
+
+    @Override
+    public void hide() {
+        start(0);
+        resetViews(false);
+        finish();
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        getFloatingToolbar().removeCallbacks(mFinishRunnable);
+    }
+
+    /**
+     * There's nothing in between, so the views switch halfway through the progress
+     */
+    @Override
+    public void applyProgress(float progress) {
+        resetViews(progress >= 0.5f);
+    }
+
+    @Override
+    public long getShowDuration() {
+        return 0;
+    }
+
+    @Override
+    public long getHideDuration() {
+        return 0;
+    }
+
+    /**
+     * The end of the animation is dispatched on the next frame,
+     * after the FloatingToolbar has notified that it started
+     */
+    private void finish() {
+        getFloatingToolbar().removeCallbacks(mFinishRunnable);
+        ViewCompat.postOnAnimation(getFloatingToolbar(), mFinishRunnable);
+    }
+
+    /**
+     * Place the FloatingToolbar and its content where they are when it's shown
+     */
+    static void resetToolbar(View toolbar, View contentView, FloatingMorphGeometry geometry) {
+        toolbar.setScaleX(1f);
+        toolbar.setAlpha(1f);
+        toolbar.setX(geometry.toolbarLeft);
+        if (contentView != null) {
+            contentView.setAlpha(1f);
+            contentView.setScaleX(1f);
+        }
+    }
+
+    /**
+     * Place the fab where it is before the morph
+     */
+    static void resetFab(View fab, FloatingMorphGeometry geometry) {
+        fab.setScaleX(1f);
+        fab.setScaleY(1f);
+        fab.setAlpha(1f);
+        fab.setX(geometry.fabLeft);
+        fab.setY(geometry.getFabRestY());
+        ViewCompat.setTranslationZ(fab, 0f);
+    }
+}
@@ -19,181 +19,352 @@ package com.github.rubensousa.floatingtoolbar;
 import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
 import android.annotation.TargetApi;
-import android.graphics.Path;
+import android.graphics.Outline;
+import android.os.SystemClock;
 import android.view.View;
 import android.view.ViewAnimationUtils;
-import android.view.animation.AccelerateDecelerateInterpolator;
-import android.view.animation.AccelerateInterpolator;
-
+import android.view.ViewOutlineProvider;
 
+/**
+ * Animator used from Lollipop onwards.
+ * <p>
+ * The animators and listeners are created once and reused by every morph.
+ * Only the circular reveal needs to be created each time,
+ * since ViewAnimationUtils doesn't allow it to be restarted.
+ * </p>
+ * <p>
+ * A morph driven by a progress can't use the circular reveal,
+ * so the FloatingToolbar is clipped to a circle with the same radius instead.
+ * </p>
+ */
+@TargetApi(21)
 class FloatingAnimatorLollipopImpl extends FloatingAnimator {
 
-    private float mFabDiff;
+    private float mTranslationZ;
+
+    // Quadratic curve that the fab follows
+    private float mFabStartX;
+    private float mFabStartY;
+    private float mFabControlX;
+    private float mFabControlY;
+    private float mFabEndX;
+    private float mFabEndY;
+
+    // Current circular reveal, kept to know its radius when it's cancelled
+    private Animator mToolbarReveal;
+    private float mRevealStartRadius;
+    private float mRevealEndRadius;
+    private float mCancelledRevealRadius;
+    private long mRevealStartTime;
+    private long mRevealDelay;
+    private long mRevealDuration;
+
+    // Clip of a morph driven by a progress and the outline that the FloatingToolbar had before
+    private float mProgressRevealRadius;
+    private boolean mProgressClipApplied;
+    private boolean mToolbarClipToOutline;
+    private ViewOutlineProvider mToolbarOutlineProvider;
+
+    private boolean mHiding;
+    private boolean mCancelling;
+    private ValueAnimator mFabPathAnimator;
+    private ObjectAnimator mFabElevationAnimator;
+    private ObjectAnimator mToolbarElevationAnimator;
+
+    private ValueAnimator.AnimatorUpdateListener mFabPathUpdateListener
+            = new ValueAnimator.AnimatorUpdateListener() {
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            if (mHiding) {
+                // End where the fab is laid out now, since an anchor might have moved it
+                mFabEndX = getFab().getLeft();
+                mFabEndY = getFab().getTop() + getGeometry().fabTranslationY;
+            }
+            moveFab(animation.getAnimatedFraction());
+        }
+    };
+
+    private ViewOutlineProvider mProgressOutlineProvider = new ViewOutlineProvider() {
+        @Override
+        public void getOutline(View view, Outline outline) {
+            FloatingMorphGeometry geometry = getGeometry();
+            int radius = Math.round(mProgressRevealRadius);
+            outline.setRoundRect(geometry.revealCenterX - radius, geometry.revealCenterY - radius,
+                    geometry.revealCenterX + radius, geometry.revealCenterY + radius, radius);
+        }
+    };
+
+    private AnimatorListenerAdapter mFabPathListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            if (!mHiding || mCancelling) {
+                return;
+            }
+            dispatchAnimationFinished();
+        }
+    };
+
+    private AnimatorListenerAdapter mRevealListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationStart(Animator animation) {
+            if (!mHiding && !mCancelling) {
+                getFab().setVisibility(View.INVISIBLE);
+                getFloatingToolbar().setVisibility(View.VISIBLE);
+            }
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            if (mHiding && !mCancelling) {
+                getFloatingToolbar().setVisibility(View.INVISIBLE);
+                getFab().setVisibility(View.VISIBLE);
+            }
+        }
+    };
 
     FloatingAnimatorLollipopImpl(FloatingToolbar toolbar) {
         super(toolbar);
+        mTranslationZ = toolbar.getContext().getResources()
+                .getDimension(R.dimen.floatingtoolbar_translationz);
+
+        mFabPathAnimator = ValueAnimator.ofFloat(0f, 1f);
+        mFabPathAnimator.setInterpolator(ACCELERATE_DECELERATE_INTERPOLATOR);
+        mFabPathAnimator.addUpdateListener(mFabPathUpdateListener);
+        mFabPathAnimator.addListener(mFabPathListener);
+
+        mFabElevationAnimator = new ObjectAnimator();
+        mFabElevationAnimator.setProperty(View.TRANSLATION_Z);
+        mFabElevationAnimator.setInterpolator(ACCELERATE_DECELERATE_INTERPOLATOR);
+
+        mToolbarElevationAnimator = ObjectAnimator.ofFloat(toolbar, View.TRANSLATION_Z, 0f);
     }
 
-    @TargetApi(21)
     @Override
     public void show() {
+        restoreProgressClip();
         super.show();
-        ObjectAnimator anim = ObjectAnimator.ofFloat(getFab(), View.X, View.Y, createPath(true));
-        anim.setInterpolator(new AccelerateDecelerateInterpolator());
-        anim.setDuration(FAB_MORPH_DURATION + getDelay());
-        anim.start();
+        FloatingTimingProfile profile = getTimingProfile();
+        mHiding = false;
+        updateFabPath(true);
+        mFabPathAnimator.setDuration(scale(profile.getFabMorphDuration() + getDelay()));
+        mFabPathAnimator.setStartDelay(0);
+        mFabPathAnimator.start();
 
         // Animate FAB elevation to 8dp
-        anim = ObjectAnimator.ofFloat(getFab(), View.TRANSLATION_Z,
-                getFloatingToolbar().getContext().getResources()
-                        .getDimension(R.dimen.floatingtoolbar_translationz));
-        anim.setInterpolator(new AccelerateDecelerateInterpolator());
-        anim.setDuration(FAB_MORPH_DURATION + getDelay());
-        anim.start();
+        mFabElevationAnimator.setTarget(getFab());
+        mFabElevationAnimator.setFloatValues(getFab().getTranslationZ(), mTranslationZ);
+        mFabElevationAnimator.setDuration(scale(profile.getFabMorphDuration() + getDelay()));
+        mFabElevationAnimator.setStartDelay(0);
+        mFabElevationAnimator.start();
 
         // Create circular reveal
-        int width = getFloatingToolbar().getWidth();
-        int height = getFloatingToolbar().getHeight();
-        Animator toolbarReveal = ViewAnimationUtils.createCircularReveal(getFloatingToolbar(),
-                width / 2, height / 2, (float) getFab().getWidth() / 2f,
-                (float) (Math.hypot(width / 2, height / 2)));
-
-        toolbarReveal.setDuration(CIRCULAR_REVEAL_DURATION + getDelay());
-        toolbarReveal.setTarget(this);
-        toolbarReveal.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationStart(Animator animation) {
-                super.onAnimationStart(animation);
-                getFab().setVisibility(View.INVISIBLE);
-                getFloatingToolbar().setVisibility(View.VISIBLE);
-            }
-        });
-
-        toolbarReveal.setInterpolator(new AccelerateInterpolator());
-        toolbarReveal.setStartDelay(CIRCULAR_REVEAL_DELAY + getDelay());
-        toolbarReveal.start();
-
+        FloatingMorphGeometry geometry = getGeometry();
+        startReveal(isReversing() ? mCancelledRevealRadius : geometry.fabRadius,
+                geometry.revealRadius, scale(profile.getRevealDelay() + getDelay()),
+                scale(profile.getRevealDuration() + getDelay()));
 
         // Animate FloatingToolbar elevation to 8dp
-        anim = ObjectAnimator.ofFloat(getFloatingToolbar(), View.TRANSLATION_Z,
-                getFloatingToolbar().getContext().getResources()
-                        .getDimension(R.dimen.floatingtoolbar_translationz));
-        anim.setDuration(CIRCULAR_REVEAL_DURATION + getDelay());
-        anim.setStartDelay(CIRCULAR_REVEAL_DELAY + getDelay());
-        anim.start();
+        mToolbarElevationAnimator.setFloatValues(getFloatingToolbar().getTranslationZ(),
+                mTranslationZ);
+        mToolbarElevationAnimator.setDuration(scale(profile.getRevealDuration() + getDelay()));
+        mToolbarElevationAnimator.setStartDelay(scale(profile.getRevealDelay() + getDelay()));
+        mToolbarElevationAnimator.start();
     }
 
-    @TargetApi(21)
     @Override
     public void hide() {
+        restoreProgressClip();
         super.hide();
+        FloatingTimingProfile profile = getTimingProfile();
+        mHiding = true;
+        updateFabPath(false);
+        mFabPathAnimator.setDuration(scale(profile.getFabUnmorphDuration() + getDelay()));
+        mFabPathAnimator.setStartDelay(scale(profile.getFabUnmorphDelay() + getDelay()));
+        mFabPathAnimator.start();
 
-        ObjectAnimator anim = ObjectAnimator.ofFloat(getFab(), View.X, View.Y, createPath(false));
-        anim.setInterpolator(new AccelerateDecelerateInterpolator());
-        anim.setDuration(FAB_UNMORPH_DURATION + getDelay());
-        anim.setStartDelay(FAB_UNMORPH_DELAY + getDelay());
-        anim.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                // Make sure the fab goes to the right place after the animation ends
-                // when the Appbar is attached
-                if (getAppBar() != null && getFab().getY() != getFab().getTop()) {
-                    getFab().setAlpha(0f);
-                    getFab().setY(getFab().getTop());
-                    getFab().animate().alpha(1f)
-                            .setDuration(200)
-                            .setInterpolator(new AccelerateDecelerateInterpolator()).start();
-                }
-                getAnimationListener().onAnimationFinished();
-            }
-        });
-        anim.start();
+        // Animate FAB elevation back to 6dp
+        mFabElevationAnimator.setTarget(getFab());
+        mFabElevationAnimator.setFloatValues(getFab().getTranslationZ(), 0f);
+        mFabElevationAnimator.setDuration(scale(profile.getFabUnmorphDuration() + getDelay()));
+        mFabElevationAnimator.setStartDelay(scale(profile.getFabUnmorphDelay() + getDelay()));
+        mFabElevationAnimator.start();
 
+        FloatingMorphGeometry geometry = getGeometry();
+        startReveal(isReversing() ? mCancelledRevealRadius : geometry.revealRadius,
+                geometry.fabRadius, scale(profile.getUnrevealDelay() + getDelay()),
+                scale(profile.getUnrevealDuration() + getDelay()));
 
-        // Animate FAB elevation back to 6dp
-        anim = ObjectAnimator.ofFloat(getFab(), View.TRANSLATION_Z, 0);
-        anim.setInterpolator(new AccelerateDecelerateInterpolator());
-        anim.setDuration(FAB_UNMORPH_DURATION + getDelay());
-        anim.setStartDelay(FAB_UNMORPH_DELAY + getDelay());
-        anim.start();
+        // Animate FloatingToolbar animation back to 6dp
+        mToolbarElevationAnimator.setFloatValues(getFloatingToolbar().getTranslationZ(), 0f);
+        mToolbarElevationAnimator.setDuration(scale(profile.getUnrevealDuration() + getDelay()));
+        mToolbarElevationAnimator.setStartDelay(scale(profile.getUnrevealDelay() + getDelay()));
+        mToolbarElevationAnimator.start();
+    }
 
-        int width = getFloatingToolbar().getWidth();
-        int height = getFloatingToolbar().getHeight();
+    @Override
+    public void cancel() {
+        super.cancel();
+        mCancelling = true;
+        mFabPathAnimator.cancel();
+        mFabElevationAnimator.cancel();
+        mToolbarElevationAnimator.cancel();
+        if (mToolbarReveal != null) {
+            mCancelledRevealRadius = getRevealRadius();
+            mToolbarReveal.cancel();
+            mToolbarReveal = null;
+        }
+        mCancelling = false;
+    }
 
-        Animator toolbarReveal = ViewAnimationUtils.createCircularReveal(getFloatingToolbar(),
-                width / 2, height / 2, (float) (Math.hypot(width / 2, height / 2)),
-                (float) getFab().getWidth() / 2f);
+    /**
+     * Follows {@link #show()}: the fab moves along the same curve
+     * and the FloatingToolbar is clipped to a circle that grows like the circular reveal
+     */
+    @Override
+    public void applyProgress(float progress) {
+        FloatingTimingProfile profile = getTimingProfile();
+        FloatingMorphGeometry geometry = getGeometry();
+        long delay = getDelay();
 
+        setFabPath(geometry.fabLeft, geometry.getFabRestY(), true);
+        float fab = getShowFraction(progress, 0, profile.getFabMorphDuration() + delay,
+                ACCELERATE_DECELERATE_INTERPOLATOR);
+        moveFab(fab);
+        getFab().setScaleX(1f);
+        getFab().setScaleY(1f);
+        getFab().setTranslationZ(interpolate(0f, mTranslationZ, fab));
 
-        toolbarReveal.setTarget(this);
-        toolbarReveal.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                getFloatingToolbar().setVisibility(View.INVISIBLE);
-                getFab().setVisibility(View.VISIBLE);
-                // Ugly workaround for fab having wrong position for a few ms
-                if (getFab().getTranslationY() < 0) {
-                    getFab().setAlpha(0f);
-                    getFab().animate().alpha(1).setDuration(2);
-                }
-            }
-        });
+        long revealDelay = profile.getRevealDelay() + delay;
+        long revealDuration = profile.getRevealDuration() + delay;
+        mProgressRevealRadius = interpolate(geometry.fabRadius, geometry.revealRadius,
+                getShowFraction(progress, revealDelay, revealDuration, ACCELERATE_INTERPOLATOR));
+        applyProgressClip();
+        getFloatingToolbar().setScaleX(1f);
+        getFloatingToolbar().setTranslationZ(interpolate(0f, mTranslationZ,
+                getShowFraction(progress, revealDelay, revealDuration,
+                        ACCELERATE_DECELERATE_INTERPOLATOR)));
+        setToolbarRevealed(progress > 0f && getShowTime(progress) >= revealDelay);
+        applyContentProgress(progress);
+    }
 
-        toolbarReveal.setDuration(CIRCULAR_UNREVEAL_DURATION + getDelay());
-        toolbarReveal.setInterpolator(new AccelerateInterpolator());
-        toolbarReveal.setStartDelay(CIRCULAR_UNREVEAL_DELAY + getDelay());
-        toolbarReveal.start();
+    @Override
+    public void resetViews(boolean shown) {
+        restoreProgressClip();
+        super.resetViews(shown);
+        float translationZ = shown ? mTranslationZ : 0f;
+        getFab().setTranslationZ(translationZ);
+        getFloatingToolbar().setTranslationZ(translationZ);
+    }
 
-        // Animate FloatingToolbar animation back to 6dp
-        anim = ObjectAnimator.ofFloat(getFloatingToolbar(), View.TRANSLATION_Z, 0);
-        anim.setDuration(CIRCULAR_UNREVEAL_DURATION + getDelay());
-        anim.setStartDelay(CIRCULAR_UNREVEAL_DELAY + getDelay());
-        anim.start();
+    @Override
+    public long getHideDuration() {
+        FloatingTimingProfile profile = getTimingProfile();
+        return profile.getFabUnmorphDelay() + profile.getFabUnmorphDuration() + 2 * getDelay();
     }
 
-    private Path createPath(boolean show) {
-        float fabOriginalX = getFab().getLeft();
-        float x2;
-        float y2 = getFloatingToolbar().getY();
-        float endX;
-        float endY;
+    private void startReveal(float startRadius, float endRadius, long delay, long duration) {
+        FloatingMorphGeometry geometry = getGeometry();
+        mToolbarReveal = ViewAnimationUtils.createCircularReveal(getFloatingToolbar(),
+                geometry.revealCenterX, geometry.revealCenterY, startRadius, endRadius);
+        mToolbarReveal.addListener(mRevealListener);
+        mToolbarReveal.setDuration(duration);
+        mToolbarReveal.setInterpolator(ACCELERATE_INTERPOLATOR);
+        mToolbarReveal.setStartDelay(delay);
+        mToolbarReveal.start();
+        mRevealStartRadius = startRadius;
+        mRevealEndRadius = endRadius;
+        // The reveal is stretched by the animator duration scale like every other animator
+        float durationScale = getFloatingToolbar().getDurationScale();
+        mRevealDelay = (long) (delay * durationScale);
+        mRevealDuration = (long) (duration * durationScale);
+        mRevealStartTime = SystemClock.uptimeMillis();
+    }
 
-        if (show) {
-            mFabDiff = mFabDiff == 0 ? getFloatingToolbar().getY() - getFab().getY() : mFabDiff;
-            endY = getFab().getTop() + mFabDiff;
-        } else {
-            float transY = getFab().getTranslationY();
-            endY = transY < 0 ? getFab().getTop() + transY - mFabDiff : getFab().getTop();
+    /**
+     * @return the radius of the current circular reveal, based on the time it has been running
+     */
+    private float getRevealRadius() {
+        long playTime = SystemClock.uptimeMillis() - mRevealStartTime - mRevealDelay;
+        float fraction = mRevealDuration == 0 ? 1f
+                : Math.max(0f, Math.min(1f, playTime / (float) mRevealDuration));
+        fraction = ACCELERATE_INTERPOLATOR.getInterpolation(fraction);
+        return mRevealStartRadius + (mRevealEndRadius - mRevealStartRadius) * fraction;
+    }
+
+    private void applyProgressClip() {
+        View toolbar = getFloatingToolbar();
+        if (mProgressClipApplied) {
+            toolbar.invalidateOutline();
+            return;
         }
+        mProgressClipApplied = true;
+        mToolbarOutlineProvider = toolbar.getOutlineProvider();
+        mToolbarClipToOutline = toolbar.getClipToOutline();
+        toolbar.setOutlineProvider(mProgressOutlineProvider);
+        toolbar.setClipToOutline(true);
+    }
 
-        if (!shouldMoveFabX()) {
-            Path path = new Path();
-            path.moveTo(getFab().getX(), getFab().getY());
-            path.moveTo(getFab().getX(), endY);
-            return path;
+    private void restoreProgressClip() {
+        if (!mProgressClipApplied) {
+            return;
         }
+        mProgressClipApplied = false;
+        View toolbar = getFloatingToolbar();
+        toolbar.setOutlineProvider(mToolbarOutlineProvider);
+        toolbar.setClipToOutline(mToolbarClipToOutline);
+        mToolbarOutlineProvider = null;
+    }
 
-        if (!show) {
-            endX = fabOriginalX;
+    /**
+     * Place the fab on its curve
+     *
+     * @param fraction interpolated fraction of the curve, from 0 to 1
+     */
+    private void moveFab(float fraction) {
+        float inverse = 1 - fraction;
+        getFab().setX(inverse * inverse * mFabStartX + 2 * inverse * fraction * mFabControlX
+                + fraction * fraction * mFabEndX);
+        getFab().setY(inverse * inverse * mFabStartY + 2 * inverse * fraction * mFabControlY
+                + fraction * fraction * mFabEndY);
+    }
+
+    /**
+     * Update the points of the curve that the fab follows
+     */
+    private void updateFabPath(boolean show) {
+        FloatingMorphGeometry geometry = getGeometry();
+
+        if (show || isReversing()) {
+            setFabPath(getFab().getX(), getFab().getY(), show);
         } else {
-            if (fabOriginalX > getRootView().getWidth() / 2f) {
-                endX = fabOriginalX - getFab().getWidth();
-            } else {
-                endX = fabOriginalX + getFab().getWidth();
-            }
+            // The fab is hidden behind the FloatingToolbar,
+            // but its Behavior might have moved it meanwhile, e.g, for a Snackbar
+            setFabPath(geometry.fabShowX, geometry.fabTop + geometry.fabDiff, show);
         }
+    }
 
-        Path path = new Path();
-        path.moveTo(getFab().getX(), getFab().getY());
+    /**
+     * Set the points of the curve that the fab follows from the given start
+     */
+    private void setFabPath(float startX, float startY, boolean show) {
+        FloatingMorphGeometry geometry = getGeometry();
+        mFabStartX = startX;
+        mFabStartY = startY;
 
-        if (fabOriginalX > getRootView().getWidth() / 2f) {
-            x2 = fabOriginalX - getFab().getWidth() / 4f;
-        } else {
-            x2 = fabOriginalX + getFab().getWidth() / 4f;
+        mFabEndY = show ? geometry.fabTop + geometry.fabDiff : geometry.getFabRestY();
+
+        if (!geometry.moveFabX) {
+            // Straight vertical line
+            mFabEndX = mFabStartX;
+            mFabControlX = mFabStartX;
+            mFabControlY = (mFabStartY + mFabEndY) / 2f;
+            return;
         }
 
-        path.quadTo(x2, y2, endX, endY);
-        return path;
+        mFabEndX = show ? geometry.fabShowX : geometry.fabLeft;
+        mFabControlX = geometry.fabControlX;
+        mFabControlY = getFloatingToolbar().getY();
     }
 }
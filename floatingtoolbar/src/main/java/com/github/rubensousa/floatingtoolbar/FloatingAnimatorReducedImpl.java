@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.view.View;
+
+/**
+ * Animator that only fades the FloatingActionButton and the FloatingToolbar,
+ * for devices where the full morph is too expensive
+ */
+class FloatingAnimatorReducedImpl extends FloatingAnimator {
+
+    static final int FADE_DURATION = 150;
+
+    private AnimatorListenerAdapter mShowListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            getFloatingToolbar().animate().setListener(null);
+            getFab().setVisibility(View.INVISIBLE);
+            getFab().setAlpha(1f);
+            dispatchAnimationFinished();
+        }
+    };
+
+    private AnimatorListenerAdapter mHideListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            getFloatingToolbar().animate().setListener(null);
+            getFloatingToolbar().setVisibility(View.INVISIBLE);
+            getFloatingToolbar().setAlpha(1f);
+            dispatchAnimationFinished();
+        }
+    };
+
+    FloatingAnimatorReducedImpl(FloatingToolbar toolbar) {
+        super(toolbar);
+    }
+
+    @Override
+    public void show() {
+        start(getShowDuration());
+        if (!isReversing()) {
+            FloatingAnimatorInstantImpl.resetToolbar(getFloatingToolbar(), getContentView(),
+                    getGeometry());
+            getFloatingToolbar().setAlpha(0f);
+        }
+        getFloatingToolbar().setVisibility(View.VISIBLE);
+        getFab().animate().alpha(0f)
+                .setStartDelay(0)
+                .setDuration(scale(FADE_DURATION))
+                .setInterpolator(ACCELERATE_DECELERATE_INTERPOLATOR)
+                .setListener(null);
+        getFloatingToolbar().animate().alpha(1f)
+                .setStartDelay(0)
+                .setDuration(scale(FADE_DURATION))
+                .setInterpolator(ACCELERATE_DECELERATE_INTERPOLATOR)
+                .setListener(mShowListener);
+    }
+
+    @Override
+    public void hide() {
+        start(getHideDuration());
+        if (!isReversing()) {
+            FloatingAnimatorInstantImpl.resetFab(getFab(), getGeometry());
+            getFab().setAlpha(0f);
+        }
+        getFab().setVisibility(View.VISIBLE);
+        getFab().animate().alpha(1f)
+                .setStartDelay(0)
+                .setDuration(scale(FADE_DURATION))
+                .setInterpolator(ACCELERATE_DECELERATE_INTERPOLATOR)
+                .setListener(null);
+        getFloatingToolbar().animate().alpha(0f)
+                .setStartDelay(0)
+                .setDuration(scale(FADE_DURATION))
+                .setInterpolator(ACCELERATE_DECELERATE_INTERPOLATOR)
+                .setListener(mHideListener);
+    }
+
+    /**
+     * Follows {@link #show()}: the fab and the FloatingToolbar cross-fade where they rest
+     */
+    @Override
+    public void applyProgress(float progress) {
+        FloatingAnimatorInstantImpl.resetToolbar(getFloatingToolbar(), getContentView(),
+                getGeometry());
+        FloatingAnimatorInstantImpl.resetFab(getFab(), getGeometry());
+        float fraction = getShowFraction(progress, 0, FADE_DURATION,
+                ACCELERATE_DECELERATE_INTERPOLATOR);
+        getFloatingToolbar().setAlpha(fraction);
+        getFab().setAlpha(1f - fraction);
+        getFloatingToolbar().setVisibility(progress > 0f ? View.VISIBLE : View.INVISIBLE);
+        getFab().setVisibility(progress < 1f ? View.VISIBLE : View.INVISIBLE);
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        getFab().animate().cancel();
+    }
+
+    @Override
+    public long getShowDuration() {
+        return FADE_DURATION;
+    }
+
+    @Override
+    public long getHideDuration() {
+        return FADE_DURATION;
+    }
+}
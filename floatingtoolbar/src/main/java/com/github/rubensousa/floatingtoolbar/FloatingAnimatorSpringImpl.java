@@ -0,0 +1,294 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.support.animation.DynamicAnimation;
+import android.support.animation.SpringAnimation;
+import android.support.animation.SpringForce;
+import android.support.design.widget.FloatingActionButton;
+import android.support.v4.util.SimpleArrayMap;
+import android.view.View;
+
+/**
+ * Animator that moves the views with springs instead of fixed durations and delays.
+ * <p>
+ * Every property starts moving as soon as the morph starts and the animation finishes
+ * when all of them settle. If the opposite morph starts while the springs are running,
+ * they're sent to the new positions keeping their current velocity.
+ * </p>
+ */
+class FloatingAnimatorSpringImpl extends FloatingAnimator {
+
+    private static final float STIFFNESS = SpringForce.STIFFNESS_MEDIUM;
+    private static final float DAMPING_RATIO = SpringForce.DAMPING_RATIO_NO_BOUNCY;
+
+    // A spring stops when it's closer to its final position than 3/4 of its minimum visible change.
+    // The scale springs travel from 0 to 1, so they're the last ones to settle.
+    private static final float SETTLE_THRESHOLD = DynamicAnimation.MIN_VISIBLE_CHANGE_SCALE * 0.75f;
+
+    // Time for the springs to settle from rest, used to report the planned duration
+    static final long SETTLE_DURATION = getSettleDuration(STIFFNESS, DAMPING_RATIO,
+            SETTLE_THRESHOLD);
+
+    private boolean mHiding;
+    private SpringAnimation mFabX;
+    private SpringAnimation mFabY;
+    private SpringAnimation mFabScaleX;
+    private SpringAnimation mFabScaleY;
+    private SpringAnimation mToolbarX;
+    private SpringAnimation mToolbarScaleX;
+    private SpringAnimation mContentAlpha;
+    private SpringAnimation mContentScaleX;
+
+    // Springs of each fab, created once since their target can't change
+    private SimpleArrayMap<View, SpringAnimation[]> mFabSprings = new SimpleArrayMap<>();
+
+    private DynamicAnimation.OnAnimationEndListener mEndListener
+            = new DynamicAnimation.OnAnimationEndListener() {
+        @Override
+        public void onAnimationEnd(DynamicAnimation animation, boolean canceled, float value,
+                                   float velocity) {
+            if (!canceled && isRunning() && !isAnySpringRunning()) {
+                if (mHiding) {
+                    getFloatingToolbar().setVisibility(View.INVISIBLE);
+                } else {
+                    getFab().setVisibility(View.INVISIBLE);
+                }
+                dispatchAnimationFinished();
+            }
+        }
+    };
+
+    FloatingAnimatorSpringImpl(FloatingToolbar toolbar) {
+        super(toolbar);
+        mToolbarX = createSpring(toolbar, DynamicAnimation.X);
+        mToolbarScaleX = createSpring(toolbar, DynamicAnimation.SCALE_X);
+        mToolbarScaleX.setMinimumVisibleChange(DynamicAnimation.MIN_VISIBLE_CHANGE_SCALE);
+    }
+
+    @Override
+    public void setFab(FloatingActionButton fab) {
+        cancelSprings(mFabX, mFabY, mFabScaleX, mFabScaleY);
+        super.setFab(fab);
+        if (fab == null) {
+            setFabSprings(null);
+            return;
+        }
+        SpringAnimation[] springs = mFabSprings.get(fab);
+        if (springs == null) {
+            springs = new SpringAnimation[]{
+                    createSpring(fab, DynamicAnimation.X),
+                    createSpring(fab, DynamicAnimation.Y),
+                    createSpring(fab, DynamicAnimation.SCALE_X),
+                    createSpring(fab, DynamicAnimation.SCALE_Y)};
+            springs[2].setMinimumVisibleChange(DynamicAnimation.MIN_VISIBLE_CHANGE_SCALE);
+            springs[3].setMinimumVisibleChange(DynamicAnimation.MIN_VISIBLE_CHANGE_SCALE);
+            mFabSprings.put(fab, springs);
+        }
+        setFabSprings(springs);
+    }
+
+    @Override
+    void removeFab(FloatingActionButton fab) {
+        super.removeFab(fab);
+        SpringAnimation[] springs = mFabSprings.remove(fab);
+        if (springs != null) {
+            cancelSprings(springs);
+            if (springs[0] == mFabX) {
+                setFabSprings(null);
+            }
+        }
+    }
+
+    @Override
+    public void setContentView(View contentView) {
+        if (contentView == getContentView()) {
+            // The springs of the same view keep running, e.g, when only the menu changed
+            return;
+        }
+        cancelSprings(mContentAlpha, mContentScaleX);
+        super.setContentView(contentView);
+        if (contentView == null) {
+            mContentAlpha = null;
+            mContentScaleX = null;
+            return;
+        }
+        mContentAlpha = createSpring(contentView, DynamicAnimation.ALPHA);
+        mContentAlpha.setMinimumVisibleChange(DynamicAnimation.MIN_VISIBLE_CHANGE_ALPHA);
+        mContentScaleX = createSpring(contentView, DynamicAnimation.SCALE_X);
+        mContentScaleX.setMinimumVisibleChange(DynamicAnimation.MIN_VISIBLE_CHANGE_SCALE);
+    }
+
+    @Override
+    public void show() {
+        start(getShowDuration());
+        mHiding = false;
+        FloatingMorphGeometry geometry = getGeometry();
+
+        if (!isReversing()) {
+            getFloatingToolbar().setScaleX(0f);
+            if (geometry.moveFabX) {
+                getFloatingToolbar().setX(geometry.toolbarShowX);
+            }
+            if (getContentView() != null) {
+                getContentView().setAlpha(0f);
+                getContentView().setScaleX(0.7f);
+            }
+        }
+
+        getFloatingToolbar().setVisibility(View.VISIBLE);
+
+        mFabX.animateToFinalPosition(geometry.fabShowX);
+        mFabY.animateToFinalPosition(geometry.fabTop + geometry.fabDiff);
+        mFabScaleX.animateToFinalPosition(0f);
+        mFabScaleY.animateToFinalPosition(0f);
+        mToolbarScaleX.animateToFinalPosition(1f);
+
+        if (geometry.moveFabX) {
+            mToolbarX.animateToFinalPosition(geometry.toolbarLeft);
+        }
+
+        if (mContentAlpha != null) {
+            mContentAlpha.animateToFinalPosition(1f);
+            mContentScaleX.animateToFinalPosition(1f);
+        }
+    }
+
+    @Override
+    public void hide() {
+        start(getHideDuration());
+        mHiding = true;
+        FloatingMorphGeometry geometry = getGeometry();
+
+        if (!isReversing()) {
+            // Grow the fab from the center of the FloatingToolbar
+            getFab().setScaleX(0f);
+            getFab().setScaleY(0f);
+            getFab().setX(geometry.fabShowX);
+            getFab().setY(geometry.fabTop + geometry.fabDiff);
+        }
+
+        getFab().setVisibility(View.VISIBLE);
+
+        mFabX.animateToFinalPosition(geometry.fabLeft);
+        mFabY.animateToFinalPosition(geometry.getFabRestY());
+        mFabScaleX.animateToFinalPosition(1f);
+        mFabScaleY.animateToFinalPosition(1f);
+        mToolbarScaleX.animateToFinalPosition(0f);
+
+        if (geometry.moveFabX) {
+            mToolbarX.animateToFinalPosition(geometry.toolbarHideX);
+        }
+
+        if (mContentAlpha != null) {
+            mContentAlpha.animateToFinalPosition(0f);
+            mContentScaleX.animateToFinalPosition(0.7f);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        // The springs are sent to the new positions with their current velocity instead
+    }
+
+    @Override
+    void abort() {
+        cancelSprings(mFabX, mFabY, mFabScaleX, mFabScaleY, mToolbarX, mToolbarScaleX,
+                mContentAlpha, mContentScaleX);
+        super.abort();
+    }
+
+    /**
+     * The springs start moving as soon as the morph starts, so there's no delay
+     */
+    @Override
+    public long getDelay() {
+        return 0;
+    }
+
+    @Override
+    public long getShowDuration() {
+        return SETTLE_DURATION;
+    }
+
+    @Override
+    public long getHideDuration() {
+        return SETTLE_DURATION;
+    }
+
+    /**
+     * Compute how long a spring with a unit mass takes to move from rest
+     * to a fraction of its initial distance to the final position
+     *
+     * @param stiffness    stiffness of the spring
+     * @param dampingRatio damping ratio of the spring
+     * @param threshold    remaining distance, as a fraction of the initial one
+     * @return the duration in milliseconds
+     */
+    static long getSettleDuration(float stiffness, float dampingRatio, float threshold) {
+        double naturalFrequency = Math.sqrt(stiffness);
+        if (dampingRatio < 1) {
+            // The oscillation is bounded by an envelope that decays with e^(-ζωt)
+            double envelope = 1 / Math.sqrt(1 - dampingRatio * dampingRatio);
+            return (long) Math.ceil(1000 * Math.log(envelope / threshold)
+                    / (dampingRatio * naturalFrequency));
+        }
+        // Without oscillation, the slowest decay rate dominates: x(t) = (1 + rt)e^(-rt)
+        double rate = naturalFrequency
+                * (dampingRatio - Math.sqrt(dampingRatio * dampingRatio - 1));
+        long duration = 0;
+        while ((1 + rate * duration / 1000) * Math.exp(-rate * duration / 1000) > threshold) {
+            duration++;
+        }
+        return duration;
+    }
+
+    private void setFabSprings(SpringAnimation[] springs) {
+        mFabX = springs == null ? null : springs[0];
+        mFabY = springs == null ? null : springs[1];
+        mFabScaleX = springs == null ? null : springs[2];
+        mFabScaleY = springs == null ? null : springs[3];
+    }
+
+    private SpringAnimation createSpring(View view, DynamicAnimation.ViewProperty property) {
+        SpringAnimation animation = new SpringAnimation(view, property);
+        animation.setSpring(new SpringForce()
+                .setStiffness(STIFFNESS)
+                .setDampingRatio(DAMPING_RATIO));
+        animation.addEndListener(mEndListener);
+        return animation;
+    }
+
+    private boolean isAnySpringRunning() {
+        return isSpringRunning(mFabX) || isSpringRunning(mFabY)
+                || isSpringRunning(mFabScaleX) || isSpringRunning(mFabScaleY)
+                || isSpringRunning(mToolbarX) || isSpringRunning(mToolbarScaleX)
+                || isSpringRunning(mContentAlpha) || isSpringRunning(mContentScaleX);
+    }
+
+    private static boolean isSpringRunning(SpringAnimation animation) {
+        return animation != null && animation.isRunning();
+    }
+
+    private static void cancelSprings(SpringAnimation... animations) {
+        for (SpringAnimation animation : animations) {
+            if (animation != null) {
+                animation.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+/**
+ * Computes the delay added to every duration and delay of the morph,
+ * so that morphs that travel further don't look faster than short ones.
+ * <p>
+ * The delay is only computed again when the layout, the timing profile
+ * or the configuration changes.
+ * </p>
+ */
+public interface FloatingDelayModel {
+
+    /**
+     * @param travel        distance in dp that the views travel during the morph
+     * @param frameInterval duration of a display frame in milliseconds
+     * @param profile       durations and delays of the morph
+     * @return delay in milliseconds, between 0 and {@link FloatingTimingProfile#getMaxDelay()}
+     */
+    long getDelay(float travel, float frameInterval, FloatingTimingProfile profile);
+}
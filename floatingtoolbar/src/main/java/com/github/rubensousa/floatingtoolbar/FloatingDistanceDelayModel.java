@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+/**
+ * Default FloatingDelayModel.
+ * <p>
+ * Morphs up to a reference travel get no delay. Beyond it, the extra travel is covered
+ * at the speed of the reference morph, so the views move at the same speed on every screen size.
+ * The delay is rounded to the nearest whole frame, so that every animation of the morph
+ * starts on a frame and the speed only differs by half a frame between refresh rates.
+ * </p>
+ */
+public class FloatingDistanceDelayModel implements FloatingDelayModel {
+
+    // Reveal radius in dp of a FloatingToolbar that's 300dp wide
+    public static final float REFERENCE_TRAVEL = 150f;
+
+    // Duration in milliseconds of the morph over the reference travel
+    public static final float REFERENCE_DURATION = FloatingAnimator.FAB_MORPH_DURATION;
+
+    private float mReferenceTravel;
+
+    // Speed of the reference morph in dp per millisecond
+    private float mSpeed;
+
+    public FloatingDistanceDelayModel() {
+        this(REFERENCE_TRAVEL, REFERENCE_DURATION);
+    }
+
+    /**
+     * @param referenceTravel   distance in dp up to which there's no delay
+     * @param referenceDuration duration in milliseconds of a morph over the reference travel
+     */
+    public FloatingDistanceDelayModel(float referenceTravel, float referenceDuration) {
+        if (referenceTravel <= 0 || referenceDuration <= 0) {
+            throw new IllegalArgumentException(
+                    "The reference travel and duration must be positive");
+        }
+        mReferenceTravel = referenceTravel;
+        mSpeed = referenceTravel / referenceDuration;
+    }
+
+    @Override
+    public long getDelay(float travel, float frameInterval, FloatingTimingProfile profile) {
+        if (travel <= mReferenceTravel) {
+            return 0;
+        }
+        int maxDelay = profile.getMaxDelay();
+        float delay = Math.min(maxDelay, (travel - mReferenceTravel) / mSpeed);
+        if (frameInterval > 0) {
+            int frames = Math.round(delay / frameInterval);
+            if (frames * frameInterval > maxDelay) {
+                frames--;
+            }
+            delay = frames * frameInterval;
+        }
+        return Math.round(delay);
+    }
+}
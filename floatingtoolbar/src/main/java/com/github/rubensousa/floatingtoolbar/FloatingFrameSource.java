@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+/**
+ * Source of display frames and time.
+ * <p>
+ * It's backed by the Choreographer in the FloatingToolbar
+ * and can be replaced by a fake one to drive frames in tests.
+ * </p>
+ */
+interface FloatingFrameSource {
+
+    /**
+     * @return the current time in nanoseconds
+     */
+    long nanoTime();
+
+    /**
+     * @return the expected duration of a frame in nanoseconds
+     */
+    long getFrameIntervalNanos();
+
+    /**
+     * Run the callback once on the next frame
+     */
+    void postFrameCallback(FrameCallback callback);
+
+    void removeFrameCallback(FrameCallback callback);
+
+    interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.support.annotation.DrawableRes;
+import android.support.v4.util.LruCache;
+import android.support.v7.content.res.AppCompatResources;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps the constant states of the icons used by menu items,
+ * so that the same vector or bitmap isn't loaded again for each menu that uses it.
+ * <p>
+ * Icons are kept for each theme, since they might resolve theme attributes,
+ * and keyed by their resource and the parts of the configuration that select a resource
+ * or change how it's drawn: the screen density, the ui mode and the layout direction.
+ * Themes aren't kept alive by the cache.
+ * </p>
+ * <p>
+ * Tints are applied by the item views, so they don't need to be part of the key
+ * and the drawables never need to be mutated.
+ * Every method must be called on the main thread.
+ * </p>
+ */
+class FloatingIconCache {
+
+    private static final int MAX_SIZE = 64;
+
+    private static final Map<Resources.Theme, LruCache<Long, Drawable.ConstantState>> sCaches
+            = new WeakHashMap<>();
+
+    private FloatingIconCache() {
+
+    }
+
+    static Drawable get(Context context, @DrawableRes int resId) {
+        Resources.Theme theme = context.getTheme();
+        LruCache<Long, Drawable.ConstantState> cache = sCaches.get(theme);
+        if (cache == null) {
+            cache = new LruCache<>(MAX_SIZE);
+            sCaches.put(theme, cache);
+        }
+
+        long key = getConfigurationKey(context.getResources()) << 32
+                | (resId & 0xffffffffL);
+        Drawable.ConstantState state = cache.get(key);
+        if (state != null) {
+            return newDrawable(context, state);
+        }
+
+        Drawable drawable = AppCompatResources.getDrawable(context, resId);
+        if (drawable != null && drawable.getConstantState() != null) {
+            cache.put(key, drawable.getConstantState());
+        }
+        return drawable;
+    }
+
+    static void clear() {
+        sCaches.clear();
+    }
+
+    /**
+     * @return how many icons are kept for the theme of the context
+     */
+    static int size(Context context) {
+        LruCache<Long, Drawable.ConstantState> cache = sCaches.get(context.getTheme());
+        return cache == null ? 0 : cache.size();
+    }
+
+    /**
+     * @return the density in the lower 16 bits, followed by the ui mode and layout direction
+     */
+    @TargetApi(17)
+    private static long getConfigurationKey(Resources resources) {
+        Configuration configuration = resources.getConfiguration();
+        long key = (resources.getDisplayMetrics().densityDpi & 0xffff)
+                | (configuration.uiMode & 0xff) << 16;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            key |= (configuration.getLayoutDirection() & 0x1) << 24;
+        }
+        return key;
+    }
+
+    @TargetApi(21)
+    private static Drawable newDrawable(Context context, Drawable.ConstantState state) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            // Resolve the theme attributes that the icon might use
+            return state.newDrawable(context.getResources(), context.getTheme());
+        }
+        return state.newDrawable(context.getResources());
+    }
+}
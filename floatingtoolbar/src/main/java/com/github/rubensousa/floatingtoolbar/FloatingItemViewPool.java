@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+
+import android.util.SparseArray;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * Holds item views that were removed from the menu layout,
+ * so that they can be bound to another MenuItem instead of being created again.
+ * <p>
+ * Each view type keeps at most as many views as the menu layout can show at once.
+ * </p>
+ */
+class FloatingItemViewPool {
+
+    static final int TYPE_ITEM = 0;
+
+    private SparseArray<ArrayList<View>> mScrap;
+    private int mMaxScrap;
+
+    /**
+     * @param maxScrap maximum number of views kept for each view type
+     */
+    FloatingItemViewPool(int maxScrap) {
+        mScrap = new SparseArray<>();
+        mMaxScrap = maxScrap;
+    }
+
+    /**
+     * Change the maximum number of views kept for each view type,
+     * e.g, after the number of visible slots changed. Extra views are dropped.
+     */
+    void setMaxScrap(int maxScrap) {
+        mMaxScrap = maxScrap;
+        for (int i = 0; i < mScrap.size(); i++) {
+            ArrayList<View> scrap = mScrap.valueAt(i);
+            for (int j = scrap.size() - 1; j >= maxScrap; j--) {
+                scrap.remove(j);
+            }
+        }
+    }
+
+    int getMaxScrap() {
+        return mMaxScrap;
+    }
+
+    /**
+     * Store a view that's no longer attached to the menu layout.
+     * It's dropped if the pool is already full for its type.
+     *
+     * @param viewType type of the view
+     * @param view     View to be recycled
+     * @return true if the view was kept
+     */
+    boolean put(int viewType, View view) {
+        ArrayList<View> scrap = mScrap.get(viewType);
+        if (scrap == null) {
+            scrap = new ArrayList<>(mMaxScrap);
+            mScrap.put(viewType, scrap);
+        }
+        if (scrap.size() >= mMaxScrap) {
+            return false;
+        }
+        scrap.add(view);
+        return true;
+    }
+
+    /**
+     * @return number of views kept for the given type
+     */
+    int size(int viewType) {
+        ArrayList<View> scrap = mScrap.get(viewType);
+        return scrap == null ? 0 : scrap.size();
+    }
+
+    /**
+     * Get a recycled view, preferring the one previously bound to the same item id
+     *
+     * @param viewType type of the view
+     * @param itemId   id of the MenuItem that'll be bound to the view
+     * @return a recycled view or null if there's none available
+     */
+    View get(int viewType, int itemId) {
+        ArrayList<View> scrap = mScrap.get(viewType);
+        if (scrap == null || scrap.isEmpty()) {
+            return null;
+        }
+        for (int i = scrap.size() - 1; i >= 0; i--) {
+            if (scrap.get(i).getId() == itemId) {
+                return scrap.remove(i);
+            }
+        }
+        return scrap.remove(scrap.size() - 1);
+    }
+
+    void clear() {
+        mScrap.clear();
+    }
+}
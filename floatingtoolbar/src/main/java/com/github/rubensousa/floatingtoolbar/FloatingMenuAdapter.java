@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+
+import android.support.v7.widget.AppCompatImageButton;
+import android.support.v7.widget.RecyclerView;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adapter of the visible items of a menu, used when the menu scrolls horizontally.
+ * <p>
+ * Only the items that are on screen have a view,
+ * so the memory used doesn't depend on the size of the menu.
+ * </p>
+ */
+class FloatingMenuAdapter extends RecyclerView.Adapter<FloatingMenuAdapter.ViewHolder> {
+
+    private FloatingToolbar mToolbar;
+    private List<MenuItem> mItems;
+    private int mItemWidth = ViewGroup.LayoutParams.WRAP_CONTENT;
+
+    FloatingMenuAdapter(FloatingToolbar toolbar) {
+        mToolbar = toolbar;
+        mItems = new ArrayList<>();
+    }
+
+    /**
+     * Take the visible items of the menu. Must be called again after the menu changes.
+     */
+    void setMenu(Menu menu) {
+        mItems.clear();
+        for (int i = 0; i < menu.size(); i++) {
+            MenuItem item = menu.getItem(i);
+            if (item.isVisible()) {
+                mItems.add(item);
+            }
+        }
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Resize the items. The views are only bound again if the width changes.
+     *
+     * @param width width of each item in pixels
+     */
+    void setItemWidth(int width) {
+        if (mItemWidth != width) {
+            mItemWidth = width;
+            notifyDataSetChanged();
+        }
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        AppCompatImageButton imageButton = mToolbar.createItemView();
+        imageButton.setLayoutParams(new RecyclerView.LayoutParams(mItemWidth,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+        return new ViewHolder(imageButton);
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        ViewGroup.LayoutParams params = holder.imageButton.getLayoutParams();
+        if (params.width != mItemWidth) {
+            params.width = mItemWidth;
+            holder.imageButton.setLayoutParams(params);
+        }
+        mToolbar.bindItemView(holder.imageButton, mItems.get(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return mItems.size();
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+
+        AppCompatImageButton imageButton;
+
+        ViewHolder(AppCompatImageButton imageButton) {
+            super(imageButton);
+            this.imageButton = imageButton;
+        }
+    }
+}
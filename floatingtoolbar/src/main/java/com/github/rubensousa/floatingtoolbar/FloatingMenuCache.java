@@ -0,0 +1,188 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MenuRes;
+import android.support.v7.view.ContextThemeWrapper;
+import android.support.v7.view.SupportMenuInflater;
+import android.support.v7.view.menu.MenuBuilder;
+import android.util.SparseArray;
+import android.view.InflateException;
+import android.view.Menu;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Holds menus that were inflated in a background thread,
+ * so that a FloatingToolbar doesn't need to inflate the menu resource on the main thread.
+ * <p>
+ * Menus are always inflated by {@link SupportMenuInflater}, so every attribute it supports
+ * is kept. A preloaded menu is inflated with the application Context and the theme
+ * of the Context that preloaded it, so no Activity is kept by the cache.
+ * It's only used by a Context with the same theme, otherwise the menu is inflated again.
+ * The icons are loaded by the menu items when they're first bound, on the main thread.
+ * Every method must be called on the main thread.
+ * </p>
+ * <p>
+ * Each preloaded menu can only be used once, since menus are mutable.
+ * </p>
+ */
+@SuppressWarnings("RestrictedApi")
+class FloatingMenuCache {
+
+    private static final SparseArray<Entry> sMenus = new SparseArray<>();
+    private static final SparseArray<PreloadTask> sPending = new SparseArray<>();
+    private static Handler sHandler;
+    private static Executor sExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+
+    private FloatingMenuCache() {
+
+    }
+
+    static void preload(Context context, @MenuRes int menuRes) {
+        if (sMenus.get(menuRes) != null || sPending.get(menuRes) != null) {
+            return;
+        }
+        if (sHandler == null) {
+            sHandler = new Handler(Looper.getMainLooper());
+        }
+        PreloadTask task = new PreloadTask(new ContextThemeWrapper(
+                context.getApplicationContext(), context.getTheme()), menuRes);
+        sPending.put(menuRes, task);
+        sExecutor.execute(task);
+    }
+
+    /**
+     * Replace the executor that inflates the preloaded menus, e.g, to control it in tests
+     */
+    static void setExecutor(Executor executor) {
+        sExecutor = executor;
+    }
+
+    /**
+     * @return the preloaded menu or a new inflated menu if there's none for the theme
+     * of the given Context. A preload that didn't finish yet is cancelled,
+     * so its result is never used.
+     */
+    static Menu obtain(Context context, @MenuRes int menuRes) {
+        Entry entry = sMenus.get(menuRes);
+        if (entry != null && entry.theme == context.getTheme()) {
+            sMenus.remove(menuRes);
+            return entry.menu;
+        }
+        if (entry == null) {
+            cancel(menuRes);
+        }
+        return inflate(context, menuRes);
+    }
+
+    static void clear() {
+        sMenus.clear();
+        for (int i = 0; i < sPending.size(); i++) {
+            sPending.valueAt(i).cancelled = true;
+        }
+        sPending.clear();
+    }
+
+    /**
+     * @return true if there's a preloaded menu ready to be used
+     */
+    static boolean isPreloaded(@MenuRes int menuRes) {
+        return sMenus.get(menuRes) != null;
+    }
+
+    /**
+     * @return true if the menu is still being inflated in the background
+     */
+    static boolean isPending(@MenuRes int menuRes) {
+        return sPending.get(menuRes) != null;
+    }
+
+    private static void cancel(@MenuRes int menuRes) {
+        PreloadTask task = sPending.get(menuRes);
+        if (task != null) {
+            task.cancelled = true;
+            sPending.remove(menuRes);
+        }
+    }
+
+    private static Menu inflate(Context context, @MenuRes int menuRes) {
+        MenuBuilder menu = new MenuBuilder(context);
+        new SupportMenuInflater(context).inflate(menuRes, menu);
+        return menu;
+    }
+
+    private static class Entry {
+
+        final Resources.Theme theme;
+        final Menu menu;
+
+        Entry(Resources.Theme theme, Menu menu) {
+            this.theme = theme;
+            this.menu = menu;
+        }
+    }
+
+    /**
+     * Inflates a menu in a background thread and publishes it on the main thread,
+     * unless it was cancelled meanwhile
+     */
+    private static class PreloadTask implements Runnable {
+
+        private final Context mContext;
+        private final int mMenuRes;
+        private Menu mMenu;
+
+        // Only read and written on the main thread
+        boolean cancelled;
+
+        private final Runnable mPublishRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (cancelled) {
+                    return;
+                }
+                sPending.remove(mMenuRes);
+                if (mMenu != null) {
+                    sMenus.put(mMenuRes, new Entry(mContext.getTheme(), mMenu));
+                }
+            }
+        };
+
+        PreloadTask(Context context, int menuRes) {
+            mContext = context;
+            mMenuRes = menuRes;
+        }
+
+        @Override
+        public void run() {
+            try {
+                mMenu = inflate(mContext, mMenuRes);
+            } catch (InflateException e) {
+                // The error is thrown on the main thread when the menu is obtained
+                mMenu = null;
+            }
+            sHandler.post(mPublishRunnable);
+        }
+    }
+}
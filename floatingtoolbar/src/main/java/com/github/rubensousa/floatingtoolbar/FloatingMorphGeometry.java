@@ -0,0 +1,204 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+
+import android.view.View;
+
+/**
+ * Positions used by the morph animations.
+ * <p>
+ * They only depend on the layout of the fab, FloatingToolbar and root view,
+ * so they're computed once and kept until one of them changes.
+ * Custom animators read them from {@link FloatingAnimator#getGeometry()}
+ * to follow the same path as the built-in ones. Positions are in pixels,
+ * relative to the parent of the view they belong to.
+ * </p>
+ */
+public final class FloatingMorphGeometry {
+
+    // False until computed or after the layout changes
+    boolean valid;
+
+    boolean moveFabX;
+
+    // Layout position of the fab
+    float fabLeft;
+    float fabTop;
+    float fabWidth;
+
+    // Translation of the fab before the morph, e.g, from its Behavior for a Snackbar.
+    // It isn't part of the layout, so it's saved when the morph starts instead of in update
+    float fabTranslationY;
+
+    // Vertical distance between the fab and the FloatingToolbar
+    float fabDiff;
+
+    // Horizontal position of the fab when the FloatingToolbar is shown
+    float fabShowX;
+
+    // Horizontal control point of the curve that the fab follows
+    float fabControlX;
+
+    float toolbarLeft;
+
+    // Horizontal position of the FloatingToolbar when the reveal starts and ends
+    float toolbarShowX;
+    float toolbarHideX;
+
+    int revealCenterX;
+    int revealCenterY;
+    float revealRadius;
+    float fabRadius;
+
+    FloatingMorphGeometry() {
+
+    }
+
+    /**
+     * @return true if the fab moves horizontally towards the center during the morph
+     */
+    public boolean shouldMoveFabX() {
+        return moveFabX;
+    }
+
+    public float getFabLeft() {
+        return fabLeft;
+    }
+
+    public float getFabTop() {
+        return fabTop;
+    }
+
+    public float getFabWidth() {
+        return fabWidth;
+    }
+
+    /**
+     * @return radius of the fab, where the circular reveal starts
+     */
+    public float getFabRadius() {
+        return fabRadius;
+    }
+
+    /**
+     * @return vertical translation of the fab when the morph started,
+     * e.g, from its Behavior for a Snackbar
+     */
+    public float getFabTranslationY() {
+        return fabTranslationY;
+    }
+
+    /**
+     * @return vertical position of the fab before the morph and after the unmorph
+     */
+    public float getFabRestY() {
+        return fabTop + fabTranslationY;
+    }
+
+    /**
+     * @return vertical distance between the fab and the FloatingToolbar
+     */
+    public float getFabDiff() {
+        return fabDiff;
+    }
+
+    /**
+     * @return horizontal position of the fab when the FloatingToolbar is shown
+     */
+    public float getFabShowX() {
+        return fabShowX;
+    }
+
+    /**
+     * @return horizontal control point of the curve that the fab follows
+     */
+    public float getFabControlX() {
+        return fabControlX;
+    }
+
+    public float getToolbarLeft() {
+        return toolbarLeft;
+    }
+
+    /**
+     * @return horizontal position of the FloatingToolbar when the reveal ends
+     */
+    public float getToolbarShowX() {
+        return toolbarShowX;
+    }
+
+    /**
+     * @return horizontal position of the FloatingToolbar when the reveal starts
+     */
+    public float getToolbarHideX() {
+        return toolbarHideX;
+    }
+
+    /**
+     * @return horizontal center of the circular reveal, relative to the FloatingToolbar
+     */
+    public int getRevealCenterX() {
+        return revealCenterX;
+    }
+
+    /**
+     * @return vertical center of the circular reveal, relative to the FloatingToolbar
+     */
+    public int getRevealCenterY() {
+        return revealCenterY;
+    }
+
+    /**
+     * @return radius of the circular reveal when the FloatingToolbar is fully shown
+     */
+    public float getRevealRadius() {
+        return revealRadius;
+    }
+
+    void update(FloatingToolbar toolbar, View fab, View root) {
+        int toolbarWidth = toolbar.getWidth();
+        int toolbarHeight = toolbar.getHeight();
+        boolean fabAtEnd = fab.getLeft() > root.getWidth() / 2f;
+
+        moveFabX = fab.getRight() > toolbarWidth * 0.75
+                || fab.getLeft() < toolbarHeight * 0.25;
+
+        fabLeft = fab.getLeft();
+        fabTop = fab.getTop();
+        fabWidth = fab.getWidth();
+        // The Behavior of the FloatingToolbar might have moved it, e.g, above a Snackbar
+        fabDiff = toolbar.getY() - fab.getTop();
+        fabRadius = fabWidth / 2f;
+
+        if (moveFabX) {
+            fabShowX = fabAtEnd ? fabLeft - fabWidth : fabLeft + fabWidth;
+        } else {
+            fabShowX = fabLeft;
+        }
+
+        fabControlX = fabAtEnd ? fabLeft - fabWidth / 4f : fabLeft + fabWidth / 4f;
+
+        toolbarLeft = toolbar.getLeft();
+        toolbarShowX = fabShowX - toolbarWidth / 2f + fabWidth;
+        toolbarHideX = fabLeft - toolbarWidth / 2f;
+
+        revealCenterX = toolbarWidth / 2;
+        revealCenterY = toolbarHeight / 2;
+        revealRadius = (float) Math.hypot(toolbarWidth / 2, toolbarHeight / 2);
+    }
+}
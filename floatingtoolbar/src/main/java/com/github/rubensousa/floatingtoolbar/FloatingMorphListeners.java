@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+/**
+ * Copy-on-write list of MorphListeners.
+ * <p>
+ * Adding or removing a listener replaces the arrays, so listeners can be added or removed
+ * from a callback without affecting the dispatch in progress,
+ * and dispatching doesn't allocate anything.
+ * </p>
+ */
+class FloatingMorphListeners {
+
+    private static final FloatingToolbar.MorphListener[] EMPTY_LISTENERS
+            = new FloatingToolbar.MorphListener[0];
+    private static final int[] EMPTY_PHASES = new int[0];
+
+    private FloatingToolbar.MorphListener[] mListeners = EMPTY_LISTENERS;
+    private int[] mPhases = EMPTY_PHASES;
+
+    /**
+     * Add a listener or update the phases of a listener already added
+     *
+     * @param listener MorphListener to be added
+     * @param phases   combination of the PHASE flags of FloatingToolbar
+     */
+    void add(FloatingToolbar.MorphListener listener, int phases) {
+        int index = indexOf(listener);
+        if (index != -1) {
+            int[] newPhases = mPhases.clone();
+            newPhases[index] = phases;
+            mPhases = newPhases;
+            return;
+        }
+
+        int size = mListeners.length;
+        FloatingToolbar.MorphListener[] newListeners = new FloatingToolbar.MorphListener[size + 1];
+        int[] newPhases = new int[size + 1];
+        System.arraycopy(mListeners, 0, newListeners, 0, size);
+        System.arraycopy(mPhases, 0, newPhases, 0, size);
+        newListeners[size] = listener;
+        newPhases[size] = phases;
+        mListeners = newListeners;
+        mPhases = newPhases;
+    }
+
+    void remove(FloatingToolbar.MorphListener listener) {
+        int index = indexOf(listener);
+        if (index == -1) {
+            return;
+        }
+
+        int size = mListeners.length;
+        if (size == 1) {
+            clear();
+            return;
+        }
+
+        FloatingToolbar.MorphListener[] newListeners = new FloatingToolbar.MorphListener[size - 1];
+        int[] newPhases = new int[size - 1];
+        System.arraycopy(mListeners, 0, newListeners, 0, index);
+        System.arraycopy(mPhases, 0, newPhases, 0, index);
+        System.arraycopy(mListeners, index + 1, newListeners, index, size - index - 1);
+        System.arraycopy(mPhases, index + 1, newPhases, index, size - index - 1);
+        mListeners = newListeners;
+        mPhases = newPhases;
+    }
+
+    void clear() {
+        mListeners = EMPTY_LISTENERS;
+        mPhases = EMPTY_PHASES;
+    }
+
+    /**
+     * Notify the listeners that registered for the given phase
+     *
+     * @param phase one of the PHASE flags of FloatingToolbar
+     */
+    void dispatch(int phase) {
+        // Keep the current arrays, in case a listener changes them
+        FloatingToolbar.MorphListener[] listeners = mListeners;
+        int[] phases = mPhases;
+        for (int i = 0; i < listeners.length; i++) {
+            if ((phases[i] & phase) == 0) {
+                continue;
+            }
+            switch (phase) {
+                case FloatingToolbar.PHASE_MORPH_START:
+                    listeners[i].onMorphStart();
+                    break;
+                case FloatingToolbar.PHASE_MORPH_END:
+                    listeners[i].onMorphEnd();
+                    break;
+                case FloatingToolbar.PHASE_UNMORPH_START:
+                    listeners[i].onUnmorphStart();
+                    break;
+                case FloatingToolbar.PHASE_UNMORPH_END:
+                    listeners[i].onUnmorphEnd();
+                    break;
+            }
+        }
+    }
+
+    private int indexOf(FloatingToolbar.MorphListener listener) {
+        for (int i = 0; i < mListeners.length; i++) {
+            if (mListeners[i] == listener) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
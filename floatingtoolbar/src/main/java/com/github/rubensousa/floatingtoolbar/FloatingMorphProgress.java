@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+
+import android.support.animation.DynamicAnimation;
+import android.support.animation.FloatValueHolder;
+import android.support.animation.SpringAnimation;
+import android.support.animation.SpringForce;
+
+/**
+ * Morph driven by a progress instead of time, e.g, to follow a drag.
+ * <p>
+ * The position of every view is a function of the progress only,
+ * where 0 is the fab and 1 is the FloatingToolbar, so it can be changed in any direction
+ * on every frame. The views are placed by {@link FloatingAnimator#applyProgress(float)},
+ * so a drag goes through the same frames as the timed morph of the current animator.
+ * When the gesture ends, a spring settles the progress from its current value and velocity.
+ * </p>
+ */
+class FloatingMorphProgress {
+
+    private static final float MIN_VISIBLE_CHANGE = 0.002f;
+
+    private FloatingToolbar mToolbar;
+    private Listener mListener;
+    private SpringAnimation mSettleAnimation;
+    private float mProgress;
+    private float mTarget;
+
+    private DynamicAnimation.OnAnimationUpdateListener mUpdateListener
+            = new DynamicAnimation.OnAnimationUpdateListener() {
+        @Override
+        public void onAnimationUpdate(DynamicAnimation animation, float value, float velocity) {
+            apply(value);
+        }
+    };
+
+    private DynamicAnimation.OnAnimationEndListener mEndListener
+            = new DynamicAnimation.OnAnimationEndListener() {
+        @Override
+        public void onAnimationEnd(DynamicAnimation animation, boolean canceled, float value,
+                                   float velocity) {
+            if (!canceled) {
+                mListener.onSettled(mTarget == 1f);
+            }
+        }
+    };
+
+    FloatingMorphProgress(FloatingToolbar toolbar, Listener listener) {
+        mToolbar = toolbar;
+        mListener = listener;
+    }
+
+    float getProgress() {
+        return mProgress;
+    }
+
+    boolean isSettling() {
+        return mSettleAnimation != null && mSettleAnimation.isRunning();
+    }
+
+    /**
+     * Place every view where the morph is at the given progress
+     *
+     * @param progress value between 0, the fab, and 1, the FloatingToolbar
+     */
+    void apply(float progress) {
+        mProgress = clamp(progress);
+        mToolbar.getAnimator().applyProgress(mProgress);
+    }
+
+    /**
+     * Animate the progress from its current value to the FloatingToolbar or the fab
+     *
+     * @param show     true to settle on the FloatingToolbar, false to settle on the fab
+     * @param velocity velocity of the gesture, in progress per second
+     */
+    void settle(boolean show, float velocity) {
+        if (mSettleAnimation == null) {
+            mSettleAnimation = new SpringAnimation(new FloatValueHolder());
+            mSettleAnimation.setSpring(new SpringForce()
+                    .setStiffness(SpringForce.STIFFNESS_MEDIUM)
+                    .setDampingRatio(SpringForce.DAMPING_RATIO_NO_BOUNCY));
+            mSettleAnimation.setMinValue(0f);
+            mSettleAnimation.setMaxValue(1f);
+            mSettleAnimation.setMinimumVisibleChange(MIN_VISIBLE_CHANGE);
+            mSettleAnimation.addUpdateListener(mUpdateListener);
+            mSettleAnimation.addEndListener(mEndListener);
+        }
+        mTarget = show ? 1f : 0f;
+        if (!mSettleAnimation.isRunning()) {
+            mSettleAnimation.setStartValue(mProgress);
+            mSettleAnimation.setStartVelocity(velocity);
+        }
+        mSettleAnimation.animateToFinalPosition(mTarget);
+    }
+
+    void cancel() {
+        if (mSettleAnimation != null) {
+            mSettleAnimation.cancel();
+        }
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+
+    interface Listener {
+        /**
+         * The settle animation ended
+         *
+         * @param shown true if it ended on the FloatingToolbar
+         */
+        void onSettled(boolean shown);
+    }
+}
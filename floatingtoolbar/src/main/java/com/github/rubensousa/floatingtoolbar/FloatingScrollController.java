@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+/**
+ * Decides when a scroll should hide the FloatingToolbar or show the fab again.
+ * <p>
+ * Scroll deltas are accumulated and evaluated at most once per frame.
+ * A decision is made when the scroll travels past a threshold in the same direction,
+ * or when it's fast enough. Hiding and showing use different thresholds,
+ * so that small scrolls back and forth don't keep toggling the views.
+ * </p>
+ * <p>
+ * It doesn't depend on any scrolling view, so that any source of scroll events can use it.
+ * </p>
+ */
+class FloatingScrollController implements FloatingFrameSource.FrameCallback {
+
+    private static final float NANOS_PER_SECOND = 1000000000f;
+
+    // Scroll directions
+    static final int DIRECTION_NONE = 0;
+    static final int DIRECTION_FORWARD = 1;
+    static final int DIRECTION_BACKWARD = 2;
+
+    private FloatingFrameSource mFrameSource;
+    private Callback mCallback;
+    private int mHideThreshold;
+    private int mShowThreshold;
+    private float mVelocityThreshold;
+    private int mPendingDelta;
+    private int mTravel;
+    private int mDirection;
+    private long mLastFrameTime;
+    private boolean mFramePosted;
+
+    /**
+     * @param frameSource       source of the frames used to evaluate the scroll
+     * @param callback          Callback that receives the decisions
+     * @param hideThreshold     distance in pixels that a forward scroll must travel
+     * @param showThreshold     distance in pixels that a backward scroll must travel
+     * @param velocityThreshold velocity in pixels per second
+     *                          that triggers a decision before the threshold is reached
+     */
+    FloatingScrollController(FloatingFrameSource frameSource, Callback callback,
+                             int hideThreshold, int showThreshold, float velocityThreshold) {
+        mFrameSource = frameSource;
+        mCallback = callback;
+        mHideThreshold = hideThreshold;
+        mShowThreshold = showThreshold;
+        mVelocityThreshold = velocityThreshold;
+    }
+
+    /**
+     * Accumulate a scroll delta. It's only evaluated on the next frame.
+     *
+     * @param delta scrolled distance in pixels. Positive values scroll forward
+     */
+    void onScrolled(int delta) {
+        if (delta == 0) {
+            return;
+        }
+        mPendingDelta += delta;
+        if (!mFramePosted) {
+            mFramePosted = true;
+            mFrameSource.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mFramePosted = false;
+        int delta = mPendingDelta;
+        mPendingDelta = 0;
+
+        float velocity = 0;
+        if (mLastFrameTime != 0 && frameTimeNanos > mLastFrameTime) {
+            velocity = delta * NANOS_PER_SECOND / (frameTimeNanos - mLastFrameTime);
+        }
+        mLastFrameTime = frameTimeNanos;
+
+        if (delta == 0) {
+            return;
+        }
+
+        // Start counting again when the direction changes
+        if ((delta > 0 && mTravel < 0) || (delta < 0 && mTravel > 0)) {
+            mTravel = 0;
+        }
+        mTravel += delta;
+
+        if (mTravel > 0 && mDirection != DIRECTION_FORWARD) {
+            if (mTravel >= mHideThreshold || velocity >= mVelocityThreshold) {
+                mDirection = DIRECTION_FORWARD;
+                mCallback.onScrollForward();
+            }
+        } else if (mTravel < 0 && mDirection != DIRECTION_BACKWARD) {
+            if (-mTravel >= mShowThreshold || -velocity >= mVelocityThreshold) {
+                mDirection = DIRECTION_BACKWARD;
+                mCallback.onScrollBackward();
+            }
+        }
+    }
+
+    /**
+     * @return the direction of the last decision
+     */
+    int getDirection() {
+        return mDirection;
+    }
+
+    /**
+     * Forget the last decision, so that the next scroll in any direction is evaluated again.
+     * This should be called when the views were changed by something other than a scroll.
+     */
+    void reset() {
+        mDirection = DIRECTION_NONE;
+        mTravel = 0;
+    }
+
+    /**
+     * Replace the source of the frames, e.g, with a fake one in tests.
+     * The pending scroll is discarded.
+     */
+    void setFrameSource(FloatingFrameSource frameSource) {
+        cancel();
+        mFrameSource = frameSource;
+    }
+
+    /**
+     * Discard the pending scroll and stop waiting for the next frame
+     */
+    void cancel() {
+        if (mFramePosted) {
+            mFrameSource.removeFrameCallback(this);
+            mFramePosted = false;
+        }
+        mPendingDelta = 0;
+        mLastFrameTime = 0;
+        reset();
+    }
+
+    interface Callback {
+
+        /**
+         * The content was scrolled forward past the hide threshold
+         */
+        void onScrollForward();
+
+        /**
+         * The content was scrolled backward past the show threshold
+         */
+        void onScrollBackward();
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+
+import android.support.annotation.Nullable;
+import android.support.v4.view.ViewPager;
+import android.support.v4.widget.NestedScrollView;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.widget.AbsListView;
+
+/**
+ * Source of the scroll events that hide the FloatingToolbar automatically.
+ * <p>
+ * Subclasses listen to a scrolling view and report the scrolled distance
+ * with {@link #dispatchScrolled(int)}. The FloatingToolbar decides when to hide itself.
+ * </p>
+ */
+public abstract class FloatingScrollSource {
+
+    private FloatingScrollController mController;
+
+    final void attach(FloatingScrollController controller) {
+        mController = controller;
+        onAttach();
+    }
+
+    final void detach() {
+        onDetach();
+        mController = null;
+    }
+
+    /**
+     * @return the view that's being observed
+     */
+    public abstract View getView();
+
+    /**
+     * Start listening to the scroll events of the view
+     */
+    protected abstract void onAttach();
+
+    /**
+     * Stop listening to the scroll events of the view
+     */
+    protected abstract void onDetach();
+
+    /**
+     * Report a scroll of the view
+     *
+     * @param delta scrolled distance in pixels. Positive values scroll forward
+     */
+    protected final void dispatchScrolled(int delta) {
+        if (mController != null) {
+            mController.onScrolled(delta);
+        }
+    }
+
+    /**
+     * Report that the content of the view was replaced,
+     * so that the previous scroll isn't taken into account
+     */
+    protected final void dispatchContentChanged() {
+        if (mController != null) {
+            mController.reset();
+        }
+    }
+
+    static class RecyclerViewSource extends FloatingScrollSource {
+
+        private RecyclerView mRecyclerView;
+
+        private RecyclerView.OnScrollListener mScrollListener = new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                dispatchScrolled(dy);
+            }
+        };
+
+        RecyclerViewSource(RecyclerView recyclerView) {
+            mRecyclerView = recyclerView;
+        }
+
+        @Override
+        public View getView() {
+            return mRecyclerView;
+        }
+
+        @Override
+        protected void onAttach() {
+            mRecyclerView.addOnScrollListener(mScrollListener);
+        }
+
+        @Override
+        protected void onDetach() {
+            mRecyclerView.removeOnScrollListener(mScrollListener);
+        }
+    }
+
+    /**
+     * NestedScrollView only supports one OnScrollChangeListener,
+     * so this source takes it over while it's attached.
+     * The delegate is called from its listener and set back when this source is detached.
+     */
+    static class NestedScrollViewSource extends FloatingScrollSource {
+
+        private NestedScrollView mScrollView;
+        private NestedScrollView.OnScrollChangeListener mDelegate;
+
+        private NestedScrollView.OnScrollChangeListener mScrollListener
+                = new NestedScrollView.OnScrollChangeListener() {
+            @Override
+            public void onScrollChange(NestedScrollView v, int scrollX, int scrollY,
+                                       int oldScrollX, int oldScrollY) {
+                dispatchScrolled(scrollY - oldScrollY);
+                if (mDelegate != null) {
+                    mDelegate.onScrollChange(v, scrollX, scrollY, oldScrollX, oldScrollY);
+                }
+            }
+        };
+
+        NestedScrollViewSource(NestedScrollView scrollView,
+                               @Nullable NestedScrollView.OnScrollChangeListener delegate) {
+            mScrollView = scrollView;
+            mDelegate = delegate;
+        }
+
+        @Override
+        public View getView() {
+            return mScrollView;
+        }
+
+        @Override
+        protected void onAttach() {
+            mScrollView.setOnScrollChangeListener(mScrollListener);
+        }
+
+        @Override
+        protected void onDetach() {
+            mScrollView.setOnScrollChangeListener(mDelegate);
+        }
+    }
+
+    /**
+     * AbsListView only supports one OnScrollListener,
+     * so this source takes it over while it's attached.
+     * The delegate is called from its listener and set back when this source is detached.
+     * <p>
+     * The scrolled distance is estimated from the position of the first visible child.
+     * </p>
+     */
+    static class ListViewSource extends FloatingScrollSource {
+
+        private AbsListView mListView;
+        private AbsListView.OnScrollListener mDelegate;
+        private int mFirstPosition;
+        private int mFirstTop;
+
+        private AbsListView.OnScrollListener mScrollListener = new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) {
+                if (mDelegate != null) {
+                    mDelegate.onScrollStateChanged(view, scrollState);
+                }
+            }
+
+            @Override
+            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
+                                 int totalItemCount) {
+                if (mDelegate != null) {
+                    mDelegate.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+                }
+                View firstChild = view.getChildAt(0);
+                if (firstChild == null) {
+                    return;
+                }
+                int top = firstChild.getTop();
+                if (firstVisibleItem == mFirstPosition) {
+                    dispatchScrolled(mFirstTop - top);
+                } else if (firstVisibleItem > mFirstPosition) {
+                    dispatchScrolled(firstChild.getHeight());
+                } else {
+                    dispatchScrolled(-firstChild.getHeight());
+                }
+                mFirstPosition = firstVisibleItem;
+                mFirstTop = top;
+            }
+        };
+
+        ListViewSource(AbsListView listView, @Nullable AbsListView.OnScrollListener delegate) {
+            mListView = listView;
+            mDelegate = delegate;
+        }
+
+        @Override
+        public View getView() {
+            return mListView;
+        }
+
+        @Override
+        protected void onAttach() {
+            View firstChild = mListView.getChildAt(0);
+            mFirstPosition = mListView.getFirstVisiblePosition();
+            mFirstTop = firstChild == null ? 0 : firstChild.getTop();
+            mListView.setOnScrollListener(mScrollListener);
+        }
+
+        @Override
+        protected void onDetach() {
+            mListView.setOnScrollListener(mDelegate);
+        }
+    }
+
+    /**
+     * Swiping between pages hides the FloatingToolbar in both directions,
+     * since its actions usually belong to the page that's being left.
+     * <p>
+     * The scroll of the content of each page is reported through nested scrolling,
+     * see {@link FloatingToolbar#setNestedScrollAutoHide(boolean)}.
+     * </p>
+     */
+    static class ViewPagerSource extends FloatingScrollSource {
+
+        private ViewPager mViewPager;
+        private int mLastScroll;
+
+        private ViewPager.OnPageChangeListener mPageListener
+                = new ViewPager.SimpleOnPageChangeListener() {
+            @Override
+            public void onPageScrolled(int position, float positionOffset,
+                                       int positionOffsetPixels) {
+                int scroll = position * mViewPager.getWidth() + positionOffsetPixels;
+                dispatchScrolled(Math.abs(scroll - mLastScroll));
+                mLastScroll = scroll;
+            }
+
+            @Override
+            public void onPageScrollStateChanged(int state) {
+                if (state == ViewPager.SCROLL_STATE_IDLE) {
+                    dispatchContentChanged();
+                }
+            }
+        };
+
+        ViewPagerSource(ViewPager viewPager) {
+            mViewPager = viewPager;
+        }
+
+        @Override
+        public View getView() {
+            return mViewPager;
+        }
+
+        @Override
+        protected void onAttach() {
+            mLastScroll = mViewPager.getScrollX();
+            mViewPager.addOnPageChangeListener(mPageListener);
+        }
+
+        @Override
+        protected void onDetach() {
+            mViewPager.removeOnPageChangeListener(mPageListener);
+        }
+    }
+}
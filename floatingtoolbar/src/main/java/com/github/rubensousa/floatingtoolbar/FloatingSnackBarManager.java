@@ -1,50 +1,82 @@
 package com.github.rubensousa.floatingtoolbar;
 
 
+import android.os.SystemClock;
 import android.support.design.widget.BaseTransientBottomBar;
 import android.support.design.widget.CoordinatorLayout;
 import android.support.design.widget.Snackbar;
+import android.text.TextUtils;
 import android.view.View;
-
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Queues the snackbars shown with {@link FloatingToolbar#showSnackBar(Snackbar, int)}
+ * so that they don't replace each other or show up while the FloatingToolbar is morphing.
+ * <p>
+ * Snackbars are shown one at a time, by priority and then by the order they were added.
+ * A snackbar with the same text of the one that's shown or queued is ignored,
+ * and a snackbar with a higher priority dismisses the one that's shown.
+ * </p>
+ */
 class FloatingSnackBarManager implements FloatingToolbar.MorphListener {
 
+    // Morph to start after the current snackbar is dismissed
+    private static final int MORPH_NONE = 0;
+    private static final int MORPH_SHOW = 1;
+    private static final int MORPH_HIDE = 2;
 
-    private BaseTransientBottomBar.BaseCallback<Snackbar> mShowCallback
+    private BaseTransientBottomBar.BaseCallback<Snackbar> mCallback
             = new BaseTransientBottomBar.BaseCallback<Snackbar>() {
         @Override
         public void onDismissed(Snackbar transientBottomBar, int event) {
             super.onDismissed(transientBottomBar, event);
-            mFloatingToolbar.dispatchShow();
-            transientBottomBar.removeCallback(this);
+            if (transientBottomBar != mSnackBar) {
+                return;
+            }
+            restoreMargin();
+            mSnackBar = null;
+            int morph = mPendingMorph;
+            mPendingMorph = MORPH_NONE;
+            if (morph == MORPH_SHOW) {
+                mFloatingToolbar.dispatchShow();
+            } else if (morph == MORPH_HIDE) {
+                mFloatingToolbar.dispatchHide();
+            }
+            showNext();
         }
     };
 
-    private BaseTransientBottomBar.BaseCallback<Snackbar> mHideCallback
-            = new BaseTransientBottomBar.BaseCallback<Snackbar>() {
+    private Runnable mShowNextRunnable = new Runnable() {
         @Override
-        public void onDismissed(Snackbar transientBottomBar, int event) {
-            super.onDismissed(transientBottomBar, event);
-            mFloatingToolbar.dispatchHide();
-            transientBottomBar.removeCallback(this);
-        }
-    };
-
-    private BaseTransientBottomBar.BaseCallback<Snackbar> mDismissCallback
-            = new BaseTransientBottomBar.BaseCallback<Snackbar>() {
-        @Override
-        public void onDismissed(Snackbar transientBottomBar, int event) {
-            super.onDismissed(transientBottomBar, event);
-            mSnackBar = null;
-            transientBottomBar.removeCallback(this);
+        public void run() {
+            showNext();
         }
     };
 
     Snackbar mSnackBar;
     FloatingToolbar mFloatingToolbar;
+    private int mPriority;
+    private int mPendingMorph;
+    private long mMinInterval;
+    private long mLastShowTime;
+    private List<Snackbar> mQueue;
+
+    // Priority of each snackbar of the queue, in the same order
+    private int[] mQueuePriorities;
+
+    // Bottom margin of the current snackbar before it was moved above the FloatingToolbar
+    private int mSavedMargin;
+    private boolean mMarginChanged;
 
     public FloatingSnackBarManager(FloatingToolbar toolbar) {
         mFloatingToolbar = toolbar;
-        mFloatingToolbar.addMorphListener(this);
+        mFloatingToolbar.addMorphListener(this,
+                FloatingToolbar.PHASE_MORPH_END | FloatingToolbar.PHASE_UNMORPH_END);
+        mQueue = new ArrayList<>();
+        mQueuePriorities = new int[4];
     }
 
     public boolean hasSnackBar() {
@@ -52,67 +84,145 @@ class FloatingSnackBarManager implements FloatingToolbar.MorphListener {
     }
 
     public void dismissAndShow() {
-        mSnackBar.addCallback(mShowCallback);
+        mPendingMorph = MORPH_SHOW;
         mSnackBar.dismiss();
     }
 
     public void dismissAndHide() {
-        mSnackBar.addCallback(mHideCallback);
+        mPendingMorph = MORPH_HIDE;
         mSnackBar.dismiss();
     }
 
-    public void showSnackBar(final Snackbar snackbar) {
-        // If we're currently morphing, show the snackbar after
-        if (mFloatingToolbar.mAnimating) {
-            // If we're showing a snackbar,
-            // remove the callbacks since we'll have a new one
-            if (mSnackBar != null && mSnackBar.isShownOrQueued()) {
-                mSnackBar.removeCallback(mHideCallback);
-                mSnackBar.removeCallback(mShowCallback);
-                mSnackBar.removeCallback(mDismissCallback);
+    /**
+     * @param interval minimum time in milliseconds between two snackbars being shown
+     */
+    public void setMinInterval(long interval) {
+        mMinInterval = interval;
+    }
+
+    public void showSnackBar(Snackbar snackbar, int priority) {
+        CharSequence text = getText(snackbar);
+
+        if (hasSnackBar() && TextUtils.equals(text, getText(mSnackBar))) {
+            return;
+        }
+
+        for (int i = 0; i < mQueue.size(); i++) {
+            if (TextUtils.equals(text, getText(mQueue.get(i)))) {
+                // Keep the queued one, but with the highest priority of both
+                if (priority > mQueuePriorities[i]) {
+                    removeQueued(i);
+                    enqueue(snackbar, priority);
+                }
+                return;
             }
-            mSnackBar = snackbar;
-        } else {
-            showSnackBarInternal(snackbar);
         }
 
+        enqueue(snackbar, priority);
+
+        if (hasSnackBar() && priority > mPriority && mPendingMorph == MORPH_NONE) {
+            // The next one is shown when this one is dismissed
+            mSnackBar.dismiss();
+        } else {
+            showNext();
+        }
     }
 
-    private void showSnackBarInternal(Snackbar snackbar) {
+    /**
+     * Stop showing snackbars, e.g, when the FloatingToolbar is detached from its window.
+     * The queued snackbars are discarded.
+     */
+    public void release() {
+        mFloatingToolbar.removeCallbacks(mShowNextRunnable);
+        if (mSnackBar != null) {
+            mSnackBar.removeCallback(mCallback);
+            restoreMargin();
+            mSnackBar = null;
+        }
+        mPendingMorph = MORPH_NONE;
+        mQueue.clear();
+    }
 
-        // If we're showing a snackbar,
-        // remove the callbacks since we'll have a new one
-        if (mSnackBar != null && mSnackBar.isShownOrQueued()) {
-            mSnackBar.removeCallback(mDismissCallback);
-            mSnackBar.removeCallback(mHideCallback);
-            mSnackBar.removeCallback(mShowCallback);
-            mSnackBar.dismiss();
+    private void enqueue(Snackbar snackbar, int priority) {
+        int size = mQueue.size();
+        int index = size;
+        while (index > 0 && mQueuePriorities[index - 1] < priority) {
+            index--;
         }
+        if (size == mQueuePriorities.length) {
+            int[] priorities = new int[size * 2];
+            System.arraycopy(mQueuePriorities, 0, priorities, 0, size);
+            mQueuePriorities = priorities;
+        }
+        System.arraycopy(mQueuePriorities, index, mQueuePriorities, index + 1, size - index);
+        mQueuePriorities[index] = priority;
+        mQueue.add(index, snackbar);
+    }
+
+    private Snackbar removeQueued(int index) {
+        int size = mQueue.size();
+        System.arraycopy(mQueuePriorities, index + 1, mQueuePriorities, index,
+                size - index - 1);
+        return mQueue.remove(index);
+    }
 
-        mSnackBar = snackbar;
-        mSnackBar.addCallback(mDismissCallback);
+    private void showNext() {
+        mFloatingToolbar.removeCallbacks(mShowNextRunnable);
 
-        // We can show the snackbar now if the toolbar isn't showing
-        if (!mFloatingToolbar.isShowing()) {
-            mSnackBar.show();
+        // Wait for the current snackbar to be dismissed or for the morph to end
+        if (mQueue.isEmpty() || hasSnackBar() || mPendingMorph != MORPH_NONE
+                || mFloatingToolbar.isAnimating()) {
             return;
         }
 
-        // If the toolbar is showing, we show the snackbar
-        // on top by applying a bottom margin
-        View view = snackbar.getView();
+        long wait = mLastShowTime + mMinInterval - SystemClock.uptimeMillis();
+        if (mLastShowTime != 0 && wait > 0) {
+            mFloatingToolbar.postDelayed(mShowNextRunnable, wait);
+            return;
+        }
+
+        mPriority = mQueuePriorities[0];
+        mSnackBar = removeQueued(0);
+        mSnackBar.addCallback(mCallback);
+        mLastShowTime = SystemClock.uptimeMillis();
+
+        // If the toolbar is showing, the snackbar is shown on top of it.
+        // Its own animation uses the translation, so it's moved with a bottom margin
+        // that's restored when it's dismissed.
+        // The view isn't attached yet, so this doesn't cause another layout pass.
+        if (mFloatingToolbar.isShowing()) {
+            View view = mSnackBar.getView();
+            CoordinatorLayout.LayoutParams params
+                    = (CoordinatorLayout.LayoutParams) view.getLayoutParams();
+            mSavedMargin = params.bottomMargin;
+            mMarginChanged = true;
+            params.bottomMargin += mFloatingToolbar.getHeight();
+            view.setLayoutParams(params);
+        }
+        mSnackBar.show();
+    }
+
+    private void restoreMargin() {
+        if (!mMarginChanged) {
+            return;
+        }
+        mMarginChanged = false;
+        View view = mSnackBar.getView();
         CoordinatorLayout.LayoutParams params
                 = (CoordinatorLayout.LayoutParams) view.getLayoutParams();
-        params.bottomMargin = mFloatingToolbar.getHeight();
+        params.bottomMargin = mSavedMargin;
         view.setLayoutParams(params);
-        mSnackBar.show();
+    }
+
+    private CharSequence getText(Snackbar snackbar) {
+        TextView textView = (TextView) snackbar.getView()
+                .findViewById(android.support.design.R.id.snackbar_text);
+        return textView == null ? null : textView.getText();
     }
 
     @Override
     public void onMorphEnd() {
-        if (mSnackBar != null && !mSnackBar.isShownOrQueued()) {
-            showSnackBarInternal(mSnackBar);
-        }
+        showNext();
     }
 
     @Override
@@ -127,8 +237,6 @@ class FloatingSnackBarManager implements FloatingToolbar.MorphListener {
 
     @Override
     public void onUnmorphEnd() {
-        if (mSnackBar != null && !mSnackBar.isShownOrQueued()) {
-            showSnackBarInternal(mSnackBar);
-        }
+        showNext();
     }
 }
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+/**
+ * Durations and delays in milliseconds of the morph animations.
+ * <p>
+ * The animators also add a delay computed by a {@link FloatingDelayModel},
+ * up to {@link #getMaxDelay()}, and every duration is multiplied by the
+ * animator duration scale of the developer options.
+ * Use a {@link Builder} to create a custom profile.
+ * </p>
+ */
+public final class FloatingTimingProfile {
+
+    public static final FloatingTimingProfile DEFAULT = new Builder().build();
+
+    public static final FloatingTimingProfile FAST = new Builder().scale(0.6f).build();
+
+    /**
+     * Short animations without staggering, for users that prefer less motion
+     */
+    public static final FloatingTimingProfile REDUCED = new Builder()
+            .setFabMorphDuration(100)
+            .setFabUnmorphDuration(100)
+            .setFabUnmorphDelay(100)
+            .setFabUnmorphScaleDelay(100)
+            .setRevealDuration(150)
+            .setRevealDelay(0)
+            .setUnrevealDuration(100)
+            .setUnrevealDelay(0)
+            .setToolbarUnrevealDelay(0)
+            .setMenuDelay(50)
+            .setMenuDuration(100)
+            .setMaxDelay(0)
+            .build();
+
+    private int mFabMorphDuration;
+    private int mFabUnmorphDuration;
+    private int mFabUnmorphDelay;
+    private int mFabUnmorphScaleDelay;
+    private int mRevealDuration;
+    private int mRevealDelay;
+    private int mUnrevealDuration;
+    private int mUnrevealDelay;
+    private int mToolbarUnrevealDelay;
+    private int mMenuDelay;
+    private int mMenuDuration;
+    private int mMaxDelay;
+
+    private FloatingTimingProfile(Builder builder) {
+        mFabMorphDuration = builder.mFabMorphDuration;
+        mFabUnmorphDuration = builder.mFabUnmorphDuration;
+        mFabUnmorphDelay = builder.mFabUnmorphDelay;
+        mFabUnmorphScaleDelay = builder.mFabUnmorphScaleDelay;
+        mRevealDuration = builder.mRevealDuration;
+        mRevealDelay = builder.mRevealDelay;
+        mUnrevealDuration = builder.mUnrevealDuration;
+        mUnrevealDelay = builder.mUnrevealDelay;
+        mToolbarUnrevealDelay = builder.mToolbarUnrevealDelay;
+        mMenuDelay = builder.mMenuDelay;
+        mMenuDuration = builder.mMenuDuration;
+        mMaxDelay = builder.mMaxDelay;
+    }
+
+    /**
+     * @return duration of the fab moving into the FloatingToolbar
+     */
+    public int getFabMorphDuration() {
+        return mFabMorphDuration;
+    }
+
+    /**
+     * @return duration of the fab moving back to its position
+     */
+    public int getFabUnmorphDuration() {
+        return mFabUnmorphDuration;
+    }
+
+    /**
+     * @return delay of the fab moving back to its position
+     */
+    public int getFabUnmorphDelay() {
+        return mFabUnmorphDelay;
+    }
+
+    /**
+     * @return delay of the fab growing back before Lollipop, where there's no circular reveal
+     */
+    public int getFabUnmorphScaleDelay() {
+        return mFabUnmorphScaleDelay;
+    }
+
+    public int getRevealDuration() {
+        return mRevealDuration;
+    }
+
+    public int getRevealDelay() {
+        return mRevealDelay;
+    }
+
+    public int getUnrevealDuration() {
+        return mUnrevealDuration;
+    }
+
+    public int getUnrevealDelay() {
+        return mUnrevealDelay;
+    }
+
+    /**
+     * @return delay of the FloatingToolbar moving towards the fab when it's hidden
+     */
+    public int getToolbarUnrevealDelay() {
+        return mToolbarUnrevealDelay;
+    }
+
+    /**
+     * @return delay of the menu or custom view fading in
+     */
+    public int getMenuDelay() {
+        return mMenuDelay;
+    }
+
+    /**
+     * @return duration of the menu or custom view fading in. Fading out takes half of it.
+     */
+    public int getMenuDuration() {
+        return mMenuDuration;
+    }
+
+    /**
+     * @return maximum delay added to each animation when the morph travels far
+     */
+    public int getMaxDelay() {
+        return mMaxDelay;
+    }
+
+    public static class Builder {
+
+        private int mFabMorphDuration = FloatingAnimator.FAB_MORPH_DURATION;
+        private int mFabUnmorphDuration = FloatingAnimator.FAB_UNMORPH_DURATION;
+        private int mFabUnmorphDelay = FloatingAnimator.FAB_UNMORPH_DELAY;
+        private int mFabUnmorphScaleDelay = FloatingAnimator.FAB_UNMORPH_SCALE_DELAY;
+        private int mRevealDuration = FloatingAnimator.CIRCULAR_REVEAL_DURATION;
+        private int mRevealDelay = FloatingAnimator.CIRCULAR_REVEAL_DELAY;
+        private int mUnrevealDuration = FloatingAnimator.CIRCULAR_UNREVEAL_DURATION;
+        private int mUnrevealDelay = FloatingAnimator.CIRCULAR_UNREVEAL_DELAY;
+        private int mToolbarUnrevealDelay = FloatingAnimator.TOOLBAR_UNREVEAL_DELAY;
+        private int mMenuDelay = FloatingAnimator.MENU_ANIMATION_DELAY;
+        private int mMenuDuration = FloatingAnimator.MENU_ANIMATION_DURATION;
+        private int mMaxDelay = FloatingAnimator.DELAY_MAX;
+
+        /**
+         * Start from the values of {@link #DEFAULT}
+         */
+        public Builder() {
+
+        }
+
+        /**
+         * Start from the values of another profile
+         */
+        public Builder(FloatingTimingProfile profile) {
+            mFabMorphDuration = profile.mFabMorphDuration;
+            mFabUnmorphDuration = profile.mFabUnmorphDuration;
+            mFabUnmorphDelay = profile.mFabUnmorphDelay;
+            mFabUnmorphScaleDelay = profile.mFabUnmorphScaleDelay;
+            mRevealDuration = profile.mRevealDuration;
+            mRevealDelay = profile.mRevealDelay;
+            mUnrevealDuration = profile.mUnrevealDuration;
+            mUnrevealDelay = profile.mUnrevealDelay;
+            mToolbarUnrevealDelay = profile.mToolbarUnrevealDelay;
+            mMenuDelay = profile.mMenuDelay;
+            mMenuDuration = profile.mMenuDuration;
+            mMaxDelay = profile.mMaxDelay;
+        }
+
+        public Builder setFabMorphDuration(int duration) {
+            mFabMorphDuration = duration;
+            return this;
+        }
+
+        public Builder setFabUnmorphDuration(int duration) {
+            mFabUnmorphDuration = duration;
+            return this;
+        }
+
+        public Builder setFabUnmorphDelay(int delay) {
+            mFabUnmorphDelay = delay;
+            return this;
+        }
+
+        public Builder setFabUnmorphScaleDelay(int delay) {
+            mFabUnmorphScaleDelay = delay;
+            return this;
+        }
+
+        public Builder setRevealDuration(int duration) {
+            mRevealDuration = duration;
+            return this;
+        }
+
+        public Builder setRevealDelay(int delay) {
+            mRevealDelay = delay;
+            return this;
+        }
+
+        public Builder setUnrevealDuration(int duration) {
+            mUnrevealDuration = duration;
+            return this;
+        }
+
+        public Builder setUnrevealDelay(int delay) {
+            mUnrevealDelay = delay;
+            return this;
+        }
+
+        public Builder setToolbarUnrevealDelay(int delay) {
+            mToolbarUnrevealDelay = delay;
+            return this;
+        }
+
+        public Builder setMenuDelay(int delay) {
+            mMenuDelay = delay;
+            return this;
+        }
+
+        public Builder setMenuDuration(int duration) {
+            mMenuDuration = duration;
+            return this;
+        }
+
+        public Builder setMaxDelay(int delay) {
+            mMaxDelay = delay;
+            return this;
+        }
+
+        /**
+         * Multiply every duration and delay that was set so far
+         *
+         * @param scale factor to apply, e.g, 0.5 for animations twice as fast
+         */
+        public Builder scale(float scale) {
+            mFabMorphDuration = Math.round(mFabMorphDuration * scale);
+            mFabUnmorphDuration = Math.round(mFabUnmorphDuration * scale);
+            mFabUnmorphDelay = Math.round(mFabUnmorphDelay * scale);
+            mFabUnmorphScaleDelay = Math.round(mFabUnmorphScaleDelay * scale);
+            mRevealDuration = Math.round(mRevealDuration * scale);
+            mRevealDelay = Math.round(mRevealDelay * scale);
+            mUnrevealDuration = Math.round(mUnrevealDuration * scale);
+            mUnrevealDelay = Math.round(mUnrevealDelay * scale);
+            mToolbarUnrevealDelay = Math.round(mToolbarUnrevealDelay * scale);
+            mMenuDelay = Math.round(mMenuDelay * scale);
+            mMenuDuration = Math.round(mMenuDuration * scale);
+            mMaxDelay = Math.round(mMaxDelay * scale);
+            return this;
+        }
+
+        /**
+         * @throws IllegalStateException if a duration or delay is negative
+         */
+        public FloatingTimingProfile build() {
+            if (mFabMorphDuration < 0 || mFabUnmorphDuration < 0 || mFabUnmorphDelay < 0
+                    || mFabUnmorphScaleDelay < 0 || mRevealDuration < 0 || mRevealDelay < 0
+                    || mUnrevealDuration < 0 || mUnrevealDelay < 0 || mToolbarUnrevealDelay < 0
+                    || mMenuDelay < 0 || mMenuDuration < 0 || mMaxDelay < 0) {
+                throw new IllegalStateException("Durations and delays can't be negative");
+            }
+            return new FloatingTimingProfile(this);
+        }
+    }
+}
@@ -16,23 +16,39 @@
 
 package com.github.rubensousa.floatingtoolbar;
 
+import android.app.ActivityManager;
 import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.provider.Settings;
 import android.support.annotation.DrawableRes;
+import android.support.annotation.LayoutRes;
 import android.support.annotation.MenuRes;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.design.widget.AppBarLayout;
+import android.support.design.widget.CoordinatorLayout;
 import android.support.design.widget.FloatingActionButton;
 import android.support.design.widget.Snackbar;
+import android.support.transition.AutoTransition;
+import android.support.transition.Transition;
+import android.support.transition.TransitionManager;
+import android.support.v4.app.ActivityManagerCompat;
+import android.support.v7.content.res.AppCompatResources;
 import android.support.v4.view.ViewCompat;
-import android.support.v7.view.SupportMenuInflater;
-import android.support.v7.view.menu.MenuBuilder;
+import android.support.v4.view.ViewPager;
+import android.support.v4.widget.ImageViewCompat;
+import android.support.v4.widget.NestedScrollView;
 import android.support.v7.widget.AppCompatImageButton;
 import android.support.v7.widget.LinearLayoutCompat;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.PopupMenu;
 import android.support.v7.widget.RecyclerView;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.TypedValue;
 import android.view.Gravity;
@@ -40,6 +56,8 @@ import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.AbsListView;
+import android.widget.ImageView;
 import android.widget.Toast;
 
 import java.util.ArrayList;
@@ -47,44 +65,229 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @SuppressWarnings("RestrictedApi")
+@CoordinatorLayout.DefaultBehavior(FloatingToolbar.Behavior.class)
 public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickListener,
         View.OnLongClickListener, FloatingAnimator.FloatingAnimatorListener {
 
+    // Animations that can be set with the floatingAnimation attribute, by their value
+    private static final String[] ANIMATIONS = new String[]{FloatingAnimations.NORMAL,
+            FloatingAnimations.SPRING, FloatingAnimations.INSTANT, FloatingAnimations.REDUCED};
+
+    // Timing profiles that can be set with the floatingTimingProfile attribute, by their value
+    private static final FloatingTimingProfile[] TIMING_PROFILES = new FloatingTimingProfile[]{
+            FloatingTimingProfile.DEFAULT, FloatingTimingProfile.FAST,
+            FloatingTimingProfile.REDUCED};
+
     private static final AtomicInteger sNextGeneratedId = new AtomicInteger(1);
 
+    // Morph states
+    static final int STATE_HIDDEN = 0;
+    static final int STATE_SHOWING = 1;
+    static final int STATE_SHOWN = 2;
+    static final int STATE_HIDING = 3;
+    static final int STATE_DRAGGING = 4;
+
+    // Phases of the morph that a MorphListener can listen to
+    public static final int PHASE_MORPH_START = 1;
+    public static final int PHASE_MORPH_END = 1 << 1;
+    public static final int PHASE_UNMORPH_START = 1 << 2;
+    public static final int PHASE_UNMORPH_END = 1 << 3;
+    public static final int PHASE_ALL = PHASE_MORPH_START | PHASE_MORPH_END
+            | PHASE_UNMORPH_START | PHASE_UNMORPH_END;
+
+    // Priorities of the snackbars shown with showSnackBar
+    public static final int SNACKBAR_PRIORITY_LOW = 0;
+    public static final int SNACKBAR_PRIORITY_NORMAL = 1;
+    public static final int SNACKBAR_PRIORITY_HIGH = 2;
+
+    // What happens to the clicks on the items while the FloatingToolbar is being shown
+    public static final int INPUT_POLICY_DROP = 0;
+    public static final int INPUT_POLICY_THRESHOLD = 1;
+    public static final int INPUT_POLICY_QUEUE = 2;
+
+    // Alpha of the items above which INPUT_POLICY_THRESHOLD accepts clicks
+    private static final float INPUT_ALPHA_THRESHOLD = 0.5f;
+
+    // Velocity in dp per second of a scroll that hides the FloatingToolbar immediately
+    private static final int SCROLL_VELOCITY_THRESHOLD = 1500;
+
     @MenuRes
     private int mMenuRes;
 
+    @LayoutRes
+    private int mCustomViewRes;
+
     @DrawableRes
     private int mItemBackground;
 
-    private FloatingScrollListener mScrollListener;
-    private RecyclerView mRecyclerView;
+    private ColorStateList mItemTint;
+
+    // Shared by the animator, the scroll handling and the metrics
+    private FloatingFrameSource mFrameSource;
+    private FloatingScrollController mScrollController;
+    private List<FloatingScrollSource> mScrollSources;
     private AppBarLayout mAppBar;
     FloatingActionButton mFab;
     private View mCustomView;
     private Menu mMenu;
-    boolean mShowing;
-    boolean mAnimating;
+    int mState = STATE_HIDDEN;
     boolean mHandleFabClick;
     private boolean mAutoHide;
+    private boolean mHideFabOnScroll;
+    private boolean mNestedScrollAutoHide;
     private boolean mShowToast;
+    private boolean mLazyContent;
+    private boolean mContentCreated;
+    private boolean mAdaptiveAnimation;
+    private boolean mAdaptiveStrategyValid;
+    private FloatingAnimationStrategy mAdaptiveStrategy;
+    private int mInputPolicy;
+
+    // Click received while showing that's delivered when the morph ends
+    private MenuItem mPendingClick;
+    private FloatingAnimationStrategy mAnimationStrategy;
+    private FloatingAnimationStrategy mCurrentStrategy;
     private Toast mToast;
     private ItemClickListener mClickListener;
     private LinearLayoutCompat mMenuLayout;
+    private boolean mScrollableMenu;
+    private RecyclerView mMenuRecyclerView;
+    private FloatingMenuAdapter mMenuAdapter;
+    private boolean mOverflowEnabled;
+    private int mItemSlots = Integer.MAX_VALUE;
+    private boolean mOverflowChanged;
+    private List<MenuItem> mOverflowItems;
+    private AppCompatImageButton mOverflowButton;
+    private PopupMenu mOverflowPopup;
+
+    // Views of removed items that the menu transition fades out before they're pooled
+    private List<View> mLeavingViews;
+    private Transition mMenuTransition;
+    private boolean mMenuTransitionPending;
+    private int mMenuTransitionsRunning;
+    private FloatingItemViewPool mItemViewPool;
     private FloatingAnimator mAnimator;
-    private List<MorphListener> mMorphListeners;
+    private FloatingMorphListeners mMorphListeners;
     private FloatingSnackBarManager mSnackBarManager;
+    private MorphMetricsRecorder mMetricsRecorder;
+    private FloatingMorphProgress mMorphProgress;
+
+    // True if the current drag started with the FloatingToolbar shown
+    private boolean mDragFromShown;
+
+    // Animator duration scale of the developer options, or -1 until it's read again
+    private float mDurationScale = -1f;
+
+    private FloatingMorphProgress.Listener mSettleListener = new FloatingMorphProgress.Listener() {
+        @Override
+        public void onSettled(boolean shown) {
+            mAnimator.resetViews(shown);
+            onAnimationFinished();
+        }
+    };
 
     private OnClickListener mViewClickListener = new OnClickListener() {
         @Override
         public void onClick(View view) {
-            if (!mShowing && mHandleFabClick) {
+            if (!isShowing() && mHandleFabClick) {
                 show();
             }
         }
     };
 
+    private Transition.TransitionListener mMenuTransitionListener
+            = new Transition.TransitionListener() {
+        @Override
+        public void onTransitionStart(@NonNull Transition transition) {
+            mMenuTransitionPending = false;
+            mMenuTransitionsRunning++;
+        }
+
+        @Override
+        public void onTransitionEnd(@NonNull Transition transition) {
+            mMenuTransitionsRunning = Math.max(0, mMenuTransitionsRunning - 1);
+            if (!isMenuTransitionActive()) {
+                recycleLeavingViews();
+            }
+        }
+
+        @Override
+        public void onTransitionCancel(@NonNull Transition transition) {
+            // Followed by onTransitionEnd
+        }
+
+        @Override
+        public void onTransitionPause(@NonNull Transition transition) {
+
+        }
+
+        @Override
+        public void onTransitionResume(@NonNull Transition transition) {
+
+        }
+    };
+
+    private Runnable mRebindMenuRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mMenuLayout != null) {
+                addMenuItems();
+            }
+        }
+    };
+
+    private OnClickListener mOverflowClickListener = new OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            if (isInputAccepted()) {
+                showOverflowPopup();
+            }
+        }
+    };
+
+    private PopupMenu.OnMenuItemClickListener mOverflowItemClickListener
+            = new PopupMenu.OnMenuItemClickListener() {
+        @Override
+        public boolean onMenuItemClick(MenuItem popupItem) {
+            if (!isInputAccepted()) {
+                return false;
+            }
+            // The popup items are identified by their position in the overflow
+            dispatchItemClick(mOverflowItems.get(popupItem.getItemId()));
+            return true;
+        }
+    };
+
+    private AppBarLayout.OnOffsetChangedListener mAppBarListener
+            = new AppBarLayout.OnOffsetChangedListener() {
+        @Override
+        public void onOffsetChanged(AppBarLayout appBarLayout, int verticalOffset) {
+            // A fab anchored to the AppBarLayout moved with it
+            if (!isAnimating()) {
+                mAnimator.invalidateGeometry();
+            }
+        }
+    };
+
+    private FloatingScrollController.Callback mScrollCallback
+            = new FloatingScrollController.Callback() {
+        @Override
+        public void onScrollForward() {
+            if (isShowing()) {
+                hide();
+            } else if (mHideFabOnScroll && mState == STATE_HIDDEN && mFab != null) {
+                mFab.hide();
+            }
+        }
+
+        @Override
+        public void onScrollBackward() {
+            if (mHideFabOnScroll && mState == STATE_HIDDEN && mFab != null) {
+                mFab.show();
+            }
+        }
+    };
+
     public FloatingToolbar(Context context) {
         this(context, null, 0);
     }
@@ -108,41 +311,58 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
         getContext().getTheme().resolveAttribute(android.R.attr.selectableItemBackground,
                 outValue, true);
 
-        mMorphListeners = new ArrayList<>();
-        mScrollListener = new FloatingScrollListener(this);
+        mMorphListeners = new FloatingMorphListeners();
+        mMorphProgress = new FloatingMorphProgress(this, mSettleListener);
+        // Until the FloatingToolbar is laid out, assume that it fills the width of the screen
+        mItemViewPool = new FloatingItemViewPool(getItemSlots(
+                getResources().getDisplayMetrics().widthPixels));
+        mFrameSource = new ChoreographerFrameSource(context);
+        mScrollController = new FloatingScrollController(mFrameSource,
+                mScrollCallback,
+                getResources().getDimensionPixelSize(R.dimen.floatingtoolbar_scroll_hide_threshold),
+                getResources().getDimensionPixelSize(R.dimen.floatingtoolbar_scroll_show_threshold),
+                SCROLL_VELOCITY_THRESHOLD * getResources().getDisplayMetrics().density);
+        mScrollSources = new ArrayList<>();
         mShowToast = a.getBoolean(R.styleable.FloatingToolbar_floatingToastOnLongClick, true);
         mHandleFabClick = a.getBoolean(R.styleable.FloatingToolbar_floatingHandleFabClick, true);
+        mItemTint = a.getColorStateList(R.styleable.FloatingToolbar_floatingItemTint);
         mItemBackground = a.getResourceId(R.styleable.FloatingToolbar_floatingItemBackground,
                 outValue.resourceId);
         mAutoHide = a.getBoolean(R.styleable.FloatingToolbar_floatingAutoHide, true);
+        mHideFabOnScroll = a.getBoolean(R.styleable.FloatingToolbar_floatingHideFabOnScroll,
+                false);
+        mNestedScrollAutoHide = a.getBoolean(
+                R.styleable.FloatingToolbar_floatingNestedScrollAutoHide, false);
         mMenuRes = a.getResourceId(R.styleable.FloatingToolbar_floatingMenu, 0);
-
-        int customView = a.getResourceId(R.styleable.FloatingToolbar_floatingCustomView, 0);
-
-        if (customView != 0) {
-            mCustomView = LayoutInflater.from(context).inflate(customView, this, false);
-        }
-
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
-            mAnimator = new FloatingAnimatorImpl(this);
-        } else {
-            mAnimator = new FloatingAnimatorLollipopImpl(this);
-        }
-
-        if (mCustomView != null) {
-            addView(mCustomView);
-            mAnimator.setContentView(mCustomView);
-        }
+        mCustomViewRes = a.getResourceId(R.styleable.FloatingToolbar_floatingCustomView, 0);
+        mLazyContent = a.getBoolean(R.styleable.FloatingToolbar_floatingLazyContent, false);
+        mOverflowEnabled = a.getBoolean(R.styleable.FloatingToolbar_floatingOverflow, false);
+        mScrollableMenu = a.getBoolean(R.styleable.FloatingToolbar_floatingScrollableMenu, false);
+        mInputPolicy = a.getInt(R.styleable.FloatingToolbar_floatingInputPolicy,
+                INPUT_POLICY_DROP);
+        mOverflowItems = new ArrayList<>();
+        mLeavingViews = new ArrayList<>();
+
+        mAdaptiveAnimation = a.getBoolean(R.styleable.FloatingToolbar_floatingAdaptiveAnimation,
+                false);
+        mAnimationStrategy = FloatingAnimations.get(
+                ANIMATIONS[a.getInt(R.styleable.FloatingToolbar_floatingAnimation, 0)]);
+        mCurrentStrategy = mAnimationStrategy;
+        mAnimator = mAnimationStrategy.createAnimator(this);
+        mAnimator.setTimingProfile(
+                TIMING_PROFILES[a.getInt(R.styleable.FloatingToolbar_floatingTimingProfile, 0)]);
 
         // Set elevation to 6dp
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
             setElevation(getResources().getDimension(R.dimen.floatingtoolbar_start_elevation));
         }
 
-        if (mMenuRes != 0 && customView == 0) {
-            createMenuLayout();
-            addMenuItems();
-            mAnimator.setContentView(mMenuLayout);
+        if (mMenuRes != 0 && mCustomViewRes == 0) {
+            mMenu = FloatingMenuCache.obtain(getContext(), mMenuRes);
+        }
+
+        if (!mLazyContent || isInEditMode()) {
+            createContent();
         }
 
         if (!isInEditMode()) {
@@ -158,13 +378,53 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
-        mAnimator.updateDelay();
+        int width = w - getPaddingLeft() - getPaddingRight();
+        mItemViewPool.setMaxScrap(getItemSlots(width));
+        if (mOverflowEnabled) {
+            updateItemSlots(width);
+        }
+        updateScrollableItemWidth(width);
+        // The delay is computed again from the new geometry when it's needed
+        mAnimator.invalidateGeometry();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // The developer options might have changed while detached
+        mDurationScale = -1f;
+        mAdaptiveStrategyValid = false;
+        if (mAppBar != null) {
+            mAppBar.addOnOffsetChangedListener(mAppBarListener);
+        }
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        mDurationScale = -1f;
+        mAdaptiveStrategyValid = false;
+        mAnimator.onConfigurationChanged();
     }
 
     @Override
     protected void onDetachedFromWindow() {
         if (mAppBar != null) {
-            mAppBar.removeOnOffsetChangedListener(mAnimator);
+            mAppBar.removeOnOffsetChangedListener(mAppBarListener);
+        }
+        mSnackBarManager.release();
+        removeCallbacks(mRebindMenuRunnable);
+        mScrollController.cancel();
+        mPendingClick = null;
+        mMorphProgress.cancel();
+        mItemViewPool.clear();
+        mLeavingViews.clear();
+        mMenuTransitionPending = false;
+        mMenuTransitionsRunning = 0;
+        // The animations won't finish if they were interrupted
+        mAnimator.restoreLayers();
+        if (mMetricsRecorder != null) {
+            mMetricsRecorder.finish(true);
         }
         super.onDetachedFromWindow();
     }
@@ -176,7 +436,15 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
      * @return true if the FloatingToolbar is being shown and the fab is hidden
      */
     public boolean isShowing() {
-        return mShowing;
+        return mState == STATE_SHOWING || mState == STATE_SHOWN;
+    }
+
+    /**
+     * @return true if the morph or unmorph animation is running,
+     * or if the morph is following {@link #setMorphProgress(float)}
+     */
+    public boolean isAnimating() {
+        return mState == STATE_SHOWING || mState == STATE_HIDING || mState == STATE_DRAGGING;
     }
 
     /**
@@ -201,6 +469,223 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
         mAutoHide = enable;
     }
 
+    /**
+     * Control whether the FloatingActionButton should be hidden when the attached
+     * scrolling views are scrolled forward while this FloatingToolbar is hidden,
+     * and shown again when it's scrolled backward. The default value is false.
+     *
+     * @param hide true if the FloatingActionButton should follow the scroll direction
+     */
+    public void setHideFabOnScroll(boolean hide) {
+        mHideFabOnScroll = hide;
+        if (!mHideFabOnScroll && mState == STATE_HIDDEN && mFab != null) {
+            mFab.show();
+        }
+    }
+
+    /**
+     * Control whether the menu items that don't fit in the width of this FloatingToolbar
+     * should be moved to an overflow popup, instead of being squeezed. The default value is false.
+     *
+     * @param enable true if the overflow should be used
+     */
+    public void setOverflowEnabled(boolean enable) {
+        if (mOverflowEnabled == enable) {
+            return;
+        }
+        mOverflowEnabled = enable;
+        removeCallbacks(mRebindMenuRunnable);
+        // Until there's a width, every item is placed in the row
+        mItemSlots = enable && getWidth() != 0
+                ? getItemSlots(getWidth() - getPaddingLeft() - getPaddingRight())
+                : Integer.MAX_VALUE;
+        if (mMenuLayout != null) {
+            addMenuItems();
+        }
+    }
+
+    /**
+     * @return true if the menu items that don't fit are moved to an overflow popup
+     */
+    public boolean isOverflowEnabled() {
+        return mOverflowEnabled;
+    }
+
+    /**
+     * Control whether the menu should scroll horizontally instead of squeezing every item
+     * in the width of this FloatingToolbar. The default value is false.
+     * <p>
+     * Only the items that are on screen have a view, so this is meant for large menus.
+     * This has no effect if the views were already created.
+     * </p>
+     *
+     * @param scrollable true if the menu should scroll
+     */
+    public void setScrollableMenu(boolean scrollable) {
+        if (!mContentCreated) {
+            mScrollableMenu = scrollable;
+        }
+    }
+
+    /**
+     * @return true if the menu scrolls horizontally
+     */
+    public boolean isScrollableMenu() {
+        return mScrollableMenu;
+    }
+
+    /**
+     * Control what happens to the clicks on the items while this FloatingToolbar is being shown.
+     * The default value is {@link #INPUT_POLICY_DROP}.
+     * <p>
+     * {@link #INPUT_POLICY_DROP} ignores them until the morph ends.
+     * {@link #INPUT_POLICY_THRESHOLD} accepts them once the items are mostly visible.
+     * {@link #INPUT_POLICY_QUEUE} delivers the first one when the morph ends,
+     * unless the FloatingToolbar starts hiding before that.
+     * Either way, the ItemClickListener is called at most once per click.
+     * </p>
+     *
+     * @param policy one of {@link #INPUT_POLICY_DROP}, {@link #INPUT_POLICY_THRESHOLD}
+     *               or {@link #INPUT_POLICY_QUEUE}
+     */
+    public void setInputPolicy(int policy) {
+        mInputPolicy = policy;
+        if (policy != INPUT_POLICY_QUEUE) {
+            mPendingClick = null;
+        }
+    }
+
+    public int getInputPolicy() {
+        return mInputPolicy;
+    }
+
+    /**
+     * Control whether the views of the menu or custom view should only be created
+     * when this FloatingToolbar is shown for the first time. The default value is false.
+     * <p>
+     * This has no effect if the views were already created.
+     * </p>
+     *
+     * @param lazy true if the views should only be created when needed
+     */
+    public void setLazyContent(boolean lazy) {
+        mLazyContent = lazy;
+        if (!mLazyContent) {
+            createContent();
+        }
+    }
+
+    /**
+     * @return true if the views of the menu or custom view are only created when needed
+     */
+    public boolean isLazyContent() {
+        return mLazyContent;
+    }
+
+    /**
+     * Render the FloatingToolbar, its content and the FloatingActionButton
+     * into hardware layers while the morph animation is running.
+     * The previous layer types are restored when the animation ends.
+     * <p>
+     * This avoids redrawing every item on each frame, which helps with large menus
+     * on slower devices. The default value is false.
+     * </p>
+     *
+     * @param enable true if hardware layers should be used during the animation
+     */
+    public void enableHardwareLayers(boolean enable) {
+        mAnimator.setHardwareLayersEnabled(enable);
+    }
+
+    /**
+     * @return true if hardware layers are used during the morph animation
+     */
+    public boolean isHardwareLayersEnabled() {
+        return mAnimator.isHardwareLayersEnabled();
+    }
+
+    /**
+     * Set the animation used to morph the FloatingActionButton into this FloatingToolbar.
+     *
+     * @param name name of an animation registered in {@link FloatingAnimations},
+     *             e.g, {@link FloatingAnimations#SPRING}
+     * @throws IllegalArgumentException if there's no animation registered with that name
+     * @throws IllegalStateException    if the morph animation is running
+     */
+    public void setAnimation(String name) {
+        FloatingAnimationStrategy strategy = FloatingAnimations.get(name);
+        if (strategy == null) {
+            throw new IllegalArgumentException("No animation registered with name " + name);
+        }
+        setAnimation(strategy);
+    }
+
+    /**
+     * Set the animation used to morph the FloatingActionButton into this FloatingToolbar.
+     *
+     * @param strategy strategy that creates the animator
+     * @throws IllegalStateException if the morph animation is running
+     */
+    public void setAnimation(FloatingAnimationStrategy strategy) {
+        if (isAnimating()) {
+            throw new IllegalStateException("The animation can't be changed during a morph.");
+        }
+        mAnimationStrategy = strategy;
+        setAnimator(strategy);
+    }
+
+    /**
+     * Set the durations and delays of the morph animations.
+     * The default value is {@link FloatingTimingProfile#DEFAULT}.
+     * <p>
+     * The profile is kept if the animation changes, but custom animators might ignore it.
+     * </p>
+     *
+     * @param profile one of the profiles in FloatingTimingProfile or a custom one
+     */
+    public void setTimingProfile(FloatingTimingProfile profile) {
+        mAnimator.setTimingProfile(profile);
+    }
+
+    public FloatingTimingProfile getTimingProfile() {
+        return mAnimator.getTimingProfile();
+    }
+
+    /**
+     * Set how the delay that's added to the morph on larger layouts is computed.
+     * The default model is a {@link FloatingDistanceDelayModel}.
+     *
+     * @param delayModel model that computes the delay from the travel of the morph
+     */
+    public void setDelayModel(FloatingDelayModel delayModel) {
+        mAnimator.setDelayModel(delayModel);
+    }
+
+    public FloatingDelayModel getDelayModel() {
+        return mAnimator.getDelayModel();
+    }
+
+    /**
+     * Let this FloatingToolbar use a cheaper animation when needed:
+     * {@link FloatingAnimations#INSTANT} if animations are disabled in the system settings
+     * and {@link FloatingAnimations#REDUCED} on low RAM devices. The default value is false.
+     *
+     * @param enable true if the animation should be picked automatically
+     */
+    public void enableAdaptiveAnimation(boolean enable) {
+        mAdaptiveAnimation = enable;
+        if (!enable && !isAnimating()) {
+            setAnimator(mAnimationStrategy);
+        }
+    }
+
+    /**
+     * @return true if a cheaper animation is used when needed
+     */
+    public boolean isAdaptiveAnimationEnabled() {
+        return mAdaptiveAnimation;
+    }
+
     /**
      * @return true if the FloatingToolbar is being shown automatically
      * by handling FloatingActionButton clicks.
@@ -220,9 +705,11 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
 
     /**
      * @return The custom view associated to this FloatingToolbar, or null if there's none.
+     * If the content is lazy, this creates the custom view.
      */
     @Nullable
     public View getCustomView() {
+        createContent();
         return mCustomView;
     }
 
@@ -241,6 +728,7 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
      */
     public void setCustomView(View view) {
         removeAllViews();
+        mContentCreated = true;
         mCustomView = view;
         mAnimator.setContentView(mCustomView);
         addView(view);
@@ -252,9 +740,72 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
      * @param menuRes menu resource to be set
      */
     public void setMenu(@MenuRes int menuRes) {
-        mMenu = new MenuBuilder(getContext());
-        new SupportMenuInflater(getContext()).inflate(menuRes, mMenu);
-        setMenu(mMenu);
+        setMenu(FloatingMenuCache.obtain(getContext(), menuRes));
+    }
+
+    /**
+     * Inflate a menu resource in a background thread,
+     * so that the next FloatingToolbar using it doesn't need to do it in the main thread.
+     * <p>
+     * Call this on the main thread, before setting the content view of the Activity
+     * that contains the FloatingToolbar. A preloaded menu is only used once,
+     * by a FloatingToolbar whose Context has the same theme as the given Context.
+     * If it's needed before the inflation finishes, it's inflated again in the main thread.
+     * Preloaded menus that aren't used are kept until {@link #clearPreloadedMenus()}.
+     * </p>
+     *
+     * @param context Context whose theme is used to inflate the menu resource
+     * @param menuRes menu resource to be preloaded
+     */
+    public static void preloadMenu(Context context, @MenuRes int menuRes) {
+        FloatingMenuCache.preload(context, menuRes);
+    }
+
+    /**
+     * Remove the preloaded menus that weren't used yet.
+     */
+    public static void clearPreloadedMenus() {
+        FloatingMenuCache.clear();
+    }
+
+    /**
+     * Remove the icons kept for the menus built from resources
+     * or with {@link FloatingToolbarMenuBuilder}.
+     */
+    public static void clearIconCache() {
+        FloatingIconCache.clear();
+    }
+
+    /**
+     * Tint the icons of every menu item, including the overflow button.
+     * <p>
+     * The tint is applied by the item views, so the icons are never mutated
+     * and a state list can be used, e.g, to tint disabled items differently.
+     * </p>
+     *
+     * @param tint ColorStateList to be applied or null to remove the tint
+     */
+    public void setItemTint(@Nullable ColorStateList tint) {
+        mItemTint = tint;
+        if (mMenuLayout != null) {
+            for (int i = 0; i < mMenuLayout.getChildCount(); i++) {
+                ImageViewCompat.setImageTintList((ImageView) mMenuLayout.getChildAt(i), tint);
+            }
+        }
+        if (mOverflowButton != null) {
+            ImageViewCompat.setImageTintList(mOverflowButton, tint);
+        }
+        if (mMenuAdapter != null) {
+            mMenuAdapter.notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * @return the tint applied to the icons of the menu items
+     */
+    @Nullable
+    public ColorStateList getItemTint() {
+        return mItemTint;
     }
 
     /**
@@ -263,33 +814,82 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
      * @param menu menu to be set
      */
     public void setMenu(Menu menu) {
+        setMenu(menu, false);
+    }
+
+    /**
+     * Set a menu that'll be used to show a set of options using icons.
+     * <p>
+     * Only the views of the items that were added, removed, moved or changed are updated.
+     * </p>
+     *
+     * @param menu    menu to be set
+     * @param animate true if the changes should be animated
+     */
+    public void setMenu(Menu menu, boolean animate) {
         mMenu = menu;
+        // The queued click might be for an item that's gone
+        mPendingClick = null;
+        if (!mContentCreated) {
+            // The views will be created when they're needed
+            return;
+        }
+        if (mScrollableMenu) {
+            if (mMenuRecyclerView == null) {
+                createMenuRecyclerView();
+            }
+            mMenuAdapter.setMenu(mMenu);
+            updateScrollableItemWidth(getWidth() - getPaddingLeft() - getPaddingRight());
+            mAnimator.setContentView(mMenuRecyclerView);
+            return;
+        }
         if (mMenuLayout == null) {
             createMenuLayout();
+        } else if (animate && ViewCompat.isLaidOut(mMenuLayout)) {
+            if (mMenuTransition == null) {
+                mMenuTransition = new AutoTransition();
+                mMenuTransition.addListener(mMenuTransitionListener);
+            }
+            mMenuTransitionPending = true;
+            TransitionManager.beginDelayedTransition(mMenuLayout, mMenuTransition);
         }
-        mMenuLayout.removeAllViews();
         addMenuItems();
         mAnimator.setContentView(mMenuLayout);
     }
 
+    /**
+     * Update the views after the items of the current menu were changed,
+     * e.g, after changing the visibility or icon of an item returned by {@link #getMenu()}
+     *
+     * @param animate true if the changes should be animated
+     */
+    public void updateMenu(boolean animate) {
+        if (mMenu != null) {
+            setMenu(mMenu, animate);
+        }
+    }
+
     /**
      * Attach an AppBarLayout to receive expand and collapse events
-     * to adjust the FloatingActionButton position correctly
+     * to adjust the FloatingActionButton position correctly.
+     * <p>
+     * The {@link Behavior} of the FloatingToolbar already follows the AppBarLayouts
+     * of its CoordinatorLayout, so this is only needed if it uses another Behavior.
+     * </p>
      *
      * @param appBar AppBarLayout to be attached
      */
     public void attachAppBarLayout(AppBarLayout appBar) {
         if (appBar != null) {
+            detachAppBarLayout();
             mAppBar = appBar;
-            mAppBar.addOnOffsetChangedListener(mAnimator);
-            mAnimator.setAppBarLayout(mAppBar);
+            mAppBar.addOnOffsetChangedListener(mAppBarListener);
         }
     }
 
     public void detachAppBarLayout() {
         if (mAppBar != null) {
-            mAppBar.removeOnOffsetChangedListener(mAnimator);
-            mAnimator.setAppBarLayout(null);
+            mAppBar.removeOnOffsetChangedListener(mAppBarListener);
             mAppBar = null;
         }
     }
@@ -320,45 +920,231 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
      * <p>This will disable the auto morph on click.</p>
      */
     public void detachFab() {
-        mAnimator.setFab(null);
         if (mFab != null) {
+            mAnimator.removeFab(mFab);
             mFab.setOnClickListener(null);
             mFab = null;
         }
     }
 
+    /**
+     * Observe the layout of a fab that might be attached later,
+     * so that attaching it doesn't need to register anything
+     */
+    void prepareFab(FloatingActionButton fab) {
+        mAnimator.addFab(fab);
+    }
+
+    /**
+     * Stop observing a fab passed to {@link #prepareFab(FloatingActionButton)}
+     */
+    void releaseFab(FloatingActionButton fab) {
+        mAnimator.removeFab(fab);
+        if (fab == mFab) {
+            mFab = null;
+        }
+    }
+
     /**
      * Attach a RecyclerView to hide this FloatingToolbar automatically when a scroll is detected.
+     * <p>
+     * The FloatingToolbar is hidden when the RecyclerView is scrolled forward by a small distance
+     * or quickly, either by the user, a fling or a programmatic scroll.
+     * </p>
      *
      * @param recyclerView RecyclerView to listen for scroll events
      */
     public void attachRecyclerView(RecyclerView recyclerView) {
         if (recyclerView != null) {
-            mRecyclerView = recyclerView;
-            mRecyclerView.addOnScrollListener(mScrollListener);
+            attachScrollSource(new FloatingScrollSource.RecyclerViewSource(recyclerView));
         }
     }
 
     /**
-     * Detach the current RecyclerView to stop hiding automatically this FloatingToolbar
+     * Detach the attached RecyclerViews to stop hiding automatically this FloatingToolbar
      * when a scroll is detected.
      */
     public void detachRecyclerView() {
-        if (mRecyclerView != null) {
-            mRecyclerView.removeOnScrollListener(mScrollListener);
-            mRecyclerView = null;
+        for (int i = mScrollSources.size() - 1; i >= 0; i--) {
+            if (mScrollSources.get(i) instanceof FloatingScrollSource.RecyclerViewSource) {
+                detachScrollSource(mScrollSources.get(i));
+            }
         }
     }
 
+    /**
+     * Attach a NestedScrollView to hide this FloatingToolbar automatically
+     * when a scroll is detected.
+     * <p>
+     * NestedScrollView only supports one OnScrollChangeListener, so it's replaced
+     * until the NestedScrollView is detached, when it's set to null.
+     * Pass a delegate to
+     * {@link #attachNestedScrollView(NestedScrollView, NestedScrollView.OnScrollChangeListener)}
+     * to keep receiving the scroll changes.
+     * </p>
+     *
+     * @param scrollView NestedScrollView to listen for scroll events
+     */
+    public void attachNestedScrollView(NestedScrollView scrollView) {
+        attachNestedScrollView(scrollView, null);
+    }
+
+    /**
+     * Attach a NestedScrollView to hide this FloatingToolbar automatically
+     * when a scroll is detected.
+     * <p>
+     * NestedScrollView only supports one OnScrollChangeListener, so it's replaced
+     * by one that also calls the given delegate. Don't set another listener while
+     * the NestedScrollView is attached. The delegate is set as its listener when it's detached.
+     * </p>
+     *
+     * @param scrollView NestedScrollView to listen for scroll events
+     * @param delegate   listener that also receives the scroll changes, or null for none
+     */
+    public void attachNestedScrollView(NestedScrollView scrollView,
+                                       @Nullable NestedScrollView.OnScrollChangeListener delegate) {
+        if (scrollView != null) {
+            attachScrollSource(new FloatingScrollSource.NestedScrollViewSource(scrollView,
+                    delegate));
+        }
+    }
+
+    /**
+     * Attach a ListView or GridView to hide this FloatingToolbar automatically
+     * when a scroll is detected.
+     * <p>
+     * AbsListView only supports one OnScrollListener, so it's replaced
+     * until the AbsListView is detached, when it's set to null.
+     * Pass a delegate to {@link #attachListView(AbsListView, AbsListView.OnScrollListener)}
+     * to keep receiving the scroll events.
+     * </p>
+     *
+     * @param listView AbsListView to listen for scroll events
+     */
+    public void attachListView(AbsListView listView) {
+        attachListView(listView, null);
+    }
+
+    /**
+     * Attach a ListView or GridView to hide this FloatingToolbar automatically
+     * when a scroll is detected.
+     * <p>
+     * AbsListView only supports one OnScrollListener, so it's replaced
+     * by one that also calls the given delegate. Don't set another listener while
+     * the AbsListView is attached. The delegate is set as its listener when it's detached.
+     * </p>
+     *
+     * @param listView AbsListView to listen for scroll events
+     * @param delegate listener that also receives the scroll events, or null for none
+     */
+    public void attachListView(AbsListView listView,
+                               @Nullable AbsListView.OnScrollListener delegate) {
+        if (listView != null) {
+            attachScrollSource(new FloatingScrollSource.ListViewSource(listView, delegate));
+        }
+    }
+
+    /**
+     * Attach a ViewPager to hide this FloatingToolbar automatically
+     * when the user swipes between pages.
+     * <p>
+     * To react to the scroll of the pages, use {@link #setNestedScrollAutoHide(boolean)}
+     * instead of attaching each page.
+     * </p>
+     *
+     * @param viewPager ViewPager to listen for page changes
+     */
+    public void attachViewPager(ViewPager viewPager) {
+        if (viewPager != null) {
+            attachScrollSource(new FloatingScrollSource.ViewPagerSource(viewPager));
+        }
+    }
+
+    /**
+     * Attach a custom source of scroll events to hide this FloatingToolbar automatically.
+     * If there's already a source attached for the same view, it's replaced.
+     *
+     * @param source FloatingScrollSource to be attached
+     */
+    public void attachScrollSource(FloatingScrollSource source) {
+        detachScrollView(source.getView());
+        mScrollSources.add(source);
+        source.attach(mScrollController);
+    }
+
+    /**
+     * Detach a source of scroll events previously attached
+     *
+     * @param source FloatingScrollSource to be detached
+     */
+    public void detachScrollSource(FloatingScrollSource source) {
+        if (mScrollSources.remove(source)) {
+            source.detach();
+            if (mScrollSources.isEmpty()) {
+                mScrollController.cancel();
+            }
+        }
+    }
+
+    /**
+     * Stop listening to the scroll events of a view previously attached
+     *
+     * @param view scrolling view to be detached
+     */
+    public void detachScrollView(View view) {
+        for (int i = mScrollSources.size() - 1; i >= 0; i--) {
+            if (mScrollSources.get(i).getView() == view) {
+                detachScrollSource(mScrollSources.get(i));
+            }
+        }
+    }
+
+    /**
+     * Control whether this FloatingToolbar should be hidden automatically when a scrolling view
+     * in the same CoordinatorLayout dispatches nested scroll events,
+     * like RecyclerView or NestedScrollView. The default value is false.
+     * <p>
+     * The scrolling views don't need to be attached,
+     * so this also works for the pages of a ViewPager.
+     * A view that is attached shouldn't dispatch nested scroll events too,
+     * or its scroll is counted twice.
+     * </p>
+     *
+     * @param enable true if nested scroll events should hide this FloatingToolbar
+     */
+    public void setNestedScrollAutoHide(boolean enable) {
+        mNestedScrollAutoHide = enable;
+    }
+
+    /**
+     * @return true if nested scroll events hide this FloatingToolbar
+     */
+    public boolean isNestedScrollAutoHide() {
+        return mNestedScrollAutoHide;
+    }
+
     /**
      * Add a morph listener to listen for animation events
      *
      * @param listener MorphListener to be added
      */
     public void addMorphListener(MorphListener listener) {
-        if (!mMorphListeners.contains(listener)) {
-            mMorphListeners.add(listener);
-        }
+        addMorphListener(listener, PHASE_ALL);
+    }
+
+    /**
+     * Add a morph listener that is only notified of some phases of the animation.
+     * <p>
+     * Listeners can be added or removed while they're being notified.
+     * The changes only apply to the next events.
+     * </p>
+     *
+     * @param listener MorphListener to be added. If it was already added, its phases are updated
+     * @param phases   combination of {@link #PHASE_MORPH_START}, {@link #PHASE_MORPH_END},
+     *                 {@link #PHASE_UNMORPH_START} and {@link #PHASE_UNMORPH_END}
+     */
+    public void addMorphListener(MorphListener listener, int phases) {
+        mMorphListeners.add(listener, phases);
     }
 
     /**
@@ -377,9 +1163,45 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
         mMorphListeners.clear();
     }
 
+    /**
+     * Set a listener that receives the performance data of each morph animation,
+     * e.g, to send it to an analytics service.
+     *
+     * @param listener MorphMetricsListener to be set, or null to stop measuring the animations
+     */
+    public void setMorphMetricsListener(@Nullable MorphMetricsListener listener) {
+        if (mMetricsRecorder != null) {
+            mMetricsRecorder.finish(true);
+        }
+        mMetricsRecorder = listener == null ? null
+                : new MorphMetricsRecorder(mFrameSource, listener);
+    }
+
+    /**
+     * Replace the source of the frames used by the scroll handling, the morph delay
+     * and the metrics, e.g, with a fake one that tests can step frame by frame.
+     * Animators set later receive it too.
+     */
+    void setFrameSource(FloatingFrameSource frameSource) {
+        mFrameSource = frameSource;
+        mScrollController.setFrameSource(frameSource);
+        mAnimator.setFrameSource(frameSource);
+        if (mMetricsRecorder != null) {
+            mMetricsRecorder.setFrameSource(frameSource);
+        }
+    }
+
+    FloatingFrameSource getFrameSource() {
+        return mFrameSource;
+    }
+
     /**
      * This method will automatically morph the attached FloatingActionButton
      * into this FloatingToolbar.
+     * <p>
+     * If the FloatingToolbar is being morphed into the FloatingActionButton,
+     * that animation is reversed from where it is.
+     * </p>
      *
      * @throws IllegalStateException if there's no FloatingActionButton attached
      */
@@ -389,7 +1211,18 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
                     "Please, use attachFab(FloatingActionButton fab).");
         }
 
-        if (mAnimating || mShowing) {
+        if (isMorphProgressActive()) {
+            settleMorph(true, 0f);
+            return;
+        }
+
+        if (isShowing()) {
+            return;
+        }
+
+        // Reverse the unmorph animation from where it is
+        if (mState == STATE_HIDING) {
+            dispatchShow();
             return;
         }
 
@@ -402,6 +1235,10 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
 
     /**
      * This method will automatically morph the FloatingToolbar into the attached FloatingActionButton
+     * <p>
+     * If the FloatingActionButton is being morphed into the FloatingToolbar,
+     * that animation is reversed from where it is.
+     * </p>
      *
      * @throws IllegalStateException if there's no FloatingActionButton attached
      */
@@ -411,8 +1248,12 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
                     "Please, use attachFab(FloatingActionButton fab).");
         }
 
-        if (mShowing && !mAnimating) {
-
+        if (isMorphProgressActive()) {
+            settleMorph(false, 0f);
+        } else if (mState == STATE_SHOWING) {
+            // Reverse the morph animation from where it is
+            dispatchHide();
+        } else if (mState == STATE_SHOWN) {
             if (mSnackBarManager.hasSnackBar()) {
                 mSnackBarManager.dismissAndHide();
             } else {
@@ -423,23 +1264,43 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
 
     @Override
     public void onClick(View v) {
-        if (!mShowing || mAnimating) {
-            return;
+        if (isInputAccepted()) {
+            dispatchItemClick((MenuItem) v.getTag());
+        } else if (mInputPolicy == INPUT_POLICY_QUEUE && mState == STATE_SHOWING
+                && mPendingClick == null) {
+            mPendingClick = (MenuItem) v.getTag();
         }
+    }
 
+    /**
+     * @return true if the items can be clicked, according to the input policy
+     */
+    private boolean isInputAccepted() {
+        if (mState == STATE_SHOWN) {
+            return true;
+        }
+        if (mInputPolicy != INPUT_POLICY_THRESHOLD || mState != STATE_SHOWING) {
+            return false;
+        }
+        // The items fade with the FloatingToolbar too, e.g, in the reduced animation
+        View contentView = mAnimator.getContentView();
+        float alpha = getAlpha() * (contentView == null ? 1f : contentView.getAlpha());
+        return alpha >= INPUT_ALPHA_THRESHOLD;
+    }
+
+    private void dispatchItemClick(MenuItem item) {
         if (mAutoHide) {
             hide();
         }
 
         if (mClickListener != null) {
-            MenuItem item = (MenuItem) v.getTag();
             mClickListener.onItemClick(item);
         }
     }
 
     @Override
     public boolean onLongClick(View v) {
-        if (!mShowing || mAnimating) {
+        if (!isInputAccepted()) {
             return false;
         }
 
@@ -460,16 +1321,132 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
         }
     }
 
-    @Override
-    public void onAnimationFinished() {
-        mAnimating = false;
-        if (!mShowing) {
-            for (MorphListener morphListener : mMorphListeners) {
-                morphListener.onUnmorphEnd();
+    /**
+     * Place the morph at the given progress, e.g, to follow a drag gesture.
+     * <p>
+     * The position of every view only depends on the progress, so it can go in any direction.
+     * A running animation stops where it is and the morph continues from there.
+     * Call {@link #settleMorph(boolean, float)} when the gesture ends.
+     * </p>
+     *
+     * @param progress value between 0, the fab, and 1, the FloatingToolbar
+     * @throws IllegalStateException if there's no FloatingActionButton attached
+     */
+    public void setMorphProgress(float progress) {
+        if (mFab == null) {
+            throw new IllegalStateException("FloatingActionButton not attached." +
+                    "Please, use attachFab(FloatingActionButton fab).");
+        }
+
+        if (mState != STATE_DRAGGING) {
+            createContent();
+            mMorphProgress.cancel();
+            mAnimator.abort();
+            if (mMetricsRecorder != null) {
+                mMetricsRecorder.finish(true);
+            }
+            if (mOverflowPopup != null) {
+                mOverflowPopup.dismiss();
+            }
+
+            // A drag that interrupts a morph continues it, so its start isn't dispatched again
+            int state = mState;
+            if (state == STATE_HIDDEN) {
+                mAnimator.saveFabTranslation();
+            }
+            mDragFromShown = state == STATE_SHOWN || state == STATE_HIDING;
+            mState = STATE_DRAGGING;
+            mAnimator.applyLayers();
+            if (state == STATE_HIDDEN) {
+                mMorphListeners.dispatch(PHASE_MORPH_START);
+            } else if (state == STATE_SHOWN) {
+                mMorphListeners.dispatch(PHASE_UNMORPH_START);
+            }
+        }
+
+        mMorphProgress.apply(progress);
+    }
+
+    /**
+     * @return the progress of the morph, from 0, the fab, to 1, the FloatingToolbar
+     */
+    public float getMorphProgress() {
+        if (mState == STATE_DRAGGING || mMorphProgress.isSettling()) {
+            return mMorphProgress.getProgress();
+        }
+        return isShowing() ? 1f : 0f;
+    }
+
+    /**
+     * Finish a morph driven by {@link #setMorphProgress(float)}.
+     * A spring moves the views from where they are to the FloatingToolbar or to the fab,
+     * starting with the velocity of the gesture.
+     * <p>
+     * If the morph isn't being driven by a progress,
+     * this is the same as calling {@link #show()} or {@link #hide()}.
+     * </p>
+     *
+     * @param show     true to end with the FloatingToolbar shown, false to end with the fab
+     * @param velocity velocity of the gesture, in progress per second
+     */
+    public void settleMorph(boolean show, float velocity) {
+        if (!isMorphProgressActive()) {
+            if (show) {
+                show();
+            } else {
+                hide();
             }
+            return;
+        }
+
+        // Going back to where the morph started is the opposite morph
+        boolean reversed;
+        if (mState == STATE_DRAGGING) {
+            reversed = show == mDragFromShown;
         } else {
-            for (MorphListener morphListener : mMorphListeners) {
-                morphListener.onMorphEnd();
+            reversed = show != (mState == STATE_SHOWING);
+        }
+
+        mState = show ? STATE_SHOWING : STATE_HIDING;
+        if (!show) {
+            mPendingClick = null;
+        }
+        mMorphProgress.settle(show, velocity);
+        if (reversed) {
+            mMorphListeners.dispatch(show ? PHASE_MORPH_START : PHASE_UNMORPH_START);
+        }
+    }
+
+    private boolean isMorphProgressActive() {
+        return mState == STATE_DRAGGING || mMorphProgress.isSettling();
+    }
+
+    FloatingAnimator getAnimator() {
+        return mAnimator;
+    }
+
+    FloatingItemViewPool getItemViewPool() {
+        return mItemViewPool;
+    }
+
+    @Override
+    public void onAnimationFinished() {
+        mAnimator.restoreLayers();
+        if (mMetricsRecorder != null) {
+            mMetricsRecorder.finish(false);
+        }
+        if (mState == STATE_HIDING) {
+            mState = STATE_HIDDEN;
+            mMorphListeners.dispatch(PHASE_UNMORPH_END);
+        } else if (mState == STATE_SHOWING) {
+            mState = STATE_SHOWN;
+            mMorphListeners.dispatch(PHASE_MORPH_END);
+
+            // Cleared before the delivery so that it can't happen twice
+            MenuItem item = mPendingClick;
+            mPendingClick = null;
+            if (item != null && mState == STATE_SHOWN) {
+                dispatchItemClick(item);
             }
         }
     }
@@ -480,39 +1457,403 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
      * @param snackbar Snackbar to be shown
      */
     public void showSnackBar(Snackbar snackbar) {
-        mSnackBarManager.showSnackBar(snackbar);
+        showSnackBar(snackbar, SNACKBAR_PRIORITY_NORMAL);
+    }
+
+    /**
+     * Show a snackbar behind the floating toolbar if it's showing.
+     * <p>
+     * Snackbars are queued and shown one at a time, by priority and then by order,
+     * after the current morph animation ends.
+     * A snackbar with the same text of one that's shown or queued is ignored.
+     * A snackbar with a higher priority than the one that's shown dismisses it.
+     * </p>
+     *
+     * @param snackbar Snackbar to be shown
+     * @param priority {@link #SNACKBAR_PRIORITY_LOW}, {@link #SNACKBAR_PRIORITY_NORMAL}
+     *                 or {@link #SNACKBAR_PRIORITY_HIGH}
+     */
+    public void showSnackBar(Snackbar snackbar, int priority) {
+        mSnackBarManager.showSnackBar(snackbar, priority);
     }
 
     /**
-     * Place the menu items with icons inside a horizontal LinearLayout
+     * Limit how often the snackbars shown with {@link #showSnackBar(Snackbar, int)} appear.
+     * The default value is 0.
+     *
+     * @param interval minimum time in milliseconds between two snackbars being shown
+     */
+    public void setSnackBarInterval(long interval) {
+        mSnackBarManager.setMinInterval(interval);
+    }
+
+    /**
+     * Place the menu items with icons inside a horizontal LinearLayout.
+     * <p>
+     * The current views are matched by item id against the visible items of the menu,
+     * so only the views of the items that were added, removed, moved or changed are touched.
+     * </p>
      */
     private void addMenuItems() {
 
         if (mMenu == null) {
-            mMenu = new MenuBuilder(getContext());
-            new SupportMenuInflater(getContext()).inflate(mMenuRes, mMenu);
+            mMenu = FloatingMenuCache.obtain(getContext(), mMenuRes);
         }
 
-        LinearLayoutCompat.LayoutParams layoutParams
-                = new LinearLayoutCompat.LayoutParams(LayoutParams.WRAP_CONTENT,
-                LayoutParams.MATCH_PARENT, 1);
+        int visibleItems = 0;
+        for (int i = 0; i < mMenu.size(); i++) {
+            if (mMenu.getItem(i).isVisible()) {
+                visibleItems++;
+            }
+        }
+
+        // Keep the last slot for the overflow button if not every item fits
+        int rowItems = visibleItems > mItemSlots ? mItemSlots - 1 : visibleItems;
+        boolean overflow = rowItems < visibleItems;
 
-        setWeightSum(mMenu.size());
+        // Only the items in the row take space
+        mMenuLayout.setWeightSum(overflow ? rowItems + 1 : rowItems);
 
+        if (mOverflowButton != null && mOverflowButton.getParent() != null) {
+            mMenuLayout.removeView(mOverflowButton);
+        }
+        mOverflowItems.clear();
+        mOverflowChanged = true;
+        if (mOverflowPopup != null) {
+            // Its items would no longer match the overflow
+            mOverflowPopup.dismiss();
+        }
+
+        int position = 0;
         for (int i = 0; i < mMenu.size(); i++) {
             MenuItem item = mMenu.getItem(i);
-            if (item.isVisible()) {
-                AppCompatImageButton imageButton = new AppCompatImageButton(getContext());
+            if (!item.isVisible()) {
+                continue;
+            }
+
+            if (position == rowItems) {
+                mOverflowItems.add(item);
+                continue;
+            }
+
+            int currentPosition = findItemView(item, position);
+
+            if (currentPosition == -1) {
+                // New item
+                AppCompatImageButton imageButton = obtainItemView(item);
+                bindItemView(imageButton, item);
+                mMenuLayout.addView(imageButton, position, createItemLayoutParams());
+            } else {
+                AppCompatImageButton imageButton
+                        = (AppCompatImageButton) mMenuLayout.getChildAt(currentPosition);
+                if (currentPosition != position) {
+                    // Moved item
+                    mMenuLayout.removeViewAt(currentPosition);
+                    mMenuLayout.addView(imageButton, position);
+                }
+                bindItemView(imageButton, item);
+            }
+            position++;
+        }
+
+        // Keep the views of the removed items for the next menu
+        for (int i = mMenuLayout.getChildCount() - 1; i >= position; i--) {
+            View view = mMenuLayout.getChildAt(i);
+            mMenuLayout.removeViewAt(i);
+            if (isMenuTransitionActive()) {
+                // The transition adds it to the overlay, so it can't be added anywhere else yet
+                mLeavingViews.add(view);
+            } else {
+                mItemViewPool.put(FloatingItemViewPool.TYPE_ITEM, view);
+            }
+        }
+
+        if (overflow) {
+            if (mOverflowButton == null) {
+                mOverflowButton = new AppCompatImageButton(getContext());
+                mOverflowButton.setBackgroundResource(mItemBackground);
+                mOverflowButton.setImageDrawable(AppCompatResources.getDrawable(getContext(),
+                        R.drawable.abc_ic_menu_overflow_material));
+                mOverflowButton.setContentDescription(getResources()
+                        .getString(R.string.abc_action_menu_overflow_description));
+                mOverflowButton.setOnClickListener(mOverflowClickListener);
+                ImageViewCompat.setImageTintList(mOverflowButton, mItemTint);
+            }
+            mMenuLayout.addView(mOverflowButton, createItemLayoutParams());
+        }
+    }
+
+    private boolean isMenuTransitionActive() {
+        return mMenuTransitionPending || mMenuTransitionsRunning > 0;
+    }
+
+    /**
+     * Pool the views that were faded out by the menu transitions.
+     * Views that are still in an overlay aren't pooled.
+     */
+    private void recycleLeavingViews() {
+        for (int i = 0; i < mLeavingViews.size(); i++) {
+            View view = mLeavingViews.get(i);
+            if (view.getParent() == null) {
+                mItemViewPool.put(FloatingItemViewPool.TYPE_ITEM, view);
+            }
+        }
+        mLeavingViews.clear();
+    }
+
+    /**
+     * Show the items that don't fit in a popup, which is only created the first time
+     */
+    private void showOverflowPopup() {
+        if (mOverflowPopup == null) {
+            mOverflowPopup = new PopupMenu(getContext(), mOverflowButton);
+            mOverflowPopup.setOnMenuItemClickListener(mOverflowItemClickListener);
+        }
+        if (mOverflowChanged) {
+            mOverflowChanged = false;
+            Menu menu = mOverflowPopup.getMenu();
+            menu.clear();
+            for (int i = 0; i < mOverflowItems.size(); i++) {
+                MenuItem item = mOverflowItems.get(i);
+                menu.add(Menu.NONE, i, i, item.getTitle()).setEnabled(item.isEnabled());
+            }
+        }
+        mOverflowPopup.show();
+    }
+
+    /**
+     * Find the view that's bound to the given item, starting at the given position
+     *
+     * @return the position of the view or -1 if there's none
+     */
+    private int findItemView(MenuItem item, int start) {
+        int childCount = mMenuLayout.getChildCount();
+        for (int i = start; i < childCount; i++) {
+            View view = mMenuLayout.getChildAt(i);
+            MenuItem boundItem = (MenuItem) view.getTag();
+            if (boundItem == item || (item.getItemId() != Menu.NONE
+                    && boundItem.getItemId() == item.getItemId())) {
+                return i;
+            }
+        }
+        // Reuse the view at this position if it belongs to an item that's no longer visible
+        if (start < childCount) {
+            MenuItem boundItem = (MenuItem) mMenuLayout.getChildAt(start).getTag();
+            if (!isVisibleInMenu(boundItem)) {
+                return start;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isVisibleInMenu(MenuItem item) {
+        for (int i = 0; i < mMenu.size(); i++) {
+            MenuItem menuItem = mMenu.getItem(i);
+            if (menuItem.isVisible() && (menuItem == item || (item.getItemId() != Menu.NONE
+                    && menuItem.getItemId() == item.getItemId()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LinearLayoutCompat.LayoutParams createItemLayoutParams() {
+        return new LinearLayoutCompat.LayoutParams(LayoutParams.WRAP_CONTENT,
+                LayoutParams.MATCH_PARENT, 1);
+    }
+
+    private AppCompatImageButton obtainItemView(MenuItem item) {
+        AppCompatImageButton imageButton = (AppCompatImageButton)
+                mItemViewPool.get(FloatingItemViewPool.TYPE_ITEM, item.getItemId());
+        if (imageButton == null) {
+            imageButton = createItemView();
+        }
+        return imageButton;
+    }
+
+    AppCompatImageButton createItemView() {
+        AppCompatImageButton imageButton = new AppCompatImageButton(getContext());
+        imageButton.setBackgroundResource(mItemBackground);
+        imageButton.setOnClickListener(this);
+        imageButton.setOnLongClickListener(this);
+        return imageButton;
+    }
+
+    /**
+     * Bind an item to a view. Properties that didn't change aren't set again.
+     */
+    void bindItemView(AppCompatImageButton imageButton, MenuItem item) {
+        if (item.getItemId() != Menu.NONE) {
+            if (imageButton.getId() != item.getItemId()) {
                 //noinspection ResourceType
-                imageButton.setId(item.getItemId() == Menu.NONE ? genViewId() : item.getItemId());
-                imageButton.setBackgroundResource(mItemBackground);
-                imageButton.setImageDrawable(item.getIcon());
-                imageButton.setOnClickListener(this);
-                imageButton.setOnLongClickListener(this);
-                imageButton.setTag(item);
-                mMenuLayout.addView(imageButton, layoutParams);
+                imageButton.setId(item.getItemId());
+            }
+        } else if (imageButton.getId() == View.NO_ID
+                || mMenu.findItem(imageButton.getId()) != null) {
+            // Don't keep an id that now belongs to another item
+            imageButton.setId(genViewId());
+        }
+        if (imageButton.getDrawable() != item.getIcon()) {
+            imageButton.setImageDrawable(item.getIcon());
+        }
+        if (ImageViewCompat.getImageTintList(imageButton) != mItemTint) {
+            ImageViewCompat.setImageTintList(imageButton, mItemTint);
+        }
+        if (imageButton.isEnabled() != item.isEnabled()) {
+            imageButton.setEnabled(item.isEnabled());
+        }
+        if (!TextUtils.equals(imageButton.getContentDescription(), item.getTitle())) {
+            imageButton.setContentDescription(item.getTitle());
+        }
+        imageButton.setTag(item);
+    }
+
+    /**
+     * Replace the current animator with one created by the given strategy
+     */
+    private void setAnimator(FloatingAnimationStrategy strategy) {
+        if (strategy == mCurrentStrategy) {
+            return;
+        }
+
+        mCurrentStrategy = strategy;
+        FloatingAnimator animator = strategy.createAnimator(this);
+
+        // Move the current state to the new animator
+        animator.setContentView(mAnimator.getContentView());
+        animator.setHardwareLayersEnabled(mAnimator.isHardwareLayersEnabled());
+        animator.setTimingProfile(mAnimator.getTimingProfile());
+        animator.setDelayModel(mAnimator.getDelayModel());
+        animator.setFrameSource(mFrameSource);
+        animator.setFloatingAnimatorListener(this);
+        mAnimator.moveFabs(animator);
+        mAnimator = animator;
+    }
+
+    /**
+     * @return the strategy to be used in the next morph if the adaptive animation is enabled.
+     * The system is only queried again after an attach or a configuration change.
+     */
+    private FloatingAnimationStrategy getAdaptiveStrategy() {
+        if (!mAdaptiveStrategyValid) {
+            mAdaptiveStrategy = createAdaptiveStrategy();
+            mAdaptiveStrategyValid = true;
+        }
+        return mAdaptiveStrategy != null ? mAdaptiveStrategy : mAnimationStrategy;
+    }
+
+    /**
+     * @return the cheaper strategy that the system requires, or null if there's none
+     */
+    @Nullable
+    private FloatingAnimationStrategy createAdaptiveStrategy() {
+        FloatingAnimationStrategy strategy = null;
+        if (getDurationScale() == 0f) {
+            strategy = FloatingAnimations.get(FloatingAnimations.INSTANT);
+        } else {
+            ActivityManager activityManager
+                    = (ActivityManager) getContext().getSystemService(Context.ACTIVITY_SERVICE);
+            if (activityManager != null
+                    && ActivityManagerCompat.isLowRamDevice(activityManager)) {
+                strategy = FloatingAnimations.get(FloatingAnimations.REDUCED);
             }
         }
+        return strategy;
+    }
+
+    /**
+     * Create the views of the custom view or menu if they weren't created yet
+     */
+    private void createContent() {
+        if (mContentCreated) {
+            return;
+        }
+
+        mContentCreated = true;
+
+        if (mCustomViewRes != 0) {
+            mCustomView = LayoutInflater.from(getContext()).inflate(mCustomViewRes, this, false);
+            addView(mCustomView);
+            mAnimator.setContentView(mCustomView);
+        }
+
+        if (mMenu != null && mScrollableMenu) {
+            createMenuRecyclerView();
+            mMenuAdapter.setMenu(mMenu);
+            updateScrollableItemWidth(getWidth() - getPaddingLeft() - getPaddingRight());
+            mAnimator.setContentView(mMenuRecyclerView);
+        } else if (mMenu != null) {
+            createMenuLayout();
+            addMenuItems();
+            mAnimator.setContentView(mMenuLayout);
+        }
+    }
+
+    private void createMenuRecyclerView() {
+        mMenuAdapter = new FloatingMenuAdapter(this);
+        mMenuRecyclerView = new RecyclerView(getContext());
+        mMenuRecyclerView.setId(genViewId());
+        mMenuRecyclerView.setLayoutManager(new LinearLayoutManager(getContext(),
+                LinearLayoutManager.HORIZONTAL, false));
+        mMenuRecyclerView.setHasFixedSize(true);
+        mMenuRecyclerView.setOverScrollMode(View.OVER_SCROLL_NEVER);
+        mMenuRecyclerView.setHorizontalScrollBarEnabled(false);
+        mMenuRecyclerView.setAdapter(mMenuAdapter);
+        addView(mMenuRecyclerView,
+                new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+    }
+
+    /**
+     * Count again how many items fit in the row. If that changed,
+     * the items are placed again after this layout pass instead of during it.
+     *
+     * @param width width available for the items
+     */
+    private void updateItemSlots(int width) {
+        int slots = getItemSlots(width);
+        if (slots == mItemSlots) {
+            return;
+        }
+        mItemSlots = slots;
+        if (mMenuLayout != null) {
+            removeCallbacks(mRebindMenuRunnable);
+            post(mRebindMenuRunnable);
+        }
+    }
+
+    /**
+     * @return how many items with the minimum width fit in the given width
+     */
+    private int getItemSlots(int width) {
+        int itemWidth = getResources()
+                .getDimensionPixelSize(R.dimen.floatingtoolbar_item_min_width);
+        return Math.max(1, width / itemWidth);
+    }
+
+    /**
+     * Resize the items of the scrollable menu to the given width.
+     * The adapter only rebinds its views if their width changes.
+     *
+     * @param width width available for the items
+     */
+    private void updateScrollableItemWidth(int width) {
+        if (mMenuAdapter != null && width > 0) {
+            mMenuAdapter.setItemWidth(getScrollableItemWidth(width, mMenuAdapter.getItemCount()));
+        }
+    }
+
+    /**
+     * Items fill the width if they all fit.
+     * Otherwise, half of an item is left visible at the end to show that the menu scrolls.
+     */
+    private int getScrollableItemWidth(int width, int count) {
+        int itemWidth = getResources()
+                .getDimensionPixelSize(R.dimen.floatingtoolbar_item_min_width);
+        int slots = getItemSlots(width);
+        if (count <= slots) {
+            return count == 0 ? itemWidth : width / count;
+        }
+        return (int) (width / Math.max(1f, slots - 0.5f));
     }
 
     private void createMenuLayout() {
@@ -531,36 +1872,76 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
     }
 
     void dispatchShow() {
-        mShowing = true;
+        if (isMorphProgressActive()) {
+            settleMorph(true, 0f);
+            return;
+        }
+
+        createContent();
+
+        // The next scroll should hide the FloatingToolbar again
+        mScrollController.reset();
+
+        if (mAdaptiveAnimation && !isAnimating()) {
+            setAnimator(getAdaptiveStrategy());
+        }
 
         if (getWidth() == 0 && getHeight() == 0) {
+            // Nothing to animate yet, but the listeners still see a whole morph
+            mAnimator.abort();
+            mState = STATE_SHOWING;
+            mMorphListeners.dispatch(PHASE_MORPH_START);
             setVisibility(View.VISIBLE);
             if (mFab != null) {
                 mFab.setVisibility(View.INVISIBLE);
             }
+            mState = STATE_SHOWN;
+            mMorphListeners.dispatch(PHASE_MORPH_END);
         } else {
-            mAnimating = true;
+            if (mState == STATE_HIDDEN) {
+                mAnimator.saveFabTranslation();
+            }
+            mState = STATE_SHOWING;
+            mAnimator.applyLayers();
             mAnimator.show();
-            for (MorphListener morphListener : mMorphListeners) {
-                morphListener.onMorphStart();
+            if (mMetricsRecorder != null) {
+                mMetricsRecorder.start(true, mAnimator.getPlannedDuration(), mAnimator.getDelay());
             }
+            mMorphListeners.dispatch(PHASE_MORPH_START);
         }
     }
 
     void dispatchHide() {
-        mShowing = false;
+        if (isMorphProgressActive()) {
+            settleMorph(false, 0f);
+            return;
+        }
+
+        if (mOverflowPopup != null) {
+            mOverflowPopup.dismiss();
+        }
+        mPendingClick = null;
 
         if (getWidth() == 0 && getHeight() == 0) {
+            // Nothing to animate yet, but the listeners still see a whole unmorph
+            mAnimator.abort();
+            mState = STATE_HIDING;
+            mMorphListeners.dispatch(PHASE_UNMORPH_START);
             setVisibility(View.INVISIBLE);
             if (mFab != null) {
                 mFab.setVisibility(View.VISIBLE);
             }
+            mState = STATE_HIDDEN;
+            mMorphListeners.dispatch(PHASE_UNMORPH_END);
         } else {
+            mState = STATE_HIDING;
+            mAnimator.applyLayers();
             mAnimator.hide();
-            mAnimating = true;
-            for (MorphListener morphListener : mMorphListeners) {
-                morphListener.onUnmorphStart();
+            if (mMetricsRecorder != null) {
+                mMetricsRecorder.start(false, mAnimator.getPlannedDuration(),
+                        mAnimator.getDelay());
             }
+            mMorphListeners.dispatch(PHASE_UNMORPH_START);
         }
     }
 
@@ -589,11 +1970,163 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
         void onUnmorphEnd();
     }
 
+    /**
+     * MorphListener with empty methods, to override only the phases that are needed
+     */
+    public static class SimpleMorphListener implements MorphListener {
+        @Override
+        public void onMorphEnd() {
+
+        }
+
+        @Override
+        public void onMorphStart() {
+
+        }
+
+        @Override
+        public void onUnmorphStart() {
+
+        }
+
+        @Override
+        public void onUnmorphEnd() {
+
+        }
+    }
+
+    /**
+     * Interface to receive the performance data of the morph animations
+     */
+    public interface MorphMetricsListener {
+        void onMorphMetrics(MorphMetrics metrics);
+    }
+
+    /**
+     * Behavior that places the FloatingToolbar relative to the views of the CoordinatorLayout
+     * and keeps the morph in sync with the views that move the FloatingActionButtons:
+     * the AppBarLayout they might be anchored to, a Snackbar and the fabs themselves.
+     * <p>
+     * A FloatingToolbar at the bottom is moved above the Snackbars that cover it
+     * and one at the top is kept below the AppBarLayout while it collapses.
+     * The positions used by the morph are only computed again after one of them moves,
+     * in the same pass where the CoordinatorLayout updates its dependent views.
+     * </p>
+     * <p>
+     * It also hides the FloatingToolbar when a view of the CoordinatorLayout is scrolled,
+     * if {@link #setNestedScrollAutoHide(boolean)} is enabled.
+     * </p>
+     */
+    public static class Behavior extends CoordinatorLayout.Behavior<FloatingToolbar> {
+
+        public Behavior() {
+            super();
+        }
+
+        public Behavior(Context context, AttributeSet attrs) {
+            super(context, attrs);
+        }
+
+        @Override
+        public boolean layoutDependsOn(CoordinatorLayout parent, FloatingToolbar child,
+                                       View dependency) {
+            return dependency instanceof FloatingActionButton
+                    || dependency instanceof AppBarLayout
+                    || dependency instanceof Snackbar.SnackbarLayout;
+        }
+
+        @Override
+        public boolean onDependentViewChanged(CoordinatorLayout parent, FloatingToolbar child,
+                                              View dependency) {
+            boolean moved = false;
+            if (!(dependency instanceof FloatingActionButton)) {
+                moved = updateTranslation(parent, child, null);
+            }
+            // The fab is moved by the morph itself, so there's nothing to update
+            if (child.isAnimating()) {
+                return moved;
+            }
+            if (dependency instanceof FloatingActionButton) {
+                child.mAnimator.invalidateGeometry(dependency);
+            } else {
+                child.mAnimator.invalidateGeometry();
+            }
+            return moved;
+        }
+
+        @Override
+        public void onDependentViewRemoved(CoordinatorLayout parent, FloatingToolbar child,
+                                           View dependency) {
+            updateTranslation(parent, child, dependency);
+            if (!child.isAnimating()) {
+                child.mAnimator.invalidateGeometry();
+            }
+        }
+
+        /**
+         * Move the FloatingToolbar above the Snackbars that cover it
+         * and below the AppBarLayout if it's placed at the top
+         *
+         * @param removed dependency that's being removed, which no longer counts
+         * @return true if the FloatingToolbar moved
+         */
+        private boolean updateTranslation(CoordinatorLayout parent, FloatingToolbar child,
+                                          @Nullable View removed) {
+            CoordinatorLayout.LayoutParams params
+                    = (CoordinatorLayout.LayoutParams) child.getLayoutParams();
+            boolean atTop = (params.gravity & Gravity.VERTICAL_GRAVITY_MASK) == Gravity.TOP;
+            float translationY = 0f;
+            List<View> dependencies = parent.getDependencies(child);
+            for (int i = 0; i < dependencies.size(); i++) {
+                View view = dependencies.get(i);
+                if (view == removed) {
+                    continue;
+                }
+                if (view instanceof Snackbar.SnackbarLayout && !atTop && covers(view, child)) {
+                    translationY = Math.min(translationY,
+                            view.getTranslationY() - view.getHeight());
+                } else if (view instanceof AppBarLayout && atTop) {
+                    translationY = Math.max(translationY, view.getBottom() - child.getTop());
+                }
+            }
+            if (translationY == child.getTranslationY()) {
+                return false;
+            }
+            child.setTranslationY(translationY);
+            return true;
+        }
+
+        /**
+         * Compare the layout bounds, since the Snackbars shown by {@link #showSnackBar(Snackbar)}
+         * are laid out above the FloatingToolbar and don't need to move it
+         */
+        private static boolean covers(View snackbar, View child) {
+            return snackbar.getTop() < child.getBottom() && snackbar.getBottom() > child.getTop()
+                    && snackbar.getLeft() < child.getRight()
+                    && snackbar.getRight() > child.getLeft();
+        }
+
+        @Override
+        public boolean onStartNestedScroll(CoordinatorLayout coordinatorLayout,
+                                           FloatingToolbar child, View directTargetChild,
+                                           View target, int axes, int type) {
+            return child.isNestedScrollAutoHide()
+                    && (axes & ViewCompat.SCROLL_AXIS_VERTICAL) != 0;
+        }
+
+        @Override
+        public void onNestedScroll(CoordinatorLayout coordinatorLayout, FloatingToolbar child,
+                                   View target, int dxConsumed, int dyConsumed,
+                                   int dxUnconsumed, int dyUnconsumed, int type) {
+            child.mScrollController.onScrolled(dyConsumed);
+        }
+    }
+
     @Override
     protected Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
         SavedState state = new SavedState(superState);
-        state.morphed = mShowing;
+        state.morphed = isShowing();
         return state;
     }
 
@@ -609,7 +2142,8 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
         super.onRestoreInstanceState(savedState.getSuperState());
 
         if (savedState.morphed) {
-            mShowing = true;
+            mState = STATE_SHOWN;
+            createContent();
             ViewCompat.setTranslationZ(this,
                     getResources().getDimension(R.dimen.floatingtoolbar_translationz));
             setVisibility(View.VISIBLE);
@@ -667,8 +2201,32 @@ public class FloatingToolbar extends LinearLayoutCompat implements View.OnClickL
         }
     }
 
+    /**
+     * @return the animator duration scale, which is only read from the settings
+     * after this FloatingToolbar is attached or its configuration changes
+     */
+    float getDurationScale() {
+        if (mDurationScale < 0f) {
+            mDurationScale = getAnimatorDurationScale(getContext());
+        }
+        return mDurationScale;
+    }
+
     static float dpToPixels(Context context, int dp) {
         return dp * context.getResources().getDisplayMetrics().density;
     }
 
+    /**
+     * @return the animator duration scale set in the developer options, 0 if animations are off
+     */
+    static float getAnimatorDurationScale(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            return Settings.Global.getFloat(context.getContentResolver(),
+                    Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        }
+        //noinspection deprecation
+        return Settings.System.getFloat(context.getContentResolver(),
+                Settings.System.ANIMATOR_DURATION_SCALE, 1f);
+    }
+
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+
+import android.support.annotation.Nullable;
+import android.support.design.widget.FloatingActionButton;
+import android.support.v4.util.SimpleArrayMap;
+import android.view.View;
+
+/**
+ * Binds several FloatingActionButtons to one or more FloatingToolbars,
+ * so that each fab morphs into its own FloatingToolbar when it's clicked.
+ * <p>
+ * Only one FloatingToolbar is shown at a time. If a fab of another FloatingToolbar is clicked,
+ * the current one is hidden first and the new one is only shown after that animation ends.
+ * While a FloatingToolbar is shown, the other fabs bound to it are hidden.
+ * </p>
+ * <p>
+ * The layout of every bound fab is observed from the moment it's bound,
+ * so switching between them reuses their positions instead of measuring them again.
+ * </p>
+ */
+public class FloatingToolbarCoordinator {
+
+    private SimpleArrayMap<FloatingActionButton, FloatingToolbar> mToolbars;
+    private FloatingToolbar mActiveToolbar;
+    private FloatingActionButton mActiveFab;
+    private FloatingActionButton mPendingFab;
+
+    private View.OnClickListener mFabClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            show((FloatingActionButton) v);
+        }
+    };
+
+    private FloatingToolbar.MorphListener mMorphListener
+            = new FloatingToolbar.SimpleMorphListener() {
+        @Override
+        public void onUnmorphEnd() {
+            if (mActiveToolbar == null || mActiveToolbar.isShowing()) {
+                return;
+            }
+            setSiblingFabsVisible(true);
+            mActiveToolbar = null;
+            mActiveFab = null;
+            FloatingActionButton pendingFab = mPendingFab;
+            mPendingFab = null;
+            if (pendingFab != null) {
+                show(pendingFab);
+            }
+        }
+    };
+
+    public FloatingToolbarCoordinator() {
+        mToolbars = new SimpleArrayMap<>();
+    }
+
+    /**
+     * Morph the fab into the FloatingToolbar when it's clicked.
+     * <p>
+     * This replaces the OnClickListener of the fab
+     * and disables {@link FloatingToolbar#handleFabClick(boolean)}.
+     * </p>
+     *
+     * @param toolbar FloatingToolbar that the fab morphs into
+     * @param fab     FloatingActionButton to be bound
+     */
+    public void bind(FloatingToolbar toolbar, FloatingActionButton fab) {
+        unbind(fab);
+        mToolbars.put(fab, toolbar);
+        toolbar.handleFabClick(false);
+        toolbar.addMorphListener(mMorphListener, FloatingToolbar.PHASE_UNMORPH_END);
+        toolbar.prepareFab(fab);
+        fab.setOnClickListener(mFabClickListener);
+    }
+
+    /**
+     * Stop morphing the fab into its FloatingToolbar
+     *
+     * @param fab FloatingActionButton previously bound
+     */
+    public void unbind(FloatingActionButton fab) {
+        FloatingToolbar toolbar = mToolbars.remove(fab);
+        if (toolbar == null) {
+            return;
+        }
+        fab.setOnClickListener(null);
+        if (fab == mPendingFab) {
+            mPendingFab = null;
+        }
+        if (fab != mActiveFab) {
+            toolbar.releaseFab(fab);
+        }
+        if (!mToolbars.containsValue(toolbar)) {
+            toolbar.removeMorphListener(mMorphListener);
+        }
+    }
+
+    /**
+     * Morph a bound fab into its FloatingToolbar.
+     * If another FloatingToolbar is shown, it's hidden first.
+     *
+     * @param fab FloatingActionButton previously bound
+     */
+    public void show(FloatingActionButton fab) {
+        FloatingToolbar toolbar = mToolbars.get(fab);
+        if (toolbar == null) {
+            return;
+        }
+
+        if (mActiveToolbar != null) {
+            if (fab != mActiveFab) {
+                // Wait for the current FloatingToolbar to be hidden
+                mPendingFab = fab;
+                mActiveToolbar.hide();
+            }
+            return;
+        }
+
+        mActiveToolbar = toolbar;
+        mActiveFab = fab;
+        toolbar.attachFab(fab);
+        setSiblingFabsVisible(false);
+        toolbar.show();
+    }
+
+    /**
+     * Hide the FloatingToolbar that's shown
+     */
+    public void hide() {
+        mPendingFab = null;
+        if (mActiveToolbar != null) {
+            mActiveToolbar.hide();
+        }
+    }
+
+    /**
+     * @return the FloatingToolbar that's shown or being morphed
+     */
+    @Nullable
+    public FloatingToolbar getActiveToolbar() {
+        return mActiveToolbar;
+    }
+
+    /**
+     * @return the fab that's morphed into the active FloatingToolbar
+     */
+    @Nullable
+    public FloatingActionButton getActiveFab() {
+        return mActiveFab;
+    }
+
+    private void setSiblingFabsVisible(boolean visible) {
+        for (int i = 0; i < mToolbars.size(); i++) {
+            FloatingActionButton fab = mToolbars.keyAt(i);
+            if (fab != mActiveFab && mToolbars.valueAt(i) == mActiveToolbar) {
+                if (visible) {
+                    fab.show();
+                } else {
+                    fab.hide();
+                }
+            }
+        }
+    }
+}
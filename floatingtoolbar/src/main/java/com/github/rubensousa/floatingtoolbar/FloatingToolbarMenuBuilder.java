@@ -28,8 +28,10 @@ import android.view.Menu;
 public class FloatingToolbarMenuBuilder {
 
     private MenuBuilder menuBuilder;
+    private Context context;
 
     public FloatingToolbarMenuBuilder(Context context) {
+        this.context = context;
         menuBuilder = new MenuBuilder(context);
     }
 
@@ -45,17 +47,20 @@ public class FloatingToolbarMenuBuilder {
 
     public FloatingToolbarMenuBuilder addItem(int id, @DrawableRes int icon,
                                               @StringRes int title) {
-        menuBuilder.add(Menu.NONE, id, Menu.NONE, title).setIcon(icon);
+        menuBuilder.add(Menu.NONE, id, Menu.NONE, title)
+                .setIcon(FloatingIconCache.get(context, icon));
         return this;
     }
 
     public FloatingToolbarMenuBuilder addItem(int id, @DrawableRes int icon, String title) {
-        menuBuilder.add(Menu.NONE, id, Menu.NONE, title).setIcon(icon);
+        menuBuilder.add(Menu.NONE, id, Menu.NONE, title)
+                .setIcon(FloatingIconCache.get(context, icon));
         return this;
     }
 
     public FloatingToolbarMenuBuilder addItem(int id, @DrawableRes int icon) {
-        menuBuilder.add(Menu.NONE, id, Menu.NONE, "").setIcon(icon);
+        menuBuilder.add(Menu.NONE, id, Menu.NONE, "")
+                .setIcon(FloatingIconCache.get(context, icon));
         return this;
     }
 
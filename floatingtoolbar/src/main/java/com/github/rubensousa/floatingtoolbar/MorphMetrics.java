@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+/**
+ * Performance data of a single morph or unmorph animation.
+ * <p>
+ * Frames are counted from the first frame after the animation started
+ * until the animation finished or was interrupted.
+ * </p>
+ */
+public final class MorphMetrics {
+
+    private boolean mMorph;
+    private boolean mInterrupted;
+    private long mDuration;
+    private long mPlannedDuration;
+    private long mDelay;
+    private int mFrameCount;
+    private int mDroppedFrames;
+    private int mJankyFrames;
+
+    MorphMetrics(boolean morph, boolean interrupted, long duration, long plannedDuration,
+                 long delay, int frameCount, int droppedFrames, int jankyFrames) {
+        mMorph = morph;
+        mInterrupted = interrupted;
+        mDuration = duration;
+        mPlannedDuration = plannedDuration;
+        mDelay = delay;
+        mFrameCount = frameCount;
+        mDroppedFrames = droppedFrames;
+        mJankyFrames = jankyFrames;
+    }
+
+    /**
+     * @return true if the FloatingActionButton was morphed into the FloatingToolbar,
+     * false if the FloatingToolbar was morphed back into the FloatingActionButton
+     */
+    public boolean isMorph() {
+        return mMorph;
+    }
+
+    /**
+     * @return true if the animation didn't finish normally
+     */
+    public boolean isInterrupted() {
+        return mInterrupted;
+    }
+
+    /**
+     * @return wall time in milliseconds between the start and the end of the animation
+     */
+    public long getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * @return expected duration in milliseconds of the animation, including the delay
+     */
+    public long getPlannedDuration() {
+        return mPlannedDuration;
+    }
+
+    /**
+     * @return delay in milliseconds added to the animation due to the screen width
+     */
+    public long getDelay() {
+        return mDelay;
+    }
+
+    /**
+     * @return number of frames drawn during the animation
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return number of frames that were expected but weren't drawn
+     */
+    public int getDroppedFrames() {
+        return mDroppedFrames;
+    }
+
+    /**
+     * @return number of frames that took longer than 1.5 times the frame interval
+     */
+    public int getJankyFrames() {
+        return mJankyFrames;
+    }
+
+    @Override
+    public String toString() {
+        return "MorphMetrics{" +
+                "morph=" + mMorph +
+                ", interrupted=" + mInterrupted +
+                ", duration=" + mDuration +
+                ", plannedDuration=" + mPlannedDuration +
+                ", delay=" + mDelay +
+                ", frameCount=" + mFrameCount +
+                ", droppedFrames=" + mDroppedFrames +
+                ", jankyFrames=" + mJankyFrames +
+                '}';
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+/**
+ * Counts the frames of a morph animation and reports a {@link MorphMetrics} when it ends
+ */
+class MorphMetricsRecorder implements FloatingFrameSource.FrameCallback {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final float JANK_THRESHOLD = 1.5f;
+
+    private FloatingFrameSource mFrameSource;
+    private FloatingToolbar.MorphMetricsListener mListener;
+    private boolean mRunning;
+    private boolean mMorph;
+    private long mPlannedDuration;
+    private long mDelay;
+    private long mStartTime;
+    private long mLastFrameTime;
+    private long mFrameInterval;
+    private int mFrameCount;
+    private int mDroppedFrames;
+    private int mJankyFrames;
+
+    MorphMetricsRecorder(FloatingFrameSource frameSource,
+                         FloatingToolbar.MorphMetricsListener listener) {
+        mFrameSource = frameSource;
+        mListener = listener;
+    }
+
+    /**
+     * Replace the source of the frames. A recording in progress is reported as interrupted.
+     */
+    void setFrameSource(FloatingFrameSource frameSource) {
+        finish(true);
+        mFrameSource = frameSource;
+    }
+
+    boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * Start counting frames. If there's a recording in progress, it's reported as interrupted.
+     *
+     * @param morph           true if the fab is being morphed into the FloatingToolbar
+     * @param plannedDuration expected duration of the animation in milliseconds
+     * @param delay           delay included in the planned duration
+     */
+    void start(boolean morph, long plannedDuration, long delay) {
+        if (mRunning) {
+            finish(true);
+        }
+        mRunning = true;
+        mMorph = morph;
+        mPlannedDuration = plannedDuration;
+        mDelay = delay;
+        mStartTime = mFrameSource.nanoTime();
+        mFrameInterval = mFrameSource.getFrameIntervalNanos();
+        mLastFrameTime = 0;
+        mFrameCount = 0;
+        mDroppedFrames = 0;
+        mJankyFrames = 0;
+        mFrameSource.postFrameCallback(this);
+    }
+
+    /**
+     * Stop counting frames and report the metrics
+     *
+     * @param interrupted true if the animation didn't finish normally
+     */
+    void finish(boolean interrupted) {
+        if (!mRunning) {
+            return;
+        }
+        mRunning = false;
+        mFrameSource.removeFrameCallback(this);
+        long duration = (mFrameSource.nanoTime() - mStartTime) / NANOS_PER_MILLI;
+        mListener.onMorphMetrics(new MorphMetrics(mMorph, interrupted, duration,
+                mPlannedDuration, mDelay, mFrameCount, mDroppedFrames, mJankyFrames));
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) {
+            return;
+        }
+        if (mLastFrameTime != 0 && mFrameInterval > 0) {
+            long frameTime = frameTimeNanos - mLastFrameTime;
+            int missedFrames = Math.round((float) frameTime / mFrameInterval) - 1;
+            if (missedFrames > 0) {
+                mDroppedFrames += missedFrames;
+            }
+            if (frameTime > mFrameInterval * JANK_THRESHOLD) {
+                mJankyFrames++;
+            }
+        }
+        mFrameCount++;
+        mLastFrameTime = frameTimeNanos;
+        mFrameSource.postFrameCallback(this);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the bytes allocated by the current thread, where the JVM supports it
+ */
+final class AllocationCounter {
+
+    private static final int WARM_UP_RUNS = 100;
+
+    private AllocationCounter() {
+
+    }
+
+    /**
+     * @return true if the allocations of a thread can be measured in this JVM
+     */
+    static boolean isSupported() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (!sunBean.isThreadAllocatedMemorySupported()) {
+            return false;
+        }
+        sunBean.setThreadAllocatedMemoryEnabled(true);
+        return sunBean.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * @return total bytes allocated by the current thread
+     */
+    static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Run an operation several times after warming it up
+     *
+     * @return average bytes allocated by each run
+     */
+    static long measure(Runnable runnable, int runs) {
+        for (int i = 0; i < WARM_UP_RUNS; i++) {
+            runnable.run();
+        }
+        long start = getAllocatedBytes();
+        for (int i = 0; i < runs; i++) {
+            runnable.run();
+        }
+        return (getAllocatedBytes() - start) / runs;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FloatingFrameSource that only produces frames when a test steps it,
+ * with a refresh rate that can be changed to simulate other displays
+ */
+class FakeFrameSource implements FloatingFrameSource {
+
+    static final long NANOS_PER_MILLI = 1000000L;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private long mTime;
+    private long mFrameInterval;
+    private int mFrameCount;
+    private List<FrameCallback> mCallbacks;
+
+    FakeFrameSource() {
+        this(0);
+    }
+
+    /**
+     * @param startTimeNanos time of the clock before the first frame
+     */
+    FakeFrameSource(long startTimeNanos) {
+        mTime = startTimeNanos;
+        mCallbacks = new ArrayList<>();
+        setRefreshRate(60f);
+    }
+
+    void setRefreshRate(float refreshRate) {
+        mFrameInterval = (long) (NANOS_PER_SECOND / refreshRate);
+    }
+
+    /**
+     * Move the clock without producing a frame, e.g, to simulate a long frame
+     */
+    void advance(long nanos) {
+        mTime += nanos;
+    }
+
+    /**
+     * Move the clock by one frame interval and run the callbacks posted for this frame
+     */
+    void step() {
+        mTime += mFrameInterval;
+        mFrameCount++;
+        // Callbacks posted from a callback run on the next frame
+        List<FrameCallback> callbacks = new ArrayList<>(mCallbacks);
+        mCallbacks.clear();
+        for (int i = 0; i < callbacks.size(); i++) {
+            callbacks.get(i).doFrame(mTime);
+        }
+    }
+
+    void step(int frames) {
+        for (int i = 0; i < frames; i++) {
+            step();
+        }
+    }
+
+    /**
+     * @return number of frames produced so far
+     */
+    int getFrameCount() {
+        return mFrameCount;
+    }
+
+    boolean hasCallbacks() {
+        return !mCallbacks.isEmpty();
+    }
+
+    @Override
+    public long nanoTime() {
+        return mTime;
+    }
+
+    @Override
+    public long getFrameIntervalNanos() {
+        return mFrameInterval;
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        if (!mCallbacks.contains(callback)) {
+            mCallbacks.add(callback);
+        }
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        mCallbacks.remove(callback);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingAnimationsTest {
+
+    private static final FloatingAnimationStrategy STRATEGY = new FloatingAnimationStrategy() {
+        @Override
+        public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+            return new FloatingAnimatorInstantImpl(toolbar);
+        }
+    };
+
+    @Test
+    public void builtInAnimationsAreRegistered() {
+        assertNotNull(FloatingAnimations.get(FloatingAnimations.NORMAL));
+        assertNotNull(FloatingAnimations.get(FloatingAnimations.SPRING));
+        assertNotNull(FloatingAnimations.get(FloatingAnimations.INSTANT));
+        assertNotNull(FloatingAnimations.get(FloatingAnimations.REDUCED));
+    }
+
+    @Test
+    public void customAnimationIsRegistered() {
+        FloatingAnimations.register("custom", STRATEGY);
+        assertSame(STRATEGY, FloatingAnimations.get("custom"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builtInNameCantBeReplaced() {
+        FloatingAnimations.register(FloatingAnimations.NORMAL, STRATEGY);
+    }
+
+    @Test
+    public void registerFromSeveralThreads() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final int thread = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 100; j++) {
+                        FloatingAnimations.register("thread" + thread + "_" + j, STRATEGY);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int i = 0; i < threads.length; i++) {
+            for (int j = 0; j < 100; j++) {
+                assertSame(STRATEGY, FloatingAnimations.get("thread" + i + "_" + j));
+            }
+        }
+    }
+}
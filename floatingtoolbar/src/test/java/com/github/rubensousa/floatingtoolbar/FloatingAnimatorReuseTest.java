@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.animation.ValueAnimator;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The animators, property holders and listeners of the morph are created once
+ * and reused by every show and hide, including the reversed ones
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingAnimatorReuseTest {
+
+    private static final int CYCLES = 100;
+
+    // The framework copies the listener lists of an animator when it starts and ends it
+    private static final long MAX_CYCLE_BYTES = 2 * 1024;
+
+    // The circular reveal can't be restarted, so it's created again for each morph
+    private static final long MAX_REVEAL_BYTES = 2 * 1024;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(AllocationCounter.isSupported());
+    }
+
+    @Test
+    public void preLollipopMorphsReuseTheAnimators() {
+        long bytes = measureCycle(new FloatingAnimationStrategy() {
+            @Override
+            public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                return new FloatingAnimatorImpl(toolbar);
+            }
+        });
+
+        assertTrue(bytes + " bytes allocated by each show and hide",
+                bytes <= MAX_CYCLE_BYTES);
+    }
+
+    @Test
+    public void lollipopMorphsReuseTheAnimators() {
+        long bytes = measureCycle(new FloatingAnimationStrategy() {
+            @Override
+            public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                return new FloatingAnimatorLollipopImpl(toolbar);
+            }
+        });
+
+        assertTrue(bytes + " bytes allocated by each show and hide",
+                bytes <= MAX_CYCLE_BYTES + 2 * MAX_REVEAL_BYTES);
+    }
+
+    @Test
+    public void geometryAndDelayOfTheMorphDoNotAllocate() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture();
+        final FloatingAnimator animator = fixture.toolbar.getAnimator();
+
+        // Read by every morph, but only computed again after the layout changes
+        long bytes = AllocationCounter.measure(new Runnable() {
+            @Override
+            public void run() {
+                animator.getGeometry();
+                animator.getDelay();
+                animator.getShowDuration();
+                animator.getHideDuration();
+            }
+        }, CYCLES);
+
+        assertEquals(0, bytes);
+    }
+
+    /**
+     * @return bytes allocated by each show and hide, without the ones allocated
+     * by the main looper to run the frames of an animation during the same time
+     */
+    private static long measureCycle(FloatingAnimationStrategy strategy) {
+        final FloatingToolbarFixture fixture = new FloatingToolbarFixture(strategy);
+        FloatingAnimator animator = fixture.toolbar.getAnimator();
+
+        long morphBytes = AllocationCounter.measure(new Runnable() {
+            private int mCycle;
+
+            @Override
+            public void run() {
+                // Every other morph is reversed before it ends
+                long duration = mCycle++ % 2 == 0 ? 100 : FloatingToolbarFixture.ANIMATION_END;
+                fixture.toolbar.show();
+                fixture.advance(duration);
+                fixture.toolbar.hide();
+                fixture.advance(duration);
+            }
+        }, CYCLES);
+
+        final ValueAnimator frameAnimator = ValueAnimator.ofFloat(0f, 1f);
+        frameAnimator.setDuration(FloatingToolbarFixture.ANIMATION_END);
+        long frameBytes = AllocationCounter.measure(new Runnable() {
+            private int mCycle;
+
+            @Override
+            public void run() {
+                long duration = mCycle++ % 2 == 0 ? 100 : FloatingToolbarFixture.ANIMATION_END;
+                frameAnimator.start();
+                fixture.advance(duration);
+                frameAnimator.reverse();
+                fixture.advance(duration);
+            }
+        }, CYCLES);
+        fixture.runAnimations();
+
+        assertSame(animator, fixture.toolbar.getAnimator());
+        return Math.max(0, morphBytes - frameBytes);
+    }
+}
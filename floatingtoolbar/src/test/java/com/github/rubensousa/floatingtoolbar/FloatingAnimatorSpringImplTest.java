@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Time-to-interactive of the spring animation compared to the default one:
+ * the time from {@link FloatingToolbar#show()} until the items accept clicks
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingAnimatorSpringImplTest {
+
+    private static final long FRAME = 16;
+
+    @Test
+    public void springIsInteractiveWhenItSettles() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture(
+                FloatingAnimations.get(FloatingAnimations.SPRING));
+
+        long timeToInteractive = measureShow(fixture);
+
+        assertEquals(FloatingAnimatorSpringImpl.SETTLE_DURATION, timeToInteractive, 2 * FRAME);
+    }
+
+    @Test
+    public void springIsInteractiveBeforeTheDefaultAnimation() {
+        long spring = measureShow(new FloatingToolbarFixture(
+                FloatingAnimations.get(FloatingAnimations.SPRING)));
+        long normal = measureShow(new FloatingToolbarFixture(
+                FloatingAnimations.get(FloatingAnimations.NORMAL)));
+
+        assertTrue("spring: " + spring + "ms, normal: " + normal + "ms", spring < normal);
+    }
+
+    @Test
+    public void reversedSpringIsInteractiveWhenItSettles() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture(
+                FloatingAnimations.get(FloatingAnimations.SPRING));
+        fixture.showNow();
+        fixture.toolbar.hide();
+        fixture.advance(FloatingAnimatorSpringImpl.SETTLE_DURATION / 2);
+
+        // The springs keep their velocity, so it doesn't take longer than a morph from rest
+        long timeToInteractive = measureShow(fixture);
+
+        assertTrue(timeToInteractive <= FloatingAnimatorSpringImpl.SETTLE_DURATION + 2 * FRAME);
+    }
+
+    /**
+     * @return milliseconds from the show until the FloatingToolbar is shown, in frames
+     */
+    private static long measureShow(FloatingToolbarFixture fixture) {
+        fixture.toolbar.show();
+        long elapsed = 0;
+        while (fixture.toolbar.mState != FloatingToolbar.STATE_SHOWN
+                && elapsed < FloatingToolbarFixture.ANIMATION_END) {
+            fixture.advance(FRAME);
+            elapsed += FRAME;
+        }
+        return elapsed;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_MORPH_END;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_MORPH_START;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_UNMORPH_END;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_UNMORPH_START;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the same morphs with every built-in animator
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingAnimatorTest {
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+                {"pre-lollipop", new FloatingAnimationStrategy() {
+                    @Override
+                    public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                        return new FloatingAnimatorImpl(toolbar);
+                    }
+                }},
+                {"lollipop", new FloatingAnimationStrategy() {
+                    @Override
+                    public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                        return new FloatingAnimatorLollipopImpl(toolbar);
+                    }
+                }},
+                {"spring", new FloatingAnimationStrategy() {
+                    @Override
+                    public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                        return new FloatingAnimatorSpringImpl(toolbar);
+                    }
+                }},
+                {"instant", new FloatingAnimationStrategy() {
+                    @Override
+                    public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                        return new FloatingAnimatorInstantImpl(toolbar);
+                    }
+                }},
+                {"reduced", new FloatingAnimationStrategy() {
+                    @Override
+                    public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                        return new FloatingAnimatorReducedImpl(toolbar);
+                    }
+                }}
+        });
+    }
+
+    private final FloatingAnimationStrategy mStrategy;
+    private FloatingToolbarFixture mFixture;
+    private FloatingToolbar mToolbar;
+
+    public FloatingAnimatorTest(String name, FloatingAnimationStrategy strategy) {
+        mStrategy = strategy;
+    }
+
+    @Before
+    public void setUp() {
+        mFixture = new FloatingToolbarFixture(mStrategy);
+        mToolbar = mFixture.toolbar;
+    }
+
+    @Test
+    public void showEndsWithToolbarInPlace() {
+        mToolbar.show();
+        mFixture.runAnimations();
+
+        FloatingMorphGeometry geometry = mToolbar.getAnimator().getGeometry();
+        assertFalse(mToolbar.getAnimator().isRunning());
+        assertEquals(View.VISIBLE, mToolbar.getVisibility());
+        assertEquals(View.INVISIBLE, mFixture.fab.getVisibility());
+        assertEquals(geometry.toolbarLeft, mToolbar.getX(), 1f);
+        assertEquals(1f, mToolbar.getAlpha(), 0.01f);
+        View contentView = mToolbar.getAnimator().getContentView();
+        assertEquals(1f, contentView.getAlpha(), 0.01f);
+        assertEquals(1f, contentView.getScaleX(), 0.01f);
+        mFixture.events.assertEvents(PHASE_MORPH_START, PHASE_MORPH_END);
+    }
+
+    @Test
+    public void hideEndsWithFabInPlace() {
+        mFixture.showNow();
+
+        mToolbar.hide();
+        mFixture.runAnimations();
+
+        FloatingMorphGeometry geometry = mToolbar.getAnimator().getGeometry();
+        assertFalse(mToolbar.getAnimator().isRunning());
+        assertEquals(View.INVISIBLE, mToolbar.getVisibility());
+        assertEquals(View.VISIBLE, mFixture.fab.getVisibility());
+        assertEquals(geometry.fabLeft, mFixture.fab.getX(), 1f);
+        assertEquals(geometry.fabTop, mFixture.fab.getY(), 1f);
+        assertEquals(1f, mFixture.fab.getScaleX(), 0.01f);
+        assertEquals(1f, mFixture.fab.getAlpha(), 0.01f);
+        mFixture.events.assertEvents(PHASE_UNMORPH_START, PHASE_UNMORPH_END);
+    }
+
+    @Test
+    public void hideRestoresTheFabTranslation() {
+        // Where the Behavior of the fab places it for a Snackbar
+        mFixture.fab.setTranslationY(-48);
+
+        mToolbar.show();
+        mFixture.runAnimations();
+        mToolbar.hide();
+        mFixture.runAnimations();
+
+        assertEquals(-48, mFixture.fab.getTranslationY(), 1f);
+    }
+
+    @Test
+    public void reversedShowEndsHidden() {
+        mToolbar.show();
+        mFixture.advance(50);
+        mToolbar.hide();
+        mFixture.runAnimations();
+
+        assertFalse(mToolbar.getAnimator().isRunning());
+        assertEquals(View.VISIBLE, mFixture.fab.getVisibility());
+        mFixture.events.assertEvents(PHASE_MORPH_START, PHASE_UNMORPH_START,
+                PHASE_UNMORPH_END);
+    }
+
+    @Test
+    public void reversedHideEndsShown() {
+        mFixture.showNow();
+
+        mToolbar.hide();
+        mFixture.advance(50);
+        mToolbar.show();
+        mFixture.runAnimations();
+
+        assertFalse(mToolbar.getAnimator().isRunning());
+        assertEquals(View.VISIBLE, mToolbar.getVisibility());
+        mFixture.events.assertEvents(PHASE_UNMORPH_START, PHASE_MORPH_START,
+                PHASE_MORPH_END);
+    }
+
+    @Test
+    public void repeatedMorphsEndInTheSameState() {
+        for (int i = 0; i < 3; i++) {
+            mToolbar.show();
+            mFixture.runAnimations();
+            mToolbar.hide();
+            mFixture.runAnimations();
+        }
+
+        assertEquals(View.VISIBLE, mFixture.fab.getVisibility());
+        assertEquals(View.INVISIBLE, mToolbar.getVisibility());
+        assertEquals(mToolbar.getAnimator().getGeometry().fabLeft, mFixture.fab.getX(), 1f);
+    }
+
+    @Test
+    public void reversalIsNeverLongerThanTheInterruptedAnimation() {
+        mToolbar.show();
+        mFixture.advance(50);
+        mToolbar.hide();
+
+        assertTrue(mToolbar.getAnimator().getPlannedDuration()
+                <= mToolbar.getAnimator().getHideDuration());
+    }
+}
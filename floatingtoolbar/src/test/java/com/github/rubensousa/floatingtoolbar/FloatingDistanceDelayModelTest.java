@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Delay of the morph on displays with different refresh rates
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingDistanceDelayModelTest {
+
+    private static final float[] REFRESH_RATES = new float[]{60f, 90f, 120f};
+
+    private static final FloatingTimingProfile PROFILE = FloatingTimingProfile.DEFAULT;
+
+    private FloatingDistanceDelayModel mModel = new FloatingDistanceDelayModel();
+
+    @Test
+    public void noDelayUpToTheReferenceTravel() {
+        assertEquals(0, mModel.getDelay(FloatingDistanceDelayModel.REFERENCE_TRAVEL,
+                getFrameInterval(60f), PROFILE));
+    }
+
+    @Test
+    public void extraTravelIsCoveredAtTheReferenceSpeed() {
+        // Half of the reference travel more takes half of the reference duration more
+        long delay = mModel.getDelay(1.5f * FloatingDistanceDelayModel.REFERENCE_TRAVEL, 0,
+                PROFILE);
+
+        assertEquals(FloatingDistanceDelayModel.REFERENCE_DURATION / 2, delay, 1);
+    }
+
+    @Test
+    public void delayIsRoundedToTheNearestFrame() {
+        float travel = 1.5f * FloatingDistanceDelayModel.REFERENCE_TRAVEL;
+        float expected = FloatingDistanceDelayModel.REFERENCE_DURATION / 2;
+        for (float refreshRate : REFRESH_RATES) {
+            float frameInterval = getFrameInterval(refreshRate);
+            long delay = mModel.getDelay(travel, frameInterval, PROFILE);
+
+            assertWholeFrames(refreshRate, delay, frameInterval);
+            assertEquals(refreshRate + "Hz", expected, delay, frameInterval / 2 + 1);
+        }
+    }
+
+    @Test
+    public void delayNeverExceedsTheMaximum() {
+        for (float refreshRate : REFRESH_RATES) {
+            float frameInterval = getFrameInterval(refreshRate);
+            long delay = mModel.getDelay(10 * FloatingDistanceDelayModel.REFERENCE_TRAVEL,
+                    frameInterval, PROFILE);
+
+            assertWholeFrames(refreshRate, delay, frameInterval);
+            assertTrue(refreshRate + "Hz: " + delay, delay <= PROFILE.getMaxDelay());
+            assertTrue(refreshRate + "Hz: " + delay,
+                    delay > PROFILE.getMaxDelay() - frameInterval);
+        }
+    }
+
+    @Test
+    public void morphSpeedDoesNotDependOnTheRefreshRate() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture();
+        FloatingAnimator animator = fixture.toolbar.getAnimator();
+        float density = fixture.activity.getResources().getDisplayMetrics().density;
+        FloatingMorphGeometry geometry = animator.getGeometry();
+        float travel = Math.max(geometry.revealRadius, (float) Math.hypot(
+                geometry.fabShowX - geometry.fabLeft, geometry.fabDiff)) / density;
+        float expected = (travel - FloatingDistanceDelayModel.REFERENCE_TRAVEL)
+                * FloatingDistanceDelayModel.REFERENCE_DURATION
+                / FloatingDistanceDelayModel.REFERENCE_TRAVEL;
+
+        for (float refreshRate : REFRESH_RATES) {
+            fixture.frameSource.setRefreshRate(refreshRate);
+            // The refresh rate is only read again after a configuration change
+            animator.onConfigurationChanged();
+            float frameInterval = getFrameInterval(refreshRate);
+            long delay = animator.getDelay();
+
+            assertWholeFrames(refreshRate, delay, frameInterval);
+            assertEquals(refreshRate + "Hz", expected, delay, frameInterval / 2 + 1);
+        }
+    }
+
+    private static float getFrameInterval(float refreshRate) {
+        return 1000f / refreshRate;
+    }
+
+    private static void assertWholeFrames(float refreshRate, long delay, float frameInterval) {
+        float frames = delay / frameInterval;
+        assertEquals(refreshRate + "Hz: " + delay, Math.round(frames), frames, 0.1f);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Hardware layers are only kept while the morph runs,
+ * and the previous layer types come back however the morph stops
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingHardwareLayersTest {
+
+    private FloatingToolbarFixture mFixture;
+    private FloatingToolbar mToolbar;
+    private View mContentView;
+
+    @Before
+    public void setUp() {
+        mFixture = new FloatingToolbarFixture();
+        mToolbar = mFixture.toolbar;
+        mContentView = mToolbar.getAnimator().getContentView();
+        mToolbar.enableHardwareLayers(true);
+        // Not the default type, to check that it's restored instead of reset
+        mToolbar.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+    }
+
+    @Test
+    public void layersAreOnlyUsedWhileTheMorphRuns() {
+        mToolbar.show();
+        assertHardwareLayers();
+
+        mFixture.runAnimations();
+        assertLayersRestored();
+
+        mToolbar.hide();
+        assertHardwareLayers();
+
+        mFixture.runAnimations();
+        assertLayersRestored();
+    }
+
+    @Test
+    public void reversedMorphRestoresLayers() {
+        mToolbar.show();
+        mFixture.advance(100);
+        mToolbar.hide();
+        mFixture.advance(100);
+        mToolbar.show();
+        assertHardwareLayers();
+
+        mFixture.runAnimations();
+        assertLayersRestored();
+    }
+
+    @Test
+    public void settledDragRestoresLayers() {
+        mToolbar.setMorphProgress(0.5f);
+        assertHardwareLayers();
+
+        mToolbar.settleMorph(true, 0f);
+        mFixture.runAnimations();
+        assertLayersRestored();
+    }
+
+    @Test
+    public void detachRestoresLayers() {
+        mToolbar.show();
+        mFixture.advance(100);
+
+        mFixture.coordinatorLayout.removeView(mToolbar);
+        assertLayersRestored();
+    }
+
+    @Test
+    public void disablingRestoresLayers() {
+        mToolbar.show();
+        mFixture.advance(100);
+
+        mToolbar.enableHardwareLayers(false);
+        assertLayersRestored();
+    }
+
+    @Test
+    public void animationChangeRestoresLayers() {
+        mToolbar.show();
+        mFixture.advance(100);
+
+        mToolbar.setAnimation(FloatingAnimations.get(FloatingAnimations.INSTANT));
+        assertLayersRestored();
+    }
+
+    @Test
+    public void fabChangeRestoresLayers() {
+        mToolbar.show();
+        mFixture.advance(100);
+
+        mToolbar.detachFab();
+        assertLayersRestored();
+    }
+
+    private void assertHardwareLayers() {
+        assertEquals(View.LAYER_TYPE_HARDWARE, mToolbar.getLayerType());
+        assertEquals(View.LAYER_TYPE_HARDWARE, mContentView.getLayerType());
+        assertEquals(View.LAYER_TYPE_HARDWARE, mFixture.fab.getLayerType());
+    }
+
+    private void assertLayersRestored() {
+        assertEquals(View.LAYER_TYPE_SOFTWARE, mToolbar.getLayerType());
+        assertEquals(View.LAYER_TYPE_NONE, mContentView.getLayerType());
+        assertEquals(View.LAYER_TYPE_NONE, mFixture.fab.getLayerType());
+    }
+}
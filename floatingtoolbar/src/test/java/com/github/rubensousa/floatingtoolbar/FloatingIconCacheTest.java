@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.app.Activity;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.support.v7.view.ContextThemeWrapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingIconCacheTest {
+
+    private static final int ICON = android.R.drawable.ic_menu_share;
+
+    private Activity mActivity;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mActivity.setTheme(R.style.Theme_AppCompat_Light_NoActionBar);
+    }
+
+    @After
+    public void tearDown() {
+        FloatingIconCache.clear();
+    }
+
+    @Test
+    public void iconIsKeptOnceForTheSameThemeAndConfiguration() {
+        FloatingIconCache.get(mActivity, ICON);
+        FloatingIconCache.get(mActivity, ICON);
+
+        assertEquals(1, FloatingIconCache.size(mActivity));
+    }
+
+    @Test
+    public void otherThemeKeepsItsOwnIcons() {
+        ContextThemeWrapper context = new ContextThemeWrapper(mActivity,
+                R.style.Theme_AppCompat);
+
+        FloatingIconCache.get(mActivity, ICON);
+        FloatingIconCache.get(context, ICON);
+
+        assertEquals(1, FloatingIconCache.size(mActivity));
+        assertEquals(1, FloatingIconCache.size(context));
+    }
+
+    @Test
+    public void uiModeChangeDoesNotReuseIcons() {
+        FloatingIconCache.get(mActivity, ICON);
+        setConfiguration(Configuration.UI_MODE_TYPE_NORMAL | Configuration.UI_MODE_NIGHT_YES,
+                Configuration.SCREENLAYOUT_LAYOUTDIR_LTR);
+        FloatingIconCache.get(mActivity, ICON);
+
+        assertEquals(2, FloatingIconCache.size(mActivity));
+    }
+
+    @Test
+    public void layoutDirectionChangeDoesNotReuseIcons() {
+        FloatingIconCache.get(mActivity, ICON);
+        setConfiguration(mActivity.getResources().getConfiguration().uiMode,
+                Configuration.SCREENLAYOUT_LAYOUTDIR_RTL);
+        FloatingIconCache.get(mActivity, ICON);
+
+        assertEquals(2, FloatingIconCache.size(mActivity));
+    }
+
+    @Test
+    public void menuBuilderIconsAreShared() {
+        new FloatingToolbarMenuBuilder(mActivity).addItem(1, ICON).build();
+        new FloatingToolbarMenuBuilder(mActivity).addItem(1, ICON).build();
+
+        assertEquals(1, FloatingIconCache.size(mActivity));
+    }
+
+    @SuppressWarnings("deprecation")
+    private void setConfiguration(int uiMode, int layoutDirection) {
+        Resources resources = mActivity.getResources();
+        Configuration configuration = new Configuration(resources.getConfiguration());
+        configuration.uiMode = uiMode;
+        configuration.screenLayout = (configuration.screenLayout
+                & ~Configuration.SCREENLAYOUT_LAYOUTDIR_MASK) | layoutDirection;
+        resources.updateConfiguration(configuration, resources.getDisplayMetrics());
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.view.Menu;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingItemViewPoolTest {
+
+    private FloatingItemViewPool mPool;
+
+    @Before
+    public void setUp() {
+        mPool = new FloatingItemViewPool(2);
+    }
+
+    @Test
+    public void getPrefersTheViewOfTheSameItem() {
+        View first = createView(1);
+        View second = createView(2);
+        mPool.put(FloatingItemViewPool.TYPE_ITEM, first);
+        mPool.put(FloatingItemViewPool.TYPE_ITEM, second);
+
+        assertSame(first, mPool.get(FloatingItemViewPool.TYPE_ITEM, 1));
+        assertSame(second, mPool.get(FloatingItemViewPool.TYPE_ITEM, 3));
+        assertNull(mPool.get(FloatingItemViewPool.TYPE_ITEM, 1));
+    }
+
+    @Test
+    public void putIsLimitedToTheMaxScrap() {
+        assertTrue(mPool.put(FloatingItemViewPool.TYPE_ITEM, createView(1)));
+        assertTrue(mPool.put(FloatingItemViewPool.TYPE_ITEM, createView(2)));
+        assertFalse(mPool.put(FloatingItemViewPool.TYPE_ITEM, createView(3)));
+
+        assertEquals(2, mPool.size(FloatingItemViewPool.TYPE_ITEM));
+    }
+
+    @Test
+    public void smallerMaxScrapDropsViews() {
+        mPool.put(FloatingItemViewPool.TYPE_ITEM, createView(1));
+        mPool.put(FloatingItemViewPool.TYPE_ITEM, createView(2));
+
+        mPool.setMaxScrap(1);
+
+        assertEquals(1, mPool.size(FloatingItemViewPool.TYPE_ITEM));
+    }
+
+    @Test
+    public void clearRemovesEveryView() {
+        mPool.put(FloatingItemViewPool.TYPE_ITEM, createView(1));
+        mPool.clear();
+
+        assertNull(mPool.get(FloatingItemViewPool.TYPE_ITEM, 1));
+    }
+
+    @Test
+    public void recyclingDoesNotAllocate() {
+        Assume.assumeTrue(AllocationCounter.isSupported());
+        final View view = createView(1);
+        mPool.put(FloatingItemViewPool.TYPE_ITEM, view);
+
+        long bytes = AllocationCounter.measure(new Runnable() {
+            @Override
+            public void run() {
+                View recycled = mPool.get(FloatingItemViewPool.TYPE_ITEM, 1);
+                mPool.put(FloatingItemViewPool.TYPE_ITEM, recycled);
+            }
+        }, 1000);
+
+        assertEquals(0, bytes);
+    }
+
+    @Test
+    public void toolbarReusesItemViewsWhenTheMenuChanges() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture();
+        FloatingToolbar toolbar = fixture.toolbar;
+        View contentView = toolbar.getAnimator().getContentView();
+        View lastItem = toolbar.findViewById(4);
+
+        toolbar.setMenu(fixture.createMenu(2));
+        toolbar.setMenu(fixture.createMenu(4));
+
+        assertEquals(4, ((ViewGroup) contentView).getChildCount());
+        assertSame(lastItem, toolbar.findViewById(4));
+    }
+
+    @Test
+    public void sameSizeMenuCreatesNoViewsAndNoLayout() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture();
+        FloatingToolbar toolbar = fixture.toolbar;
+        ViewGroup contentView = (ViewGroup) toolbar.getAnimator().getContentView();
+        Drawable icon = new ColorDrawable(Color.BLACK);
+        toolbar.setMenu(createMenu(fixture, icon));
+        fixture.layout();
+        View[] views = new View[contentView.getChildCount()];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = contentView.getChildAt(i);
+        }
+        int pooled = toolbar.getItemViewPool().size(FloatingItemViewPool.TYPE_ITEM);
+
+        for (int i = 0; i < 100; i++) {
+            toolbar.setMenu(createMenu(fixture, icon));
+        }
+
+        assertEquals(views.length, contentView.getChildCount());
+        for (int i = 0; i < views.length; i++) {
+            assertSame(views[i], contentView.getChildAt(i));
+        }
+        assertEquals(pooled, toolbar.getItemViewPool().size(FloatingItemViewPool.TYPE_ITEM));
+        // No view asked for another layout pass
+        assertFalse(toolbar.isLayoutRequested());
+        assertFalse(contentView.isLayoutRequested());
+    }
+
+    @Test
+    public void menuChangeKeepsTheSpringsOfTheContent() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture(
+                FloatingAnimations.get(FloatingAnimations.SPRING));
+        View contentView = fixture.toolbar.getAnimator().getContentView();
+
+        fixture.toolbar.show();
+        fixture.advance(FloatingAnimatorSpringImpl.SETTLE_DURATION / 4);
+        fixture.toolbar.setMenu(fixture.createMenu(4));
+        fixture.runAnimations();
+
+        // The content would stay halfway if its springs were replaced mid-morph
+        assertSame(contentView, fixture.toolbar.getAnimator().getContentView());
+        assertEquals(FloatingToolbar.STATE_SHOWN, fixture.toolbar.mState);
+        assertEquals(1f, contentView.getAlpha(), 0.01f);
+        assertEquals(1f, contentView.getScaleX(), 0.01f);
+    }
+
+    @Test
+    public void toolbarPoolFollowsTheVisibleSlots() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture();
+        int itemWidth = RuntimeEnvironment.application.getResources()
+                .getDimensionPixelSize(R.dimen.floatingtoolbar_item_min_width);
+
+        fixture.layout(itemWidth * 3, FloatingToolbarFixture.HEIGHT);
+
+        FloatingItemViewPool pool = fixture.toolbar.getItemViewPool();
+        assertEquals(3, pool.getMaxScrap());
+
+        fixture.toolbar.setMenu(fixture.createMenu(0));
+        assertTrue(pool.size(FloatingItemViewPool.TYPE_ITEM) <= 3);
+    }
+
+    @Test
+    public void toolbarPoolIsClearedWhenDetached() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture();
+        fixture.toolbar.setMenu(fixture.createMenu(1));
+        assertTrue(fixture.toolbar.getItemViewPool().size(FloatingItemViewPool.TYPE_ITEM) > 0);
+
+        fixture.coordinatorLayout.removeView(fixture.toolbar);
+
+        assertEquals(0, fixture.toolbar.getItemViewPool().size(FloatingItemViewPool.TYPE_ITEM));
+    }
+
+    private static Menu createMenu(FloatingToolbarFixture fixture, Drawable icon) {
+        FloatingToolbarMenuBuilder builder = new FloatingToolbarMenuBuilder(fixture.activity);
+        for (int i = 0; i < 4; i++) {
+            builder.addItem(i + 1, icon, "Item " + i);
+        }
+        return builder.build();
+    }
+
+    private View createView(int id) {
+        View view = new View(RuntimeEnvironment.application);
+        view.setId(id);
+        return view;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.app.Activity;
+import android.os.AsyncTask;
+import android.support.v7.view.menu.MenuBuilder;
+import android.util.AttributeSet;
+import android.view.Menu;
+import android.widget.FrameLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@SuppressWarnings("RestrictedApi")
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingMenuCacheTest {
+
+    private static final int BENCHMARK_RUNS = 20;
+
+    private List<Runnable> mTasks;
+    private Activity mActivity;
+    private int mMenuRes;
+
+    @Before
+    public void setUp() {
+        mTasks = new ArrayList<>();
+        FloatingMenuCache.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mTasks.add(command);
+            }
+        });
+        mActivity = Robolectric.setupActivity(Activity.class);
+        mActivity.setTheme(R.style.Theme_AppCompat_Light_NoActionBar);
+        // Framework menu with icons that are theme attributes
+        mMenuRes = mActivity.getResources().getIdentifier("webview_copy", "menu", "android");
+    }
+
+    @After
+    public void tearDown() {
+        FloatingMenuCache.clear();
+        FloatingMenuCache.setExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    @Test
+    public void preloadedMenuIsUsedOnce() {
+        FloatingMenuCache.preload(mActivity, mMenuRes);
+        assertTrue(FloatingMenuCache.isPending(mMenuRes));
+
+        runTasks();
+
+        assertTrue(FloatingMenuCache.isPreloaded(mMenuRes));
+        Menu menu = FloatingMenuCache.obtain(mActivity, mMenuRes);
+        assertEquals(7, menu.size());
+        assertFalse(FloatingMenuCache.isPreloaded(mMenuRes));
+    }
+
+    @Test
+    public void preloadedMenuMatchesTheInflatedOne() {
+        Menu inflated = FloatingMenuCache.obtain(mActivity, mMenuRes);
+        FloatingMenuCache.preload(mActivity, mMenuRes);
+        runTasks();
+        Menu preloaded = FloatingMenuCache.obtain(mActivity, mMenuRes);
+
+        assertEquals(inflated.size(), preloaded.size());
+        for (int i = 0; i < inflated.size(); i++) {
+            assertEquals(inflated.getItem(i).getItemId(), preloaded.getItem(i).getItemId());
+            assertEquals(inflated.getItem(i).getTitle(), preloaded.getItem(i).getTitle());
+        }
+    }
+
+    @Test
+    public void obtainBeforePreloadFinishesCancelsIt() {
+        FloatingMenuCache.preload(mActivity, mMenuRes);
+
+        Menu menu = FloatingMenuCache.obtain(mActivity, mMenuRes);
+        assertEquals(7, menu.size());
+        assertFalse(FloatingMenuCache.isPending(mMenuRes));
+
+        // The late result is discarded instead of being kept forever
+        runTasks();
+        assertFalse(FloatingMenuCache.isPreloaded(mMenuRes));
+    }
+
+    @Test
+    public void preloadedMenuDoesNotKeepTheActivity() {
+        FloatingMenuCache.preload(mActivity, mMenuRes);
+        runTasks();
+
+        MenuBuilder menu = (MenuBuilder) FloatingMenuCache.obtain(mActivity, mMenuRes);
+
+        assertNotSame(mActivity, menu.getContext());
+        assertSame(mActivity.getTheme(), menu.getContext().getTheme());
+        // Resolved from the theme of the Activity
+        assertNotNull(menu.getItem(1).getIcon());
+    }
+
+    @Test
+    public void preloadedMenuIsOnlyUsedWithTheSameTheme() {
+        FloatingMenuCache.preload(RuntimeEnvironment.application, mMenuRes);
+        runTasks();
+
+        MenuBuilder menu = (MenuBuilder) FloatingMenuCache.obtain(mActivity, mMenuRes);
+
+        assertSame(mActivity, menu.getContext());
+        assertNotNull(menu.getItem(1).getIcon());
+        // Still there for a Context with the theme it was inflated with
+        assertTrue(FloatingMenuCache.isPreloaded(mMenuRes));
+    }
+
+    @Test
+    public void menusAreNotShared() {
+        Menu first = FloatingMenuCache.obtain(mActivity, mMenuRes);
+        Menu second = FloatingMenuCache.obtain(mActivity, mMenuRes);
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void detachedToolbarKeepsThePreloadedMenus() {
+        FloatingMenuCache.preload(mActivity, mMenuRes);
+        runTasks();
+        FloatingToolbar toolbar = createToolbar();
+        FrameLayout layout = new FrameLayout(mActivity);
+        layout.addView(toolbar);
+        mActivity.setContentView(layout);
+
+        // Preloaded again, e.g, for another Activity
+        FloatingMenuCache.preload(mActivity, mMenuRes);
+        runTasks();
+        layout.removeView(toolbar);
+
+        assertTrue(FloatingMenuCache.isPreloaded(mMenuRes));
+    }
+
+    /**
+     * Compares the construction of a FloatingToolbar that inflates its menu
+     * with one that uses a preloaded menu. Only the main thread time is measured.
+     */
+    @Test
+    public void preloadedMenuMakesTheToolbarFasterToCreate() {
+        // Warm up the class loading and the resource caches of both paths
+        createToolbar();
+        FloatingMenuCache.preload(mActivity, mMenuRes);
+        runTasks();
+        createToolbar();
+
+        long eager = 0;
+        long warmed = 0;
+        for (int i = 0; i < BENCHMARK_RUNS; i++) {
+            long start = System.nanoTime();
+            createToolbar();
+            eager += System.nanoTime() - start;
+
+            FloatingMenuCache.preload(mActivity, mMenuRes);
+            runTasks();
+            start = System.nanoTime();
+            FloatingToolbar toolbar = createToolbar();
+            warmed += System.nanoTime() - start;
+            assertFalse(FloatingMenuCache.isPreloaded(mMenuRes));
+            assertEquals(7, toolbar.getMenu().size());
+        }
+
+        System.out.println("FloatingToolbar creation: eager " + eager / BENCHMARK_RUNS
+                + "ns, preloaded menu " + warmed / BENCHMARK_RUNS + "ns");
+        assertTrue(warmed < eager);
+    }
+
+    @Test
+    public void clearCancelsPendingPreloads() {
+        FloatingMenuCache.preload(mActivity, mMenuRes);
+        FloatingMenuCache.clear();
+        runTasks();
+
+        assertFalse(FloatingMenuCache.isPending(mMenuRes));
+        assertFalse(FloatingMenuCache.isPreloaded(mMenuRes));
+    }
+
+    private FloatingToolbar createToolbar() {
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.floatingMenu, "@android:menu/webview_copy")
+                .build();
+        return new FloatingToolbar(mActivity, attrs);
+    }
+
+    /**
+     * Run the background parsing here and then the results posted to the main thread
+     */
+    private void runTasks() {
+        for (int i = 0; i < mTasks.size(); i++) {
+            mTasks.get(i).run();
+        }
+        mTasks.clear();
+        ShadowLooper.runUiThreadTasks();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingMorphListenersTest {
+
+    private FloatingMorphListeners mListeners;
+    private MorphEventRecorder mFirst;
+    private MorphEventRecorder mSecond;
+
+    @Before
+    public void setUp() {
+        mListeners = new FloatingMorphListeners();
+        mFirst = new MorphEventRecorder();
+        mSecond = new MorphEventRecorder();
+    }
+
+    @Test
+    public void listenersOnlyReceiveTheirPhases() {
+        mListeners.add(mFirst, FloatingToolbar.PHASE_MORPH_END | FloatingToolbar.PHASE_UNMORPH_END);
+        mListeners.add(mSecond, FloatingToolbar.PHASE_ALL);
+
+        dispatchAll();
+
+        mFirst.assertEvents(FloatingToolbar.PHASE_MORPH_END, FloatingToolbar.PHASE_UNMORPH_END);
+        mSecond.assertEvents(FloatingToolbar.PHASE_MORPH_START, FloatingToolbar.PHASE_MORPH_END,
+                FloatingToolbar.PHASE_UNMORPH_START, FloatingToolbar.PHASE_UNMORPH_END);
+    }
+
+    @Test
+    public void addingAgainUpdatesThePhases() {
+        mListeners.add(mFirst, FloatingToolbar.PHASE_ALL);
+        mListeners.add(mFirst, FloatingToolbar.PHASE_MORPH_START);
+
+        dispatchAll();
+
+        // Added once, so it's only notified once
+        mFirst.assertEvents(FloatingToolbar.PHASE_MORPH_START);
+    }
+
+    @Test
+    public void listenerAddedDuringDispatchIsNotifiedFromTheNextOne() {
+        mListeners.add(new FloatingToolbar.SimpleMorphListener() {
+            @Override
+            public void onMorphStart() {
+                mListeners.add(mSecond, FloatingToolbar.PHASE_ALL);
+            }
+        }, FloatingToolbar.PHASE_ALL);
+
+        mListeners.dispatch(FloatingToolbar.PHASE_MORPH_START);
+        mSecond.assertEvents();
+
+        mListeners.dispatch(FloatingToolbar.PHASE_MORPH_END);
+        mSecond.assertEvents(FloatingToolbar.PHASE_MORPH_END);
+    }
+
+    @Test
+    public void listenerRemovedDuringDispatchIsStillNotifiedByIt() {
+        mListeners.add(new FloatingToolbar.SimpleMorphListener() {
+            @Override
+            public void onMorphStart() {
+                mListeners.remove(mSecond);
+                mListeners.remove(this);
+            }
+        }, FloatingToolbar.PHASE_ALL);
+        mListeners.add(mSecond, FloatingToolbar.PHASE_ALL);
+
+        mListeners.dispatch(FloatingToolbar.PHASE_MORPH_START);
+        mSecond.assertEvents(FloatingToolbar.PHASE_MORPH_START);
+
+        mListeners.dispatch(FloatingToolbar.PHASE_MORPH_END);
+        mSecond.assertEvents(FloatingToolbar.PHASE_MORPH_START);
+    }
+
+    @Test
+    public void removeComparesIdentity() {
+        EqualListener first = new EqualListener();
+        EqualListener second = new EqualListener();
+        assertEquals(first, second);
+        mListeners.add(first, FloatingToolbar.PHASE_ALL);
+        mListeners.add(second, FloatingToolbar.PHASE_ALL);
+
+        mListeners.remove(new EqualListener());
+        mListeners.remove(second);
+        mListeners.dispatch(FloatingToolbar.PHASE_MORPH_START);
+
+        assertEquals(1, first.count);
+        assertEquals(0, second.count);
+    }
+
+    @Test
+    public void clearRemovesEveryListener() {
+        mListeners.add(mFirst, FloatingToolbar.PHASE_ALL);
+        mListeners.add(mSecond, FloatingToolbar.PHASE_ALL);
+
+        mListeners.clear();
+        dispatchAll();
+
+        mFirst.assertEvents();
+        mSecond.assertEvents();
+    }
+
+    @Test
+    public void dispatchDoesNotAllocate() {
+        Assume.assumeTrue(AllocationCounter.isSupported());
+        mListeners.add(new FloatingToolbar.SimpleMorphListener(), FloatingToolbar.PHASE_ALL);
+        mListeners.add(new FloatingToolbar.SimpleMorphListener(),
+                FloatingToolbar.PHASE_MORPH_END);
+
+        long bytes = AllocationCounter.measure(new Runnable() {
+            @Override
+            public void run() {
+                dispatchAll();
+            }
+        }, 1000);
+
+        assertEquals(0, bytes);
+    }
+
+    private void dispatchAll() {
+        mListeners.dispatch(FloatingToolbar.PHASE_MORPH_START);
+        mListeners.dispatch(FloatingToolbar.PHASE_MORPH_END);
+        mListeners.dispatch(FloatingToolbar.PHASE_UNMORPH_START);
+        mListeners.dispatch(FloatingToolbar.PHASE_UNMORPH_END);
+    }
+
+    /**
+     * Listener that's equal to every other one of its class
+     */
+    private static class EqualListener extends FloatingToolbar.SimpleMorphListener {
+
+        int count;
+
+        @Override
+        public void onMorphStart() {
+            count++;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof EqualListener;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+}
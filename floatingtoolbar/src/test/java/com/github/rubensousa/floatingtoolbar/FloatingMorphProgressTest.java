@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.view.View;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A morph driven by a progress goes through the same frames as the timed show
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingMorphProgressTest {
+
+    // The timed animators can start a frame later than show() is called
+    private static final long TIME_TOLERANCE = 32;
+
+    private static final float VALUE_TOLERANCE = 0.5f;
+
+    private static final long[] TIMES = new long[]{48, 160, 288, 416};
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][]{
+                {"pre-lollipop", new FloatingAnimationStrategy() {
+                    @Override
+                    public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                        return new FloatingAnimatorImpl(toolbar);
+                    }
+                }},
+                {"lollipop", new FloatingAnimationStrategy() {
+                    @Override
+                    public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                        return new FloatingAnimatorLollipopImpl(toolbar);
+                    }
+                }},
+                {"reduced", new FloatingAnimationStrategy() {
+                    @Override
+                    public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+                        return new FloatingAnimatorReducedImpl(toolbar);
+                    }
+                }}
+        });
+    }
+
+    private FloatingAnimationStrategy mStrategy;
+
+    public FloatingMorphProgressTest(String name, FloatingAnimationStrategy strategy) {
+        mStrategy = strategy;
+    }
+
+    @Test
+    public void dragFollowsTheTimedShow() {
+        for (long time : TIMES) {
+            FloatingToolbarFixture fixture = new FloatingToolbarFixture(mStrategy);
+            FloatingAnimator animator = fixture.toolbar.getAnimator();
+            float duration = animator.getShowDuration();
+            fixture.toolbar.show();
+            fixture.advance(time);
+            float[] timed = getValues(fixture);
+            animator.cancel();
+
+            animator.applyProgress(Math.max(0f, (time - TIME_TOLERANCE) / duration));
+            float[] before = getValues(fixture);
+            animator.applyProgress(Math.min(1f, (time + TIME_TOLERANCE) / duration));
+            float[] after = getValues(fixture);
+
+            for (int i = 0; i < timed.length; i++) {
+                float min = Math.min(before[i], after[i]) - VALUE_TOLERANCE;
+                float max = Math.max(before[i], after[i]) + VALUE_TOLERANCE;
+                assertTrue("Value " + i + " at " + time + "ms: " + timed[i]
+                                + " isn't between " + min + " and " + max,
+                        timed[i] >= min && timed[i] <= max);
+            }
+        }
+    }
+
+    @Test
+    public void dragEndsWhereTheTimedShowEnds() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture(mStrategy);
+        fixture.showNow();
+        float[] timed = getValues(fixture);
+
+        fixture.toolbar.getAnimator().applyProgress(1f);
+
+        float[] values = getValues(fixture);
+        for (int i = 0; i < timed.length; i++) {
+            assertEquals("Value " + i, timed[i], values[i], VALUE_TOLERANCE);
+        }
+    }
+
+    @Test
+    public void lollipopDragClipsTheToolbarToTheReveal() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture(mStrategy);
+        Assume.assumeTrue(fixture.toolbar.getAnimator() instanceof FloatingAnimatorLollipopImpl);
+
+        fixture.toolbar.setMorphProgress(0.5f);
+
+        // The circular reveal is clipped instead of scaled
+        assertTrue(fixture.toolbar.getClipToOutline());
+        assertEquals(1f, fixture.toolbar.getScaleX(), 0f);
+
+        fixture.toolbar.settleMorph(true, 0f);
+        fixture.runAnimations();
+
+        assertFalse(fixture.toolbar.getClipToOutline());
+    }
+
+    private static float[] getValues(FloatingToolbarFixture fixture) {
+        View fab = fixture.fab;
+        View toolbar = fixture.toolbar;
+        View contentView = toolbar.getAnimator().getContentView();
+        return new float[]{fab.getX(), fab.getY(), fab.getScaleX(), fab.getAlpha(),
+                toolbar.getX(), toolbar.getScaleX(), toolbar.getAlpha(),
+                contentView.getAlpha(), contentView.getScaleX()};
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scroll decisions driven by a FakeFrameSource, without any scrolling view
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingScrollControllerTest {
+
+    private static final int HIDE_THRESHOLD = 100;
+    private static final int SHOW_THRESHOLD = 50;
+
+    // 1000px/s is 16px in a frame at 60Hz
+    private static final float VELOCITY_THRESHOLD = 1000f;
+
+    private FakeFrameSource mFrameSource;
+    private FloatingScrollController mController;
+    private int mForward;
+    private int mBackward;
+
+    @Before
+    public void setUp() {
+        mFrameSource = new FakeFrameSource();
+        mController = new FloatingScrollController(mFrameSource,
+                new FloatingScrollController.Callback() {
+                    @Override
+                    public void onScrollForward() {
+                        mForward++;
+                    }
+
+                    @Override
+                    public void onScrollBackward() {
+                        mBackward++;
+                    }
+                }, HIDE_THRESHOLD, SHOW_THRESHOLD, VELOCITY_THRESHOLD);
+    }
+
+    @Test
+    public void deltasAreEvaluatedOncePerFrame() {
+        for (int i = 0; i < 10; i++) {
+            mController.onScrolled(HIDE_THRESHOLD);
+        }
+        assertEquals(0, mForward);
+
+        mFrameSource.step();
+        assertEquals(1, mForward);
+        assertFalse(mFrameSource.hasCallbacks());
+    }
+
+    @Test
+    public void slowScrollHidesAtTheThreshold() {
+        scrollSlowly(HIDE_THRESHOLD - 1);
+        assertEquals(0, mForward);
+
+        scrollSlowly(1);
+        assertEquals(1, mForward);
+        assertEquals(FloatingScrollController.DIRECTION_FORWARD, mController.getDirection());
+    }
+
+    @Test
+    public void fastScrollHidesBeforeTheThreshold() {
+        scroll(1);
+        // 20px in one frame at 60Hz is 1200px/s
+        scroll(20);
+
+        assertEquals(1, mForward);
+    }
+
+    @Test
+    public void decisionIsOnlyMadeOncePerDirection() {
+        scrollSlowly(HIDE_THRESHOLD);
+        scrollSlowly(HIDE_THRESHOLD);
+        assertEquals(1, mForward);
+
+        // Hysteresis: a short scroll back doesn't show the fab
+        scrollSlowly(-(SHOW_THRESHOLD - 1));
+        assertEquals(0, mBackward);
+
+        scrollSlowly(-1);
+        assertEquals(1, mBackward);
+        assertEquals(FloatingScrollController.DIRECTION_BACKWARD, mController.getDirection());
+
+        scrollSlowly(-SHOW_THRESHOLD);
+        assertEquals(1, mBackward);
+    }
+
+    @Test
+    public void directionChangeStartsCountingAgain() {
+        scrollSlowly(HIDE_THRESHOLD - 10);
+        scrollSlowly(-10);
+        scrollSlowly(HIDE_THRESHOLD - 10);
+
+        assertEquals(0, mForward);
+        assertEquals(0, mBackward);
+    }
+
+    @Test
+    public void resetEvaluatesTheSameDirectionAgain() {
+        scrollSlowly(HIDE_THRESHOLD);
+        mController.reset();
+        scrollSlowly(HIDE_THRESHOLD);
+
+        assertEquals(2, mForward);
+    }
+
+    @Test
+    public void cancelDiscardsThePendingScroll() {
+        mController.onScrolled(HIDE_THRESHOLD);
+        mController.cancel();
+
+        assertFalse(mFrameSource.hasCallbacks());
+        mFrameSource.step();
+        assertEquals(0, mForward);
+    }
+
+    @Test
+    public void scrollingDoesNotAllocate() {
+        Assume.assumeTrue(AllocationCounter.isSupported());
+        mController.onScrolled(1);
+        assertTrue(mFrameSource.hasCallbacks());
+
+        long bytes = AllocationCounter.measure(new Runnable() {
+            @Override
+            public void run() {
+                mController.onScrolled(1);
+                mController.onScrolled(-1);
+            }
+        }, 1000);
+
+        assertEquals(0, bytes);
+    }
+
+    /**
+     * Scroll the distance in one frame
+     */
+    private void scroll(int delta) {
+        mController.onScrolled(delta);
+        mFrameSource.step();
+    }
+
+    /**
+     * Scroll the distance below the velocity threshold, 1px per frame
+     */
+    private void scrollSlowly(int distance) {
+        int delta = distance > 0 ? 1 : -1;
+        for (int i = 0; i < Math.abs(distance); i++) {
+            scroll(delta);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.content.Context;
+import android.support.v4.widget.NestedScrollView;
+import android.widget.AbsListView;
+import android.widget.ListView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Scroll sources of views that only support one listener
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingScrollSourceTest {
+
+    private FloatingToolbarFixture mFixture;
+    private FloatingToolbar mToolbar;
+
+    @Before
+    public void setUp() {
+        mFixture = new FloatingToolbarFixture();
+        mToolbar = mFixture.toolbar;
+    }
+
+    @Test
+    public void nestedScrollViewDelegateIsChained() {
+        TestScrollView scrollView = new TestScrollView(mFixture.activity);
+        ScrollChangeRecorder delegate = new ScrollChangeRecorder();
+        mFixture.showNow();
+
+        mToolbar.attachNestedScrollView(scrollView, delegate);
+        assertNotSame(delegate, scrollView.listener);
+        scrollView.listener.onScrollChange(scrollView, 0, 500, 0, 0);
+        mFixture.advance(16);
+
+        assertEquals(500, delegate.scrollY);
+        assertEquals(FloatingToolbar.STATE_HIDING, mToolbar.mState);
+    }
+
+    @Test
+    public void nestedScrollViewDelegateIsSetWhenDetached() {
+        TestScrollView scrollView = new TestScrollView(mFixture.activity);
+        ScrollChangeRecorder delegate = new ScrollChangeRecorder();
+
+        mToolbar.attachNestedScrollView(scrollView, delegate);
+        mToolbar.detachScrollView(scrollView);
+
+        assertSame(delegate, scrollView.listener);
+    }
+
+    @Test
+    public void nestedScrollViewListenerIsRemovedWithoutDelegate() {
+        TestScrollView scrollView = new TestScrollView(mFixture.activity);
+
+        mToolbar.attachNestedScrollView(scrollView);
+        assertNotNull(scrollView.listener);
+        mToolbar.detachScrollView(scrollView);
+
+        assertNull(scrollView.listener);
+    }
+
+    @Test
+    public void listViewDelegateIsChained() {
+        TestListView listView = new TestListView(mFixture.activity);
+        ScrollStateRecorder delegate = new ScrollStateRecorder();
+
+        mToolbar.attachListView(listView, delegate);
+        assertNotSame(delegate, listView.listener);
+        listView.listener.onScrollStateChanged(listView,
+                AbsListView.OnScrollListener.SCROLL_STATE_FLING);
+
+        assertEquals(AbsListView.OnScrollListener.SCROLL_STATE_FLING, delegate.scrollState);
+    }
+
+    @Test
+    public void listViewDelegateIsSetWhenDetached() {
+        TestListView listView = new TestListView(mFixture.activity);
+        ScrollStateRecorder delegate = new ScrollStateRecorder();
+
+        mToolbar.attachListView(listView, delegate);
+        mToolbar.detachScrollView(listView);
+
+        assertSame(delegate, listView.listener);
+    }
+
+    /**
+     * Keeps the listener that's set, since NestedScrollView has no getter for it
+     */
+    private static class TestScrollView extends NestedScrollView {
+
+        OnScrollChangeListener listener;
+
+        TestScrollView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void setOnScrollChangeListener(OnScrollChangeListener l) {
+            super.setOnScrollChangeListener(l);
+            listener = l;
+        }
+    }
+
+    /**
+     * Keeps the listener that's set, since AbsListView has no getter for it
+     */
+    private static class TestListView extends ListView {
+
+        OnScrollListener listener;
+
+        TestListView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void setOnScrollListener(OnScrollListener l) {
+            super.setOnScrollListener(l);
+            listener = l;
+        }
+    }
+
+    private static class ScrollChangeRecorder implements NestedScrollView.OnScrollChangeListener {
+
+        int scrollY;
+
+        @Override
+        public void onScrollChange(NestedScrollView v, int scrollX, int scrollY,
+                                   int oldScrollX, int oldScrollY) {
+            this.scrollY = scrollY;
+        }
+    }
+
+    private static class ScrollStateRecorder implements AbsListView.OnScrollListener {
+
+        int scrollState = -1;
+
+        @Override
+        public void onScrollStateChanged(AbsListView view, int scrollState) {
+            this.scrollState = scrollState;
+        }
+
+        @Override
+        public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
+                             int totalItemCount) {
+
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.support.design.widget.CoordinatorLayout;
+import android.support.design.widget.Snackbar;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingSnackBarManagerTest {
+
+    private FloatingToolbarFixture mFixture;
+    private FloatingToolbar mToolbar;
+    private FloatingSnackBarManager mManager;
+
+    @Before
+    public void setUp() {
+        mFixture = new FloatingToolbarFixture();
+        mToolbar = mFixture.toolbar;
+        mManager = new FloatingSnackBarManager(mToolbar);
+    }
+
+    @Test
+    public void snackbarIsShownWhenIdle() {
+        Snackbar snackbar = createSnackbar("a");
+        mManager.showSnackBar(snackbar, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+
+        assertSame(snackbar, mManager.mSnackBar);
+    }
+
+    @Test
+    public void snackbarWaitsForTheMorph() {
+        mToolbar.show();
+        Snackbar snackbar = createSnackbar("a");
+        mManager.showSnackBar(snackbar, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+
+        assertNull(mManager.mSnackBar);
+
+        mFixture.runAnimations();
+
+        assertSame(snackbar, mManager.mSnackBar);
+    }
+
+    @Test
+    public void queuedSnackbarsAreShownByPriorityThenByOrder() {
+        mToolbar.show();
+        Snackbar low = createSnackbar("low");
+        Snackbar normal = createSnackbar("normal");
+        Snackbar high = createSnackbar("high");
+        Snackbar otherNormal = createSnackbar("other");
+        mManager.showSnackBar(low, FloatingToolbar.SNACKBAR_PRIORITY_LOW);
+        mManager.showSnackBar(normal, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+        mManager.showSnackBar(high, FloatingToolbar.SNACKBAR_PRIORITY_HIGH);
+        mManager.showSnackBar(otherNormal, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+        mFixture.runAnimations();
+
+        assertSame(high, mManager.mSnackBar);
+        dismissCurrent();
+        assertSame(normal, mManager.mSnackBar);
+        dismissCurrent();
+        assertSame(otherNormal, mManager.mSnackBar);
+        dismissCurrent();
+        assertSame(low, mManager.mSnackBar);
+        dismissCurrent();
+        assertNull(mManager.mSnackBar);
+    }
+
+    @Test
+    public void snackbarWithSameTextIsIgnored() {
+        Snackbar first = createSnackbar("a");
+        mManager.showSnackBar(first, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+        mManager.showSnackBar(createSnackbar("a"), FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+
+        assertSame(first, mManager.mSnackBar);
+        dismissCurrent();
+        assertNull(mManager.mSnackBar);
+    }
+
+    @Test
+    public void higherPriorityDismissesTheCurrentSnackbar() {
+        Snackbar normal = createSnackbar("normal");
+        Snackbar high = createSnackbar("high");
+        mManager.showSnackBar(normal, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+        mManager.showSnackBar(high, FloatingToolbar.SNACKBAR_PRIORITY_HIGH);
+        mFixture.runAnimations();
+
+        assertSame(high, mManager.mSnackBar);
+    }
+
+    @Test
+    public void showIsDelayedUntilTheSnackbarIsDismissed() {
+        MorphEventRecorder events = mFixture.events;
+        mManager.showSnackBar(createSnackbar("a"), FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+
+        mManager.dismissAndShow();
+        events.assertEvents();
+
+        mFixture.runAnimations();
+        events.assertEvents(FloatingToolbar.PHASE_MORPH_START, FloatingToolbar.PHASE_MORPH_END);
+    }
+
+    @Test
+    public void intervalDelaysTheNextSnackbar() {
+        mManager.setMinInterval(1000);
+        Snackbar first = createSnackbar("a");
+        Snackbar second = createSnackbar("b");
+        mManager.showSnackBar(first, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+        mManager.showSnackBar(second, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+        first.dismiss();
+        mFixture.advance(500);
+
+        assertNull(mManager.mSnackBar);
+
+        mFixture.advance(600);
+        assertSame(second, mManager.mSnackBar);
+    }
+
+    @Test
+    public void queueGrowsAndKeepsTheOrder() {
+        mToolbar.show();
+        Snackbar[] snackbars = new Snackbar[10];
+        for (int i = 0; i < snackbars.length; i++) {
+            snackbars[i] = createSnackbar("snackbar" + i);
+            mManager.showSnackBar(snackbars[i], i % 2 == 0 ? FloatingToolbar.SNACKBAR_PRIORITY_LOW
+                    : FloatingToolbar.SNACKBAR_PRIORITY_HIGH);
+        }
+        mFixture.runAnimations();
+
+        // The odd ones have the high priority
+        for (int i = 1; i < snackbars.length; i += 2) {
+            assertSame(snackbars[i], mManager.mSnackBar);
+            dismissCurrent();
+        }
+        for (int i = 0; i < snackbars.length; i += 2) {
+            assertSame(snackbars[i], mManager.mSnackBar);
+            dismissCurrent();
+        }
+        assertNull(mManager.mSnackBar);
+    }
+
+    @Test
+    public void queuedSnackbarWithSameTextTakesTheHigherPriority() {
+        mToolbar.show();
+        Snackbar first = createSnackbar("a");
+        Snackbar second = createSnackbar("b");
+        mManager.showSnackBar(first, FloatingToolbar.SNACKBAR_PRIORITY_LOW);
+        mManager.showSnackBar(second, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+        Snackbar upgraded = createSnackbar("a");
+        mManager.showSnackBar(upgraded, FloatingToolbar.SNACKBAR_PRIORITY_HIGH);
+        mFixture.runAnimations();
+
+        assertSame(upgraded, mManager.mSnackBar);
+        dismissCurrent();
+        assertSame(second, mManager.mSnackBar);
+        dismissCurrent();
+        assertNull(mManager.mSnackBar);
+    }
+
+    @Test
+    public void marginIsRestoredWhenDismissed() {
+        mFixture.showNow();
+        Snackbar snackbar = createSnackbar("a");
+        getParams(snackbar).bottomMargin = 10;
+
+        mManager.showSnackBar(snackbar, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+        assertEquals(10 + mToolbar.getHeight(), getParams(snackbar).bottomMargin);
+
+        dismissCurrent();
+        assertEquals(10, getParams(snackbar).bottomMargin);
+    }
+
+    @Test
+    public void marginIsKeptWhileHidden() {
+        Snackbar snackbar = createSnackbar("a");
+        getParams(snackbar).bottomMargin = 10;
+
+        mManager.showSnackBar(snackbar, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+
+        assertEquals(10, getParams(snackbar).bottomMargin);
+    }
+
+    @Test
+    public void releaseStopsTheQueue() {
+        mManager.setMinInterval(1000);
+        Snackbar first = createSnackbar("a");
+        mManager.showSnackBar(first, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+        mManager.showSnackBar(createSnackbar("b"), FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+        first.dismiss();
+        mFixture.advance(500);
+
+        mManager.release();
+        mFixture.advance(1000);
+
+        assertNull(mManager.mSnackBar);
+    }
+
+    @Test
+    public void releaseIgnoresTheDismissOfTheCurrentSnackbar() {
+        Snackbar snackbar = createSnackbar("a");
+        mManager.showSnackBar(snackbar, FloatingToolbar.SNACKBAR_PRIORITY_NORMAL);
+        mManager.dismissAndShow();
+
+        mManager.release();
+        mFixture.runAnimations();
+
+        mFixture.events.assertEvents();
+    }
+
+    private Snackbar createSnackbar(String text) {
+        return Snackbar.make(mFixture.coordinatorLayout, text, Snackbar.LENGTH_INDEFINITE);
+    }
+
+    private void dismissCurrent() {
+        mManager.mSnackBar.dismiss();
+        mFixture.advance(1000);
+    }
+
+    private static CoordinatorLayout.LayoutParams getParams(Snackbar snackbar) {
+        return (CoordinatorLayout.LayoutParams) snackbar.getView().getLayoutParams();
+    }
+}
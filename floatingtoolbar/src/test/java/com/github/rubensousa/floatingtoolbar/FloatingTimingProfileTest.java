@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.content.res.Configuration;
+import android.provider.Settings;
+import android.util.AttributeSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Total duration of the morph under each built-in FloatingTimingProfile
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingTimingProfileTest {
+
+    private static final long FRAME = 16;
+
+    private static final FloatingTimingProfile[] PROFILES = new FloatingTimingProfile[]{
+            FloatingTimingProfile.DEFAULT, FloatingTimingProfile.FAST,
+            FloatingTimingProfile.REDUCED};
+
+    private static final FloatingAnimationStrategy PRE_LOLLIPOP
+            = new FloatingAnimationStrategy() {
+        @Override
+        public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+            return new FloatingAnimatorImpl(toolbar);
+        }
+    };
+
+    private static final FloatingAnimationStrategy LOLLIPOP = new FloatingAnimationStrategy() {
+        @Override
+        public FloatingAnimator createAnimator(FloatingToolbar toolbar) {
+            return new FloatingAnimatorLollipopImpl(toolbar);
+        }
+    };
+
+    // Without a delay, the durations only come from the profile
+    private static final FloatingDelayModel NO_DELAY = new FloatingDelayModel() {
+        @Override
+        public long getDelay(float travel, float frameInterval, FloatingTimingProfile profile) {
+            return 0;
+        }
+    };
+
+    @Test
+    public void durationsComeFromTheProfile() {
+        for (FloatingTimingProfile profile : PROFILES) {
+            FloatingAnimator lollipop = createFixture(LOLLIPOP, profile).toolbar.getAnimator();
+            FloatingAnimator preLollipop = createFixture(PRE_LOLLIPOP, profile).toolbar
+                    .getAnimator();
+
+            long showDuration = profile.getMenuDelay() + profile.getMenuDuration();
+            assertEquals(showDuration, lollipop.getShowDuration());
+            assertEquals(showDuration, preLollipop.getShowDuration());
+            assertEquals(profile.getFabUnmorphDelay() + profile.getFabUnmorphDuration(),
+                    lollipop.getHideDuration());
+            assertEquals(profile.getFabUnmorphScaleDelay() + profile.getFabUnmorphDuration(),
+                    preLollipop.getHideDuration());
+        }
+    }
+
+    @Test
+    public void attributeValuesAreNamedLikeTheProfiles() {
+        String[] values = new String[]{"default", "fast", "reduced"};
+        for (int i = 0; i < values.length; i++) {
+            AttributeSet attrs = Robolectric.buildAttributeSet()
+                    .addAttribute(R.attr.floatingTimingProfile, values[i])
+                    .build();
+            FloatingToolbarFixture fixture = new FloatingToolbarFixture(null, attrs);
+            assertSame(values[i], PROFILES[i], fixture.toolbar.getTimingProfile());
+        }
+    }
+
+    @Test
+    public void fastAndReducedProfilesAreShorter() {
+        long normal = getShowDuration(FloatingTimingProfile.DEFAULT);
+        long fast = getShowDuration(FloatingTimingProfile.FAST);
+        long reduced = getShowDuration(FloatingTimingProfile.REDUCED);
+
+        assertEquals(0.6f * normal, fast, 2);
+        assertTrue("reduced: " + reduced + "ms, normal: " + normal + "ms", reduced < normal);
+    }
+
+    @Test
+    public void preLollipopMorphLastsItsDuration() {
+        assertMorphDurations(PRE_LOLLIPOP);
+    }
+
+    @Test
+    public void lollipopMorphLastsItsDuration() {
+        assertMorphDurations(LOLLIPOP);
+    }
+
+    @Test
+    public void durationScaleStretchesEveryProfile() {
+        for (FloatingTimingProfile profile : PROFILES) {
+            FloatingToolbarFixture fixture = createFixture(LOLLIPOP, profile);
+            FloatingAnimator animator = fixture.toolbar.getAnimator();
+            Settings.Global.putFloat(fixture.activity.getContentResolver(),
+                    Settings.Global.ANIMATOR_DURATION_SCALE, 2f);
+            fixture.toolbar.onConfigurationChanged(new Configuration());
+
+            fixture.toolbar.show();
+            assertEquals(2 * animator.getShowDuration(), animator.getPlannedDuration());
+            fixture.runAnimations();
+
+            fixture.toolbar.hide();
+            assertEquals(2 * animator.getHideDuration(), animator.getPlannedDuration());
+            fixture.runAnimations();
+
+            Settings.Global.putFloat(fixture.activity.getContentResolver(),
+                    Settings.Global.ANIMATOR_DURATION_SCALE, 1f);
+        }
+    }
+
+    /**
+     * Run a show and a hide with every profile, with the delay of the default model
+     */
+    private static void assertMorphDurations(FloatingAnimationStrategy strategy) {
+        for (FloatingTimingProfile profile : PROFILES) {
+            FloatingToolbarFixture fixture = new FloatingToolbarFixture(strategy);
+            fixture.toolbar.setTimingProfile(profile);
+            FloatingAnimator animator = fixture.toolbar.getAnimator();
+
+            long showDuration = measure(fixture, true);
+            assertEquals(animator.getShowDuration(), showDuration, 2 * FRAME);
+
+            long hideDuration = measure(fixture, false);
+            assertEquals(animator.getHideDuration(), hideDuration, 2 * FRAME);
+        }
+    }
+
+    private static long getShowDuration(FloatingTimingProfile profile) {
+        return createFixture(LOLLIPOP, profile).toolbar.getAnimator().getShowDuration();
+    }
+
+    private static FloatingToolbarFixture createFixture(FloatingAnimationStrategy strategy,
+                                                       FloatingTimingProfile profile) {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture(strategy);
+        fixture.toolbar.setTimingProfile(profile);
+        fixture.toolbar.setDelayModel(NO_DELAY);
+        return fixture;
+    }
+
+    /**
+     * @return milliseconds from the start of the morph until it ends, in frames
+     */
+    private static long measure(FloatingToolbarFixture fixture, boolean show) {
+        int endState = show ? FloatingToolbar.STATE_SHOWN : FloatingToolbar.STATE_HIDDEN;
+        if (show) {
+            fixture.toolbar.show();
+        } else {
+            fixture.toolbar.hide();
+        }
+        long elapsed = 0;
+        while (fixture.toolbar.mState != endState
+                && elapsed < FloatingToolbarFixture.ANIMATION_END) {
+            fixture.advance(FRAME);
+            elapsed += FRAME;
+        }
+        return elapsed;
+    }
+}
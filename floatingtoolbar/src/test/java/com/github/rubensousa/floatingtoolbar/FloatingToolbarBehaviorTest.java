@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.support.design.widget.AppBarLayout;
+import android.support.design.widget.CoordinatorLayout;
+import android.support.design.widget.Snackbar;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingToolbarBehaviorTest {
+
+    private static final int SNACKBAR_HEIGHT = 48;
+    private static final int APPBAR_HEIGHT = 100;
+
+    private FloatingToolbarFixture mFixture;
+    private FloatingToolbar mToolbar;
+
+    @Before
+    public void setUp() {
+        mFixture = new FloatingToolbarFixture();
+        mToolbar = mFixture.toolbar;
+    }
+
+    @Test
+    public void toolbarMovesAboveSnackbar() {
+        View snackbar = addSnackbar(0);
+
+        mFixture.coordinatorLayout.dispatchDependentViewsChanged(snackbar);
+
+        assertEquals(-SNACKBAR_HEIGHT, mToolbar.getTranslationY(), 0f);
+    }
+
+    @Test
+    public void toolbarFollowsSlidingSnackbar() {
+        View snackbar = addSnackbar(0);
+        snackbar.setTranslationY(SNACKBAR_HEIGHT / 2);
+
+        mFixture.coordinatorLayout.dispatchDependentViewsChanged(snackbar);
+
+        assertEquals(-SNACKBAR_HEIGHT / 2, mToolbar.getTranslationY(), 0f);
+    }
+
+    @Test
+    public void snackbarAboveToolbarDoesntMoveIt() {
+        View snackbar = addSnackbar(FloatingToolbarFixture.TOOLBAR_HEIGHT);
+
+        mFixture.coordinatorLayout.dispatchDependentViewsChanged(snackbar);
+
+        assertEquals(0f, mToolbar.getTranslationY(), 0f);
+    }
+
+    @Test
+    public void toolbarMovesBackWhenSnackbarIsRemoved() {
+        View snackbar = addSnackbar(0);
+        mFixture.coordinatorLayout.dispatchDependentViewsChanged(snackbar);
+
+        mFixture.coordinatorLayout.removeView(snackbar);
+
+        assertEquals(0f, mToolbar.getTranslationY(), 0f);
+    }
+
+    @Test
+    public void toolbarAtTopStaysBelowAppBar() {
+        CoordinatorLayout.LayoutParams params
+                = (CoordinatorLayout.LayoutParams) mToolbar.getLayoutParams();
+        params.gravity = Gravity.TOP;
+        mToolbar.setLayoutParams(params);
+        AppBarLayout appBar = new AppBarLayout(mFixture.activity);
+        mFixture.coordinatorLayout.addView(appBar, new CoordinatorLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, APPBAR_HEIGHT));
+        mFixture.layout();
+
+        mFixture.coordinatorLayout.dispatchDependentViewsChanged(appBar);
+        assertEquals(APPBAR_HEIGHT, mToolbar.getTranslationY(), 0f);
+
+        // Collapsed by half
+        appBar.offsetTopAndBottom(-APPBAR_HEIGHT / 2);
+        mFixture.coordinatorLayout.dispatchDependentViewsChanged(appBar);
+        assertEquals(APPBAR_HEIGHT / 2, mToolbar.getTranslationY(), 0f);
+    }
+
+    @Test
+    public void appBarAttachedOutsideTheBehaviorIsObserved() throws Exception {
+        AppBarLayout appBar = new AppBarLayout(mFixture.activity);
+
+        mToolbar.attachAppBarLayout(appBar);
+        assertEquals(1, getOffsetListeners(appBar).size());
+
+        mToolbar.detachAppBarLayout();
+        assertTrue(getOffsetListeners(appBar).isEmpty());
+    }
+
+    @Test
+    public void morphEndsAtTheToolbarAboveSnackbar() {
+        View snackbar = addSnackbar(0);
+        mFixture.coordinatorLayout.dispatchDependentViewsChanged(snackbar);
+
+        mToolbar.show();
+        mFixture.runAnimations();
+
+        FloatingMorphGeometry geometry = mToolbar.getAnimator().getGeometry();
+        assertEquals(mToolbar.getY(), geometry.fabTop + geometry.fabDiff, 0f);
+        assertFalse(mToolbar.isAnimating());
+    }
+
+    private View addSnackbar(int bottomMargin) {
+        View snackbar = Snackbar.make(mFixture.coordinatorLayout, "Snackbar",
+                Snackbar.LENGTH_SHORT).getView();
+        CoordinatorLayout.LayoutParams params = new CoordinatorLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, SNACKBAR_HEIGHT);
+        params.gravity = Gravity.BOTTOM;
+        params.bottomMargin = bottomMargin;
+        mFixture.coordinatorLayout.addView(snackbar, params);
+        mFixture.layout();
+        return snackbar;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<AppBarLayout.OnOffsetChangedListener> getOffsetListeners(
+            AppBarLayout appBar) throws Exception {
+        Field field = AppBarLayout.class.getDeclaredField("mListeners");
+        field.setAccessible(true);
+        return (List<AppBarLayout.OnOffsetChangedListener>) field.get(appBar);
+    }
+}
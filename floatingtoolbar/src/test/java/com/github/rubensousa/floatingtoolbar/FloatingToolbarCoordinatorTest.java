@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.support.animation.SpringAnimation;
+import android.support.design.widget.CoordinatorLayout;
+import android.support.design.widget.FloatingActionButton;
+import android.view.Gravity;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_MORPH_END;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_MORPH_START;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_UNMORPH_END;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_UNMORPH_START;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Switching fabs with a FloatingToolbarCoordinator, with and without a layout
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingToolbarCoordinatorTest {
+
+    private FloatingToolbarFixture mFixture;
+    private FloatingActionButton mOtherFab;
+    private FloatingToolbarCoordinator mCoordinator;
+
+    @Before
+    public void setUp() {
+        mFixture = new FloatingToolbarFixture();
+        mOtherFab = new FloatingActionButton(mFixture.activity);
+        CoordinatorLayout.LayoutParams params = new CoordinatorLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        params.gravity = Gravity.BOTTOM | Gravity.START;
+        mFixture.coordinatorLayout.addView(mOtherFab, params);
+        mFixture.layout();
+        mCoordinator = new FloatingToolbarCoordinator();
+        mCoordinator.bind(mFixture.toolbar, mFixture.fab);
+        mCoordinator.bind(mFixture.toolbar, mOtherFab);
+    }
+
+    @Test
+    public void showWithoutLayoutDispatchesWholeMorph() {
+        FloatingToolbar toolbar = new FloatingToolbar(mFixture.activity);
+        MorphEventRecorder events = new MorphEventRecorder();
+        toolbar.addMorphListener(events);
+        toolbar.attachFab(new FloatingActionButton(mFixture.activity));
+
+        toolbar.show();
+        assertEquals(FloatingToolbar.STATE_SHOWN, toolbar.mState);
+        events.assertEvents(PHASE_MORPH_START, PHASE_MORPH_END);
+
+        events.clear();
+        toolbar.hide();
+        assertEquals(FloatingToolbar.STATE_HIDDEN, toolbar.mState);
+        events.assertEvents(PHASE_UNMORPH_START, PHASE_UNMORPH_END);
+    }
+
+    @Test
+    public void switchWithoutLayoutShowsPendingFab() {
+        FloatingToolbar toolbar = new FloatingToolbar(mFixture.activity);
+        FloatingActionButton fab = new FloatingActionButton(mFixture.activity);
+        FloatingActionButton otherFab = new FloatingActionButton(mFixture.activity);
+        FloatingToolbarCoordinator coordinator = new FloatingToolbarCoordinator();
+        coordinator.bind(toolbar, fab);
+        coordinator.bind(toolbar, otherFab);
+
+        coordinator.show(fab);
+        coordinator.show(otherFab);
+
+        // The hide ends right away, so the pending fab doesn't wait for an animation
+        assertSame(otherFab, coordinator.getActiveFab());
+        assertEquals(FloatingToolbar.STATE_SHOWN, toolbar.mState);
+    }
+
+    @Test
+    public void animationChangeKeepsPreparedFabs() {
+        FloatingToolbar toolbar = mFixture.toolbar;
+        toolbar.attachFab(mOtherFab);
+        FloatingMorphGeometry otherGeometry = toolbar.getAnimator().getGeometry();
+        toolbar.attachFab(mFixture.fab);
+        FloatingMorphGeometry geometry = toolbar.getAnimator().getGeometry();
+
+        toolbar.setAnimation(FloatingAnimations.get(FloatingAnimations.SPRING));
+
+        assertSame(mFixture.fab, toolbar.getAnimator().getFab());
+        assertSame(geometry, toolbar.getAnimator().getGeometry());
+        toolbar.attachFab(mOtherFab);
+        assertSame(otherGeometry, toolbar.getAnimator().getGeometry());
+    }
+
+    @Test
+    public void animationChangeKeepsSwitchingFabs() {
+        mFixture.toolbar.setAnimation(FloatingAnimations.get(FloatingAnimations.SPRING));
+
+        mCoordinator.show(mFixture.fab);
+        mFixture.runAnimations();
+        mCoordinator.show(mOtherFab);
+        mFixture.runAnimations();
+
+        assertSame(mOtherFab, mCoordinator.getActiveFab());
+        assertSame(mOtherFab, mFixture.toolbar.getAnimator().getFab());
+        assertEquals(FloatingToolbar.STATE_SHOWN, mFixture.toolbar.mState);
+    }
+
+    @Test
+    public void springsAreReusedWhenSwitchingBack() throws Exception {
+        FloatingToolbar toolbar = mFixture.toolbar;
+        toolbar.setAnimation(FloatingAnimations.get(FloatingAnimations.SPRING));
+        FloatingAnimator animator = toolbar.getAnimator();
+        SpringAnimation fabSpring = getFabSpring(animator);
+
+        toolbar.attachFab(mOtherFab);
+        toolbar.attachFab(mFixture.fab);
+
+        assertSame(fabSpring, getFabSpring(animator));
+    }
+
+    private static SpringAnimation getFabSpring(FloatingAnimator animator) throws Exception {
+        Field field = FloatingAnimatorSpringImpl.class.getDeclaredField("mFabX");
+        field.setAccessible(true);
+        return (SpringAnimation) field.get(animator);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.app.Activity;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.support.design.widget.CoordinatorLayout;
+import android.support.design.widget.FloatingActionButton;
+import android.util.AttributeSet;
+import android.view.Gravity;
+import android.view.Menu;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.robolectric.Robolectric;
+import org.robolectric.util.Scheduler;
+
+/**
+ * Activity with a CoordinatorLayout that holds a FloatingToolbar and a fab,
+ * driven by a FakeFrameSource that moves together with the main looper
+ */
+class FloatingToolbarFixture {
+
+    static final int WIDTH = 480;
+    static final int HEIGHT = 800;
+    static final int TOOLBAR_HEIGHT = 56;
+
+    // Long enough for every built-in animation to end
+    static final long ANIMATION_END = 3000;
+
+    final Activity activity;
+    final CoordinatorLayout coordinatorLayout;
+    final FloatingToolbar toolbar;
+    final FloatingActionButton fab;
+    final FakeFrameSource frameSource;
+    final MorphEventRecorder events;
+
+    private Scheduler mScheduler;
+
+    FloatingToolbarFixture() {
+        this(null);
+    }
+
+    /**
+     * @param strategy animation used by the FloatingToolbar, or null for the default one
+     */
+    FloatingToolbarFixture(FloatingAnimationStrategy strategy) {
+        this(strategy, null);
+    }
+
+    /**
+     * @param strategy animation used by the FloatingToolbar, or null for the default one
+     * @param attrs    attributes of the FloatingToolbar, or null for none
+     */
+    FloatingToolbarFixture(FloatingAnimationStrategy strategy, AttributeSet attrs) {
+        activity = Robolectric.setupActivity(Activity.class);
+        activity.setTheme(R.style.Theme_AppCompat_Light_NoActionBar);
+        mScheduler = Robolectric.getForegroundThreadScheduler();
+        frameSource = new FakeFrameSource(mScheduler.getCurrentTime()
+                * FakeFrameSource.NANOS_PER_MILLI);
+
+        coordinatorLayout = new CoordinatorLayout(activity);
+        toolbar = new FloatingToolbar(activity, attrs);
+        toolbar.setFrameSource(frameSource);
+        toolbar.setMenu(createMenu(4));
+        CoordinatorLayout.LayoutParams toolbarParams = new CoordinatorLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, TOOLBAR_HEIGHT);
+        toolbarParams.gravity = Gravity.BOTTOM;
+        coordinatorLayout.addView(toolbar, toolbarParams);
+
+        fab = new FloatingActionButton(activity);
+        CoordinatorLayout.LayoutParams fabParams = new CoordinatorLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT);
+        fabParams.gravity = Gravity.BOTTOM | Gravity.END;
+        fabParams.setMargins(16, 16, 16, 16);
+        coordinatorLayout.addView(fab, fabParams);
+
+        activity.setContentView(coordinatorLayout);
+        if (strategy != null) {
+            toolbar.setAnimation(strategy);
+        }
+        toolbar.attachFab(fab);
+        events = new MorphEventRecorder();
+        toolbar.addMorphListener(events);
+        layout();
+    }
+
+    Menu createMenu(int items) {
+        FloatingToolbarMenuBuilder builder = new FloatingToolbarMenuBuilder(activity);
+        for (int i = 0; i < items; i++) {
+            builder.addItem(i + 1, new ColorDrawable(Color.BLACK), "Item " + i);
+        }
+        return builder.build();
+    }
+
+    void layout() {
+        layout(WIDTH, HEIGHT);
+    }
+
+    void layout(int width, int height) {
+        coordinatorLayout.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        coordinatorLayout.layout(0, 0, width, height);
+    }
+
+    /**
+     * Run the frames and the main looper for the given time
+     */
+    void advance(long millis) {
+        long end = frameSource.nanoTime() + millis * FakeFrameSource.NANOS_PER_MILLI;
+        long interval = frameSource.getFrameIntervalNanos();
+        while (frameSource.nanoTime() + interval <= end) {
+            mScheduler.advanceTo((frameSource.nanoTime() + interval)
+                    / FakeFrameSource.NANOS_PER_MILLI);
+            frameSource.step();
+        }
+        mScheduler.advanceTo(end / FakeFrameSource.NANOS_PER_MILLI);
+        frameSource.advance(end - frameSource.nanoTime());
+    }
+
+    void runAnimations() {
+        advance(ANIMATION_END);
+    }
+
+    /**
+     * Show the FloatingToolbar and wait for the morph to end, without recording its events
+     */
+    void showNow() {
+        toolbar.show();
+        runAnimations();
+        events.clear();
+    }
+}
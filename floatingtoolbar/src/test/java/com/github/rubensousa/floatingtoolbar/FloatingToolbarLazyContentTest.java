@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingToolbarLazyContentTest {
+
+    private FloatingToolbarFixture mFixture;
+    private FloatingToolbar mToolbar;
+
+    @Before
+    public void setUp() {
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.floatingLazyContent, "true")
+                .build();
+        mFixture = new FloatingToolbarFixture(null, attrs);
+        mToolbar = mFixture.toolbar;
+    }
+
+    @Test
+    public void noContentViewsExistBeforeTheFirstShow() {
+        assertTrue(mToolbar.isLazyContent());
+        assertEquals(0, mToolbar.getChildCount());
+        assertNull(mToolbar.getAnimator().getContentView());
+
+        mFixture.layout();
+
+        assertEquals(0, mToolbar.getChildCount());
+    }
+
+    @Test
+    public void contentViewsAreCreatedOnce() {
+        mFixture.showNow();
+        ViewGroup contentView = (ViewGroup) mToolbar.getAnimator().getContentView();
+        assertNotNull(contentView);
+        assertEquals(1, mToolbar.getChildCount());
+        View[] items = new View[contentView.getChildCount()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = contentView.getChildAt(i);
+        }
+
+        mToolbar.hide();
+        mFixture.runAnimations();
+        mFixture.showNow();
+
+        assertSame(contentView, mToolbar.getAnimator().getContentView());
+        assertEquals(1, mToolbar.getChildCount());
+        assertEquals(items.length, contentView.getChildCount());
+        for (int i = 0; i < items.length; i++) {
+            assertSame(items[i], contentView.getChildAt(i));
+        }
+    }
+
+    @Test
+    public void menuSetBeforeTheFirstShowIsApplied() {
+        mToolbar.setMenu(mFixture.createMenu(2));
+        mToolbar.setMenu(mFixture.createMenu(6), true);
+        assertEquals(0, mToolbar.getChildCount());
+
+        mFixture.showNow();
+
+        ViewGroup contentView = (ViewGroup) mToolbar.getAnimator().getContentView();
+        assertEquals(6, contentView.getChildCount());
+        for (int i = 0; i < 6; i++) {
+            View view = contentView.getChildAt(i);
+            assertEquals(i + 1, view.getId());
+            assertSame(mToolbar.getMenu().getItem(i), view.getTag());
+        }
+    }
+
+    @Test
+    public void disablingLazyContentCreatesTheViews() {
+        mToolbar.setLazyContent(false);
+
+        ViewGroup contentView = (ViewGroup) mToolbar.getAnimator().getContentView();
+        assertNotNull(contentView);
+        assertEquals(4, contentView.getChildCount());
+    }
+}
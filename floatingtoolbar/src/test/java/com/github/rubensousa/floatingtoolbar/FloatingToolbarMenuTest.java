@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.view.Menu;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingToolbarMenuTest {
+
+    private FloatingToolbarFixture mFixture;
+    private FloatingToolbar mToolbar;
+    private ViewGroup mContentView;
+
+    @Before
+    public void setUp() {
+        mFixture = new FloatingToolbarFixture();
+        mToolbar = mFixture.toolbar;
+        mContentView = (ViewGroup) mToolbar.getAnimator().getContentView();
+    }
+
+    @Test
+    public void addedItemKeepsTheOtherViews() {
+        View[] views = getItemViews();
+
+        mToolbar.setMenu(createMenu(1, 2, 5, 3, 4));
+
+        assertEquals(5, mContentView.getChildCount());
+        assertSame(views[0], mContentView.getChildAt(0));
+        assertSame(views[1], mContentView.getChildAt(1));
+        assertSame(views[2], mContentView.getChildAt(3));
+        assertSame(views[3], mContentView.getChildAt(4));
+        assertEquals(5, mContentView.getChildAt(2).getId());
+    }
+
+    @Test
+    public void removedItemViewIsPooled() {
+        View[] views = getItemViews();
+        int pooled = getPoolSize();
+
+        mToolbar.setMenu(createMenu(1, 3, 4));
+
+        assertEquals(3, mContentView.getChildCount());
+        assertSame(views[0], mContentView.getChildAt(0));
+        assertSame(views[2], mContentView.getChildAt(1));
+        assertSame(views[3], mContentView.getChildAt(2));
+        assertNull(views[1].getParent());
+        assertEquals(pooled + 1, getPoolSize());
+    }
+
+    @Test
+    public void movedItemKeepsItsView() {
+        View[] views = getItemViews();
+
+        mToolbar.setMenu(createMenu(4, 1, 2, 3));
+
+        assertEquals(4, mContentView.getChildCount());
+        assertSame(views[3], mContentView.getChildAt(0));
+        assertSame(views[0], mContentView.getChildAt(1));
+        assertSame(views[1], mContentView.getChildAt(2));
+        assertSame(views[2], mContentView.getChildAt(3));
+    }
+
+    @Test
+    public void hiddenItemViewIsReusedWhenItsShownAgain() {
+        Menu menu = createMenu(1, 2, 3, 4);
+        mToolbar.setMenu(menu);
+        View view = mToolbar.findViewById(2);
+
+        menu.findItem(2).setVisible(false);
+        mToolbar.setMenu(menu);
+        assertNull(view.getParent());
+
+        menu.findItem(2).setVisible(true);
+        mToolbar.setMenu(menu);
+
+        assertSame(view, mContentView.getChildAt(1));
+        assertSame(menu.findItem(2), view.getTag());
+    }
+
+    @Test
+    public void itemsWithoutIdReuseViewsByPosition() {
+        View[] views = getItemViews();
+
+        mToolbar.setMenu(createMenu(Menu.NONE, Menu.NONE, Menu.NONE, Menu.NONE));
+
+        assertEquals(4, mContentView.getChildCount());
+        for (int i = 0; i < views.length; i++) {
+            View view = mContentView.getChildAt(i);
+            assertSame(views[i], view);
+            assertNotEquals(View.NO_ID, view.getId());
+            for (int j = 0; j < i; j++) {
+                assertNotEquals(mContentView.getChildAt(j).getId(), view.getId());
+            }
+        }
+    }
+
+    @Test
+    public void itemWithoutIdDoesNotKeepTheIdOfAnotherItem() {
+        mToolbar.setMenu(createMenu(Menu.NONE, 1, 3, 4));
+
+        View view = mContentView.getChildAt(0);
+        assertNotEquals(View.NO_ID, view.getId());
+        assertNull(mToolbar.getMenu().findItem(view.getId()));
+    }
+
+    @Test
+    public void leavingViewsAreNotReusedDuringTheTransition() {
+        mFixture.showNow();
+        View[] views = getItemViews();
+
+        mToolbar.setMenu(createMenu(1, 2), true);
+        mToolbar.setMenu(createMenu(1, 2, 3, 4), true);
+
+        assertEquals(4, mContentView.getChildCount());
+        assertSame(views[0], mContentView.getChildAt(0));
+        assertSame(views[1], mContentView.getChildAt(1));
+        assertNotSame(views[2], mContentView.getChildAt(2));
+        assertNotSame(views[3], mContentView.getChildAt(3));
+    }
+
+    @Test
+    public void leavingViewsArePooledWhenTheTransitionEnds() {
+        mFixture.showNow();
+        View[] views = getItemViews();
+        int pooled = getPoolSize();
+
+        mToolbar.setMenu(createMenu(1, 2), true);
+        assertEquals(pooled, getPoolSize());
+
+        mContentView.getViewTreeObserver().dispatchOnPreDraw();
+        mFixture.runAnimations();
+
+        assertNull(views[2].getParent());
+        assertNull(views[3].getParent());
+        assertTrue(getPoolSize() > pooled);
+    }
+
+    private View[] getItemViews() {
+        View[] views = new View[mContentView.getChildCount()];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = mContentView.getChildAt(i);
+        }
+        return views;
+    }
+
+    private int getPoolSize() {
+        return mToolbar.getItemViewPool().size(FloatingItemViewPool.TYPE_ITEM);
+    }
+
+    private Menu createMenu(int... ids) {
+        FloatingToolbarMenuBuilder builder = new FloatingToolbarMenuBuilder(mFixture.activity);
+        for (int id : ids) {
+            builder.addItem(id, new ColorDrawable(Color.BLACK), "Item " + id);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.content.res.Configuration;
+import android.provider.Settings;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_MORPH_END;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_MORPH_START;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_UNMORPH_END;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_UNMORPH_START;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.STATE_DRAGGING;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.STATE_HIDDEN;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.STATE_HIDING;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.STATE_SHOWING;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.STATE_SHOWN;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Every action of the morph from every state of the FloatingToolbar
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingToolbarStateTest {
+
+    // Extra state: a drag that was released and is settling towards the FloatingToolbar
+    private static final int STATE_SETTLING = 5;
+
+    private static final int ACTION_SHOW = 0;
+    private static final int ACTION_HIDE = 1;
+    private static final int ACTION_DRAG = 2;
+
+    private FloatingToolbarFixture mFixture;
+    private FloatingToolbar mToolbar;
+
+    @Before
+    public void setUp() {
+        mFixture = new FloatingToolbarFixture();
+        mToolbar = mFixture.toolbar;
+    }
+
+    @Test
+    public void showFromHidden() {
+        assertTransition(STATE_HIDDEN, ACTION_SHOW, STATE_SHOWING, events(PHASE_MORPH_START),
+                STATE_SHOWN, events(PHASE_MORPH_START, PHASE_MORPH_END));
+    }
+
+    @Test
+    public void hideFromHidden() {
+        assertTransition(STATE_HIDDEN, ACTION_HIDE, STATE_HIDDEN, events(),
+                STATE_HIDDEN, events());
+    }
+
+    @Test
+    public void dragFromHidden() {
+        assertTransition(STATE_HIDDEN, ACTION_DRAG, STATE_DRAGGING, events(PHASE_MORPH_START),
+                STATE_DRAGGING, events(PHASE_MORPH_START));
+    }
+
+    @Test
+    public void showFromShowing() {
+        assertTransition(STATE_SHOWING, ACTION_SHOW, STATE_SHOWING, events(),
+                STATE_SHOWN, events(PHASE_MORPH_END));
+    }
+
+    @Test
+    public void hideFromShowing() {
+        assertTransition(STATE_SHOWING, ACTION_HIDE, STATE_HIDING, events(PHASE_UNMORPH_START),
+                STATE_HIDDEN, events(PHASE_UNMORPH_START, PHASE_UNMORPH_END));
+    }
+
+    @Test
+    public void dragFromShowing() {
+        assertTransition(STATE_SHOWING, ACTION_DRAG, STATE_DRAGGING, events(),
+                STATE_DRAGGING, events());
+    }
+
+    @Test
+    public void showFromShown() {
+        assertTransition(STATE_SHOWN, ACTION_SHOW, STATE_SHOWN, events(),
+                STATE_SHOWN, events());
+    }
+
+    @Test
+    public void hideFromShown() {
+        assertTransition(STATE_SHOWN, ACTION_HIDE, STATE_HIDING, events(PHASE_UNMORPH_START),
+                STATE_HIDDEN, events(PHASE_UNMORPH_START, PHASE_UNMORPH_END));
+    }
+
+    @Test
+    public void dragFromShown() {
+        assertTransition(STATE_SHOWN, ACTION_DRAG, STATE_DRAGGING, events(PHASE_UNMORPH_START),
+                STATE_DRAGGING, events(PHASE_UNMORPH_START));
+    }
+
+    @Test
+    public void showFromHiding() {
+        assertTransition(STATE_HIDING, ACTION_SHOW, STATE_SHOWING, events(PHASE_MORPH_START),
+                STATE_SHOWN, events(PHASE_MORPH_START, PHASE_MORPH_END));
+    }
+
+    @Test
+    public void hideFromHiding() {
+        assertTransition(STATE_HIDING, ACTION_HIDE, STATE_HIDING, events(),
+                STATE_HIDDEN, events(PHASE_UNMORPH_END));
+    }
+
+    @Test
+    public void dragFromHiding() {
+        assertTransition(STATE_HIDING, ACTION_DRAG, STATE_DRAGGING, events(),
+                STATE_DRAGGING, events());
+    }
+
+    @Test
+    public void showFromDragging() {
+        assertTransition(STATE_DRAGGING, ACTION_SHOW, STATE_SHOWING, events(),
+                STATE_SHOWN, events(PHASE_MORPH_END));
+    }
+
+    @Test
+    public void hideFromDragging() {
+        assertTransition(STATE_DRAGGING, ACTION_HIDE, STATE_HIDING, events(PHASE_UNMORPH_START),
+                STATE_HIDDEN, events(PHASE_UNMORPH_START, PHASE_UNMORPH_END));
+    }
+
+    @Test
+    public void dragFromDragging() {
+        assertTransition(STATE_DRAGGING, ACTION_DRAG, STATE_DRAGGING, events(),
+                STATE_DRAGGING, events());
+    }
+
+    @Test
+    public void showFromSettling() {
+        assertTransition(STATE_SETTLING, ACTION_SHOW, STATE_SHOWING, events(),
+                STATE_SHOWN, events(PHASE_MORPH_END));
+    }
+
+    @Test
+    public void hideFromSettling() {
+        assertTransition(STATE_SETTLING, ACTION_HIDE, STATE_HIDING, events(PHASE_UNMORPH_START),
+                STATE_HIDDEN, events(PHASE_UNMORPH_START, PHASE_UNMORPH_END));
+    }
+
+    @Test
+    public void dragFromSettling() {
+        assertTransition(STATE_SETTLING, ACTION_DRAG, STATE_DRAGGING, events(),
+                STATE_DRAGGING, events());
+    }
+
+    @Test
+    public void reversalLastsThePlayedFractionOfTheInterruptedAnimation() {
+        FloatingAnimator animator = mToolbar.getAnimator();
+        long showDuration = animator.getShowDuration();
+        long hideDuration = animator.getHideDuration();
+
+        mToolbar.show();
+        mFixture.advance(showDuration / 2);
+        mToolbar.hide();
+
+        // Half of the show was played, so the hide takes half of its duration
+        assertEquals(hideDuration / 2, animator.getPlannedDuration(), 2);
+
+        long reversedHide = animator.getPlannedDuration();
+        mFixture.advance(reversedHide / 4);
+        mToolbar.show();
+
+        // A quarter of the shortened hide was played
+        assertEquals(showDuration / 4, animator.getPlannedDuration(), 2);
+    }
+
+    @Test
+    public void durationScaleIsOnlyReadAgainAfterConfigurationChange() {
+        FloatingAnimator animator = mToolbar.getAnimator();
+        long showDuration = animator.getShowDuration();
+        mToolbar.show();
+        assertEquals(showDuration, animator.getPlannedDuration());
+        mFixture.runAnimations();
+        mToolbar.hide();
+        mFixture.runAnimations();
+
+        Settings.Global.putFloat(mFixture.activity.getContentResolver(),
+                Settings.Global.ANIMATOR_DURATION_SCALE, 2f);
+        mToolbar.show();
+        assertEquals(showDuration, animator.getPlannedDuration());
+        mFixture.runAnimations();
+        mToolbar.hide();
+        mFixture.runAnimations();
+
+        mToolbar.onConfigurationChanged(new Configuration());
+        mToolbar.show();
+        assertEquals(2 * showDuration, animator.getPlannedDuration());
+    }
+
+    private void assertTransition(int from, int action, int state, int[] events,
+                                  int finalState, int[] finalEvents) {
+        moveTo(from);
+        mFixture.events.clear();
+
+        switch (action) {
+            case ACTION_SHOW:
+                mToolbar.show();
+                break;
+            case ACTION_HIDE:
+                mToolbar.hide();
+                break;
+            case ACTION_DRAG:
+                mToolbar.setMorphProgress(0.5f);
+                break;
+        }
+
+        assertEquals(state, mToolbar.mState);
+        mFixture.events.assertEvents(events);
+
+        mFixture.runAnimations();
+
+        assertEquals(finalState, mToolbar.mState);
+        mFixture.events.assertEvents(finalEvents);
+    }
+
+    private void moveTo(int state) {
+        switch (state) {
+            case STATE_SHOWING:
+                mToolbar.show();
+                mFixture.advance(50);
+                break;
+            case STATE_SHOWN:
+                mFixture.showNow();
+                break;
+            case STATE_HIDING:
+                mFixture.showNow();
+                mToolbar.hide();
+                mFixture.advance(50);
+                break;
+            case STATE_DRAGGING:
+                mToolbar.setMorphProgress(0.3f);
+                break;
+            case STATE_SETTLING:
+                mToolbar.setMorphProgress(0.3f);
+                mToolbar.settleMorph(true, 0f);
+                mFixture.advance(16);
+                break;
+        }
+        assertEquals(state == STATE_SETTLING ? STATE_SHOWING : state, mToolbar.mState);
+    }
+
+    private static int[] events(int... phases) {
+        return phases;
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.content.res.Configuration;
+import android.provider.Settings;
+import android.support.design.widget.CoordinatorLayout;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_MORPH_END;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_MORPH_START;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_UNMORPH_END;
+import static com.github.rubensousa.floatingtoolbar.FloatingToolbar.PHASE_UNMORPH_START;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class FloatingToolbarTest {
+
+    private FloatingToolbarFixture mFixture;
+    private FloatingToolbar mToolbar;
+
+    @Before
+    public void setUp() {
+        mFixture = new FloatingToolbarFixture();
+        mToolbar = mFixture.toolbar;
+    }
+
+    @Test
+    public void showMorphsIntoToolbar() {
+        mToolbar.show();
+
+        assertTrue(mToolbar.isShowing());
+        assertTrue(mToolbar.isAnimating());
+        mFixture.events.assertEvents(PHASE_MORPH_START);
+
+        mFixture.runAnimations();
+
+        assertFalse(mToolbar.isAnimating());
+        assertEquals(FloatingToolbar.STATE_SHOWN, mToolbar.mState);
+        assertEquals(View.VISIBLE, mToolbar.getVisibility());
+        assertEquals(View.INVISIBLE, mFixture.fab.getVisibility());
+        mFixture.events.assertEvents(PHASE_MORPH_START, PHASE_MORPH_END);
+    }
+
+    @Test
+    public void hideMorphsIntoFab() {
+        mFixture.showNow();
+
+        mToolbar.hide();
+        mFixture.runAnimations();
+
+        assertFalse(mToolbar.isShowing());
+        assertEquals(FloatingToolbar.STATE_HIDDEN, mToolbar.mState);
+        assertEquals(View.INVISIBLE, mToolbar.getVisibility());
+        assertEquals(View.VISIBLE, mFixture.fab.getVisibility());
+        mFixture.events.assertEvents(PHASE_UNMORPH_START, PHASE_UNMORPH_END);
+    }
+
+    @Test
+    public void showWhileShowingIsIgnored() {
+        mToolbar.show();
+        mToolbar.show();
+        mFixture.runAnimations();
+
+        mFixture.events.assertEvents(PHASE_MORPH_START, PHASE_MORPH_END);
+    }
+
+    @Test
+    public void hideWhileHiddenIsIgnored() {
+        mToolbar.hide();
+        mFixture.runAnimations();
+
+        mFixture.events.assertEvents();
+    }
+
+    @Test
+    public void showWhileHidingReversesTheUnmorph() {
+        mFixture.showNow();
+
+        mToolbar.hide();
+        mFixture.advance(100);
+        mToolbar.show();
+        mFixture.runAnimations();
+
+        assertEquals(FloatingToolbar.STATE_SHOWN, mToolbar.mState);
+        mFixture.events.assertEvents(PHASE_UNMORPH_START, PHASE_MORPH_START, PHASE_MORPH_END);
+    }
+
+    @Test
+    public void hideWhileShowingReversesTheMorph() {
+        mToolbar.show();
+        mFixture.advance(100);
+        mToolbar.hide();
+        mFixture.runAnimations();
+
+        assertEquals(FloatingToolbar.STATE_HIDDEN, mToolbar.mState);
+        assertEquals(View.VISIBLE, mFixture.fab.getVisibility());
+        mFixture.events.assertEvents(PHASE_MORPH_START, PHASE_UNMORPH_START,
+                PHASE_UNMORPH_END);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void showWithoutFabThrows() {
+        mToolbar.detachFab();
+        mToolbar.show();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void dragWithoutFabThrows() {
+        mToolbar.detachFab();
+        mToolbar.setMorphProgress(0.5f);
+    }
+
+    @Test
+    public void dragFromFabDispatchesMorphStartOnce() {
+        mToolbar.setMorphProgress(0.2f);
+        mToolbar.setMorphProgress(0.6f);
+
+        assertEquals(FloatingToolbar.STATE_DRAGGING, mToolbar.mState);
+        assertEquals(0.6f, mToolbar.getMorphProgress(), 0.0001f);
+        mFixture.events.assertEvents(PHASE_MORPH_START);
+
+        mToolbar.settleMorph(true, 0f);
+        mFixture.runAnimations();
+
+        assertEquals(FloatingToolbar.STATE_SHOWN, mToolbar.mState);
+        assertEquals(1f, mToolbar.getMorphProgress(), 0f);
+        assertEquals(View.INVISIBLE, mFixture.fab.getVisibility());
+        mFixture.events.assertEvents(PHASE_MORPH_START, PHASE_MORPH_END);
+    }
+
+    @Test
+    public void dragBackToFabReversesTheMorph() {
+        mToolbar.setMorphProgress(0.4f);
+        mToolbar.settleMorph(false, 0f);
+        mFixture.runAnimations();
+
+        assertEquals(FloatingToolbar.STATE_HIDDEN, mToolbar.mState);
+        assertEquals(View.VISIBLE, mFixture.fab.getVisibility());
+        mFixture.events.assertEvents(PHASE_MORPH_START, PHASE_UNMORPH_START,
+                PHASE_UNMORPH_END);
+    }
+
+    @Test
+    public void dragFromToolbarDispatchesUnmorph() {
+        mFixture.showNow();
+
+        mToolbar.setMorphProgress(0.7f);
+        mToolbar.setMorphProgress(0.1f);
+        mToolbar.settleMorph(false, -2f);
+        mFixture.runAnimations();
+
+        assertEquals(FloatingToolbar.STATE_HIDDEN, mToolbar.mState);
+        mFixture.events.assertEvents(PHASE_UNMORPH_START, PHASE_UNMORPH_END);
+    }
+
+    @Test
+    public void dragInterruptsRunningMorph() {
+        mToolbar.show();
+        mFixture.advance(100);
+
+        mToolbar.setMorphProgress(0.5f);
+        assertFalse(mToolbar.getAnimator().isRunning());
+
+        mToolbar.settleMorph(true, 0f);
+        mFixture.runAnimations();
+
+        // The drag continued the morph, so its start isn't dispatched again
+        mFixture.events.assertEvents(PHASE_MORPH_START, PHASE_MORPH_END);
+    }
+
+    @Test
+    public void showDuringDragSettlesIt() {
+        mToolbar.setMorphProgress(0.3f);
+        mToolbar.show();
+        mFixture.runAnimations();
+
+        assertEquals(FloatingToolbar.STATE_SHOWN, mToolbar.mState);
+        mFixture.events.assertEvents(PHASE_MORPH_START, PHASE_MORPH_END);
+    }
+
+    @Test
+    public void frameSourceIsKeptWhenTheAnimationChanges() {
+        mToolbar.setAnimation(FloatingAnimations.SPRING);
+        assertSame(mFixture.frameSource, mToolbar.getAnimator().getFrameSource());
+
+        mToolbar.setAnimation(FloatingAnimations.REDUCED);
+        assertSame(mFixture.frameSource, mToolbar.getAnimator().getFrameSource());
+    }
+
+    @Test
+    public void metricsUseTheFrameSource() {
+        final MorphMetrics[] metrics = new MorphMetrics[1];
+        mToolbar.setMorphMetricsListener(new FloatingToolbar.MorphMetricsListener() {
+            @Override
+            public void onMorphMetrics(MorphMetrics morphMetrics) {
+                metrics[0] = morphMetrics;
+            }
+        });
+
+        mToolbar.show();
+        mFixture.runAnimations();
+
+        assertTrue(metrics[0] != null);
+        assertTrue(metrics[0].getFrameCount() > 0);
+    }
+
+    @Test
+    public void thresholdPolicyWaitsForTheReducedFade() {
+        final MenuItem[] clicked = new MenuItem[1];
+        mToolbar.setAnimation(FloatingAnimations.REDUCED);
+        mToolbar.setInputPolicy(FloatingToolbar.INPUT_POLICY_THRESHOLD);
+        mToolbar.setClickListener(new FloatingToolbar.ItemClickListener() {
+            @Override
+            public void onItemClick(MenuItem item) {
+                clicked[0] = item;
+            }
+
+            @Override
+            public void onItemLongClick(MenuItem item) {
+
+            }
+        });
+        View item = ((ViewGroup) mToolbar.getAnimator().getContentView()).getChildAt(0);
+
+        // The items are fully opaque, but the FloatingToolbar has just started to fade in
+        mToolbar.show();
+        mFixture.advance(16);
+        item.performClick();
+        assertNull(clicked[0]);
+
+        mFixture.advance(FloatingAnimatorReducedImpl.FADE_DURATION - 32);
+        item.performClick();
+        assertSame(item.getTag(), clicked[0]);
+    }
+
+    @Test
+    public void queuePolicyDeliversAMidMorphClickOnceTheMorphEnds() {
+        ClickRecorder clicks = new ClickRecorder();
+        mToolbar.setInputPolicy(FloatingToolbar.INPUT_POLICY_QUEUE);
+        mToolbar.setClickListener(clicks);
+        ViewGroup contentView = (ViewGroup) mToolbar.getAnimator().getContentView();
+
+        mToolbar.show();
+        mFixture.advance(16);
+        contentView.getChildAt(0).performClick();
+        // Only the first click is queued
+        contentView.getChildAt(1).performClick();
+        assertTrue(clicks.items.isEmpty());
+
+        mFixture.runAnimations();
+
+        assertEquals(1, clicks.items.size());
+        assertSame(contentView.getChildAt(0).getTag(), clicks.items.get(0));
+
+        // The morph of the auto hide doesn't deliver it again
+        mFixture.runAnimations();
+        mToolbar.show();
+        mFixture.runAnimations();
+        assertEquals(1, clicks.items.size());
+    }
+
+    @Test
+    public void queuePolicyDropsTheClickWhenTheMenuChanges() {
+        ClickRecorder clicks = new ClickRecorder();
+        mToolbar.setInputPolicy(FloatingToolbar.INPUT_POLICY_QUEUE);
+        mToolbar.setClickListener(clicks);
+        ViewGroup contentView = (ViewGroup) mToolbar.getAnimator().getContentView();
+
+        mToolbar.show();
+        mFixture.advance(16);
+        contentView.getChildAt(0).performClick();
+        mToolbar.setMenu(mFixture.createMenu(2));
+        mFixture.runAnimations();
+
+        assertTrue(clicks.items.isEmpty());
+    }
+
+    @Test
+    public void queuePolicyDropsTheClickWhenHidden() {
+        ClickRecorder clicks = new ClickRecorder();
+        mToolbar.setInputPolicy(FloatingToolbar.INPUT_POLICY_QUEUE);
+        mToolbar.setClickListener(clicks);
+        ViewGroup contentView = (ViewGroup) mToolbar.getAnimator().getContentView();
+
+        mToolbar.show();
+        mFixture.advance(16);
+        contentView.getChildAt(0).performClick();
+        mToolbar.hide();
+        mFixture.runAnimations();
+        mToolbar.show();
+        mFixture.runAnimations();
+
+        assertTrue(clicks.items.isEmpty());
+    }
+
+    @Test
+    public void adaptiveAnimationIsOnlyPickedAgainAfterConfigurationChange() {
+        mToolbar.enableAdaptiveAnimation(true);
+        mToolbar.show();
+        mFixture.runAnimations();
+        mToolbar.hide();
+        mFixture.runAnimations();
+        assertTrue(mToolbar.getAnimator() instanceof FloatingAnimatorLollipopImpl);
+
+        Settings.Global.putFloat(mFixture.activity.getContentResolver(),
+                Settings.Global.ANIMATOR_DURATION_SCALE, 0f);
+        mToolbar.show();
+        mFixture.runAnimations();
+        mToolbar.hide();
+        mFixture.runAnimations();
+        assertTrue(mToolbar.getAnimator() instanceof FloatingAnimatorLollipopImpl);
+
+        mToolbar.onConfigurationChanged(new Configuration());
+        mToolbar.show();
+        assertTrue(mToolbar.getAnimator() instanceof FloatingAnimatorInstantImpl);
+    }
+
+    @Test
+    public void overflowIsPlacedAgainAfterTheLayoutPass() {
+        mToolbar.setOverflowEnabled(true);
+        mToolbar.setMenu(mFixture.createMenu(12));
+        ViewGroup row = (ViewGroup) mToolbar.getAnimator().getContentView();
+
+        // 10 items of 48px fit in 480px: 9 items and the overflow button
+        assertEquals(10, row.getChildCount());
+
+        Scheduler scheduler = Robolectric.getForegroundThreadScheduler();
+        scheduler.pause();
+        mFixture.layout(FloatingToolbarFixture.WIDTH / 2, FloatingToolbarFixture.HEIGHT);
+
+        // The row isn't changed while it's being measured
+        assertEquals(10, row.getChildCount());
+
+        scheduler.unPause();
+        assertEquals(5, row.getChildCount());
+    }
+
+    @Test
+    public void scrollableItemsAreResizedWhenTheSizeChanges() {
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.floatingScrollableMenu, "true")
+                .build();
+        FloatingToolbar toolbar = new FloatingToolbar(mFixture.activity, attrs);
+        toolbar.setMenu(mFixture.createMenu(20));
+        mFixture.coordinatorLayout.addView(toolbar, new CoordinatorLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, FloatingToolbarFixture.TOOLBAR_HEIGHT));
+        final int[] changes = {0};
+        ((RecyclerView) toolbar.getAnimator().getContentView()).getAdapter()
+                .registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+                    @Override
+                    public void onChanged() {
+                        changes[0]++;
+                    }
+                });
+
+        // Measuring doesn't touch the adapter
+        mFixture.coordinatorLayout.measure(
+                View.MeasureSpec.makeMeasureSpec(FloatingToolbarFixture.WIDTH,
+                        View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(FloatingToolbarFixture.HEIGHT,
+                        View.MeasureSpec.EXACTLY));
+        assertEquals(0, changes[0]);
+
+        mFixture.layout();
+        assertEquals(1, changes[0]);
+
+        mFixture.layout();
+        assertEquals(1, changes[0]);
+
+        mFixture.layout(FloatingToolbarFixture.WIDTH / 2, FloatingToolbarFixture.HEIGHT);
+        assertEquals(2, changes[0]);
+    }
+
+    private static class ClickRecorder implements FloatingToolbar.ItemClickListener {
+
+        final List<MenuItem> items = new ArrayList<>();
+
+        @Override
+        public void onItemClick(MenuItem item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onItemLongClick(MenuItem item) {
+
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * MorphListener that records the phases it receives, to check their order
+ */
+class MorphEventRecorder implements FloatingToolbar.MorphListener {
+
+    private List<Integer> mEvents = new ArrayList<>();
+
+    @Override
+    public void onMorphStart() {
+        mEvents.add(FloatingToolbar.PHASE_MORPH_START);
+    }
+
+    @Override
+    public void onMorphEnd() {
+        mEvents.add(FloatingToolbar.PHASE_MORPH_END);
+    }
+
+    @Override
+    public void onUnmorphStart() {
+        mEvents.add(FloatingToolbar.PHASE_UNMORPH_START);
+    }
+
+    @Override
+    public void onUnmorphEnd() {
+        mEvents.add(FloatingToolbar.PHASE_UNMORPH_END);
+    }
+
+    /**
+     * Check that exactly these phases were received, in this order
+     */
+    void assertEvents(int... phases) {
+        List<String> expected = new ArrayList<>();
+        for (int phase : phases) {
+            expected.add(getName(phase));
+        }
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i < mEvents.size(); i++) {
+            actual.add(getName(mEvents.get(i)));
+        }
+        assertEquals(expected, actual);
+    }
+
+    void clear() {
+        mEvents.clear();
+    }
+
+    private static String getName(int phase) {
+        switch (phase) {
+            case FloatingToolbar.PHASE_MORPH_START:
+                return "MORPH_START";
+            case FloatingToolbar.PHASE_MORPH_END:
+                return "MORPH_END";
+            case FloatingToolbar.PHASE_UNMORPH_START:
+                return "UNMORPH_START";
+            case FloatingToolbar.PHASE_UNMORPH_END:
+                return "UNMORPH_END";
+            default:
+                return String.valueOf(phase);
+        }
+    }
+}
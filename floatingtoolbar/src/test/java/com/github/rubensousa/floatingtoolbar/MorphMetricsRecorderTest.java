@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Rúben Sousa
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.github.rubensousa.floatingtoolbar;
+
+import android.support.animation.SpringForce;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class)
+public class MorphMetricsRecorderTest {
+
+    private FakeFrameSource mFrameSource;
+    private List<MorphMetrics> mMetrics;
+    private MorphMetricsRecorder mRecorder;
+
+    @Before
+    public void setUp() {
+        mFrameSource = new FakeFrameSource();
+        mMetrics = new ArrayList<>();
+        mRecorder = new MorphMetricsRecorder(mFrameSource,
+                new FloatingToolbar.MorphMetricsListener() {
+                    @Override
+                    public void onMorphMetrics(MorphMetrics metrics) {
+                        mMetrics.add(metrics);
+                    }
+                });
+    }
+
+    @Test
+    public void smoothMorphHasNoDroppedFrames() {
+        mRecorder.start(true, 500, 50);
+        mFrameSource.step(30);
+        mRecorder.finish(false);
+
+        assertEquals(1, mMetrics.size());
+        MorphMetrics metrics = mMetrics.get(0);
+        assertTrue(metrics.isMorph());
+        assertFalse(metrics.isInterrupted());
+        assertEquals(30, metrics.getFrameCount());
+        assertEquals(0, metrics.getDroppedFrames());
+        assertEquals(0, metrics.getJankyFrames());
+        assertEquals(500, metrics.getPlannedDuration());
+        assertEquals(50, metrics.getDelay());
+        // 30 frames of 16.67ms
+        assertEquals(500, metrics.getDuration(), 1);
+    }
+
+    @Test
+    public void longFramesAreCountedAsDropped() {
+        mRecorder.start(false, 300, 0);
+        mFrameSource.step(5);
+        // Three frames are missed before the next one
+        mFrameSource.advance(3 * mFrameSource.getFrameIntervalNanos());
+        mFrameSource.step(5);
+        mRecorder.finish(false);
+
+        MorphMetrics metrics = mMetrics.get(0);
+        assertFalse(metrics.isMorph());
+        assertEquals(10, metrics.getFrameCount());
+        assertEquals(3, metrics.getDroppedFrames());
+        assertEquals(1, metrics.getJankyFrames());
+    }
+
+    @Test
+    public void droppedFramesDependOnTheRefreshRate() {
+        mFrameSource.setRefreshRate(120f);
+        mRecorder.start(true, 300, 0);
+        mFrameSource.step();
+        // A 60Hz frame is two frames at 120Hz
+        mFrameSource.advance(mFrameSource.getFrameIntervalNanos());
+        mFrameSource.step();
+        mRecorder.finish(false);
+
+        assertEquals(1, mMetrics.get(0).getDroppedFrames());
+    }
+
+    @Test
+    public void newMorphInterruptsTheCurrentOne() {
+        mRecorder.start(true, 300, 0);
+        mFrameSource.step(3);
+        mRecorder.start(false, 300, 0);
+
+        assertEquals(1, mMetrics.size());
+        assertTrue(mMetrics.get(0).isInterrupted());
+        assertTrue(mRecorder.isRunning());
+    }
+
+    @Test
+    public void framesStopBeingCountedAfterFinish() {
+        mRecorder.start(true, 300, 0);
+        mFrameSource.step(2);
+        mRecorder.finish(false);
+        mFrameSource.step(10);
+
+        assertFalse(mFrameSource.hasCallbacks());
+        assertEquals(2, mMetrics.get(0).getFrameCount());
+    }
+
+    @Test
+    public void springSettleDurationComesFromTheSpring() {
+        float threshold = 0.0015f;
+        long medium = FloatingAnimatorSpringImpl.getSettleDuration(
+                SpringForce.STIFFNESS_MEDIUM, SpringForce.DAMPING_RATIO_NO_BOUNCY, threshold);
+        long high = FloatingAnimatorSpringImpl.getSettleDuration(
+                SpringForce.STIFFNESS_HIGH, SpringForce.DAMPING_RATIO_NO_BOUNCY, threshold);
+        long bouncy = FloatingAnimatorSpringImpl.getSettleDuration(
+                SpringForce.STIFFNESS_MEDIUM, SpringForce.DAMPING_RATIO_MEDIUM_BOUNCY, threshold);
+
+        // (1 + ωt)e^(-ωt) = 0.0015 for ω = sqrt(1500)
+        assertEquals(227, medium, 1);
+        assertTrue(high < medium);
+        assertTrue(bouncy > medium);
+    }
+
+    @Test
+    public void springMorphReportsNoDelay() {
+        FloatingToolbarFixture fixture = new FloatingToolbarFixture(
+                FloatingAnimations.get(FloatingAnimations.SPRING));
+        fixture.toolbar.setMorphMetricsListener(new FloatingToolbar.MorphMetricsListener() {
+            @Override
+            public void onMorphMetrics(MorphMetrics metrics) {
+                mMetrics.add(metrics);
+            }
+        });
+
+        fixture.toolbar.show();
+        fixture.runAnimations();
+
+        MorphMetrics metrics = mMetrics.get(0);
+        assertEquals(0, metrics.getDelay());
+        assertEquals(FloatingAnimatorSpringImpl.SETTLE_DURATION, metrics.getPlannedDuration());
+    }
+}
@@ -22,18 +22,16 @@ import android.support.annotation.Nullable;
 import android.support.design.widget.AppBarLayout;
 import android.support.design.widget.FloatingActionButton;
 import android.support.v7.app.AppCompatActivity;
-import android.view.MenuItem;
-import android.view.View;
 
 import com.github.rubensousa.floatingtoolbar.FloatingToolbar;
+import com.github.rubensousa.floatingtoolbar.FloatingToolbarCoordinator;
 
 public class DetailActivity extends AppCompatActivity implements FloatingToolbar.MorphListener {
 
-    private FloatingActionButton mFabAppBar;
     private FloatingActionButton mFab;
     private AppBarLayout mAppBar;
     private FloatingToolbar mFloatingToolbar;
-    private boolean mShowingFromAppBar;
+    private FloatingToolbarCoordinator mCoordinator;
     private boolean mShowingFromNormal;
 
     // 808100900
@@ -45,35 +43,13 @@ public class DetailActivity extends AppCompatActivity implements FloatingToolbar
 
         mAppBar = (AppBarLayout) findViewById(R.id.appbar);
         mFloatingToolbar = (FloatingToolbar) findViewById(R.id.floatingToolbar);
-        mFabAppBar = (FloatingActionButton) findViewById(R.id.fab);
         mFab = (FloatingActionButton) findViewById(R.id.fab2);
 
-        // Don't handle fab click since we'll have 2 of them
-        mFloatingToolbar.handleFabClick(false);
+        // Both fabs morph into the same FloatingToolbar
+        mCoordinator = new FloatingToolbarCoordinator();
+        mCoordinator.bind(mFloatingToolbar, (FloatingActionButton) findViewById(R.id.fab));
+        mCoordinator.bind(mFloatingToolbar, mFab);
         mFloatingToolbar.addMorphListener(this);
-
-        mFab.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View view) {
-                mAppBar.setExpanded(false, true);
-                mFloatingToolbar.attachFab(mFab);
-                mFloatingToolbar.show();
-                mShowingFromNormal = true;
-            }
-        });
-
-        mFabAppBar.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View view) {
-                if (!mFloatingToolbar.isShowing()) {
-                    mFab.hide();
-                    mFloatingToolbar.attachAppBarLayout(mAppBar);
-                    mFloatingToolbar.attachFab(mFabAppBar);
-                    mFloatingToolbar.show();
-                    mShowingFromAppBar = true;
-                }
-            }
-        });
     }
 
     @Override
@@ -89,20 +65,17 @@ public class DetailActivity extends AppCompatActivity implements FloatingToolbar
 
     @Override
     public void onMorphStart() {
-
+        if (mCoordinator.getActiveFab() == mFab) {
+            mAppBar.setExpanded(false, true);
+            mShowingFromNormal = true;
+        }
     }
 
     @Override
     public void onUnmorphEnd() {
-        if (mShowingFromAppBar) {
-            mFab.show();
-        }
-
         if (mShowingFromNormal) {
             mAppBar.setExpanded(true, true);
         }
-
-        mShowingFromAppBar = false;
         mShowingFromNormal = false;
     }
 